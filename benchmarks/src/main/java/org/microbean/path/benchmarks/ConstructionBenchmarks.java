@@ -0,0 +1,260 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.microbean.path.Path;
+import org.microbean.path.Path.Element;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link Path} construction through each of its
+ * constructors, its {@code of} factory methods, its {@code plus}
+ * methods, and {@link Path.Builder}.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+public class ConstructionBenchmarks {
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link ConstructionBenchmarks}.
+   */
+  public ConstructionBenchmarks() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Benchmarks {@link Path#Path(Element)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> newPathLastElement(final PathState s) {
+    return new Path<>(s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link Path#Path(org.microbean.qualifier.Qualifiers,
+   * Element)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> newPathQualifiersLastElement(final PathState s) {
+    return new Path<>(s.pathQualifiers, s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link Path#Path(org.microbean.qualifier.Qualifiers,
+   * java.util.List, Element)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> newPathQualifiersElementsLastElement(final PathState s) {
+    return new Path<>(s.pathQualifiers, s.elements, s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link Path#of(Object)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> ofQualified(final PathState s) {
+    return Path.of(s.qualified);
+  }
+
+  /**
+   * Benchmarks {@link Path#of(Object, String)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> ofQualifiedName(final PathState s) {
+    return Path.of(s.qualified, s.names[0]);
+  }
+
+  /**
+   * Benchmarks {@link Path#of(Object, String...)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> ofQualifiedNameArray(final PathState s) {
+    return Path.of(s.qualified, s.names);
+  }
+
+  /**
+   * Benchmarks {@link Path#of(Object, java.util.List)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> ofQualifiedNameList(final PathState s) {
+    return Path.of(s.qualified, s.nameList);
+  }
+
+  /**
+   * Benchmarks {@link Path#of(Element)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> ofLastElement(final PathState s) {
+    return Path.of(s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link Path#of(org.microbean.qualifier.Qualifiers,
+   * Element)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> ofQualifiersLastElement(final PathState s) {
+    return Path.of(s.pathQualifiers, s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link Path#of(org.microbean.qualifier.Qualifiers,
+   * java.util.List, Element)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> ofQualifiersElementsLastElement(final PathState s) {
+    return Path.of(s.pathQualifiers, s.elements, s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link Path.Builder#build(Element)} on a new {@link
+   * Path.Builder}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> builder(final PathState s) {
+    return new Path.Builder().qualifiers(s.pathQualifiers).addAll(s.elements).build(s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link PathState#freshPath()}, the baseline for the
+   * "cold" benchmarks of cached operations.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> freshPath(final PathState s) {
+    return s.freshPath();
+  }
+
+  /**
+   * Benchmarks {@link Path#plus(Element)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> plusElement(final PathState s) {
+    return s.parent.plus(s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link Path#plus(Path)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the new {@link Path}
+   */
+  @Benchmark
+  public Path<?> plusPath(final PathState s) {
+    return s.prefix.plus(s.suffix);
+  }
+
+  /**
+   * Benchmarks building a {@link Path} one {@link Element} at a time
+   * with {@link Path#plus(Element)}, starting from a {@linkplain
+   * Path#root() root path}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @param bh a {@link Blackhole}; must not be {@code null}
+   */
+  @Benchmark
+  public void plusElementIncrementally(final PathState s, final Blackhole bh) {
+    Path<?> p = Path.root();
+    for (final Element<?> e : s.path) {
+      p = p.plus(e);
+    }
+    bh.consume(p);
+  }
+
+}
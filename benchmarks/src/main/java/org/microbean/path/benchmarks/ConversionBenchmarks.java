@@ -0,0 +1,174 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path.benchmarks;
+
+import java.io.IOException;
+
+import java.lang.constant.ConstantDesc;
+
+import java.util.Optional;
+
+import java.util.concurrent.TimeUnit;
+
+import org.microbean.path.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link Path#transliterate()}, {@link
+ * Path#transliterate(java.util.function.BiFunction)}, {@link
+ * Path#transliterate(Class, java.util.function.BiFunction)}, {@link
+ * Path#toString()}, {@link Path#appendTo(Appendable)} and {@link
+ * Path#describeConstable()}.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+public class ConversionBenchmarks {
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link ConversionBenchmarks}.
+   */
+  public ConversionBenchmarks() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Benchmarks {@link Path#transliterate()}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the transliterated {@link Path}
+   */
+  @Benchmark
+  public Path<?> transliterate(final PathState s) {
+    return s.path.transliterate();
+  }
+
+  /**
+   * Benchmarks {@link
+   * Path#transliterate(java.util.function.BiFunction)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the transliterated {@link Path}
+   */
+  @Benchmark
+  public Path<?> transliterateFunction(final PathState s) {
+    return s.path.transliterate(s.transliterator);
+  }
+
+  /**
+   * Benchmarks {@link Path#transliterate(Class,
+   * java.util.function.BiFunction)}, which does not walk the stack.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the transliterated {@link Path}
+   */
+  @Benchmark
+  public Path<?> transliterateFunctionWithCaller(final PathState s) {
+    return s.path.transliterate(ConversionBenchmarks.class, s.transliterator);
+  }
+
+  /**
+   * Benchmarks {@link Path#toString()} on a {@link Path} whose {@link
+   * String} representation has already been computed and cached,
+   * which reduces to a field read.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the {@link String} representation
+   *
+   * @see #toStringCold(PathState)
+   */
+  @Benchmark
+  public String toString(final PathState s) {
+    return s.path.toString();
+  }
+
+  /**
+   * Benchmarks {@link Path#toString()} on a {@linkplain
+   * PathState#freshPath() fresh} {@link Path}, whose {@link String}
+   * representation and whose {@link
+   * org.microbean.path.Path.Element Element}s' {@link String}
+   * representations have not yet been computed.
+   *
+   * <p>The result includes the cost of {@link PathState#freshPath()},
+   * which {@link ConstructionBenchmarks#freshPath(PathState)}
+   * measures on its own.</p>
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the {@link String} representation
+   */
+  @Benchmark
+  public String toStringCold(final PathState s) {
+    return s.freshPath().toString();
+  }
+
+  /**
+   * Benchmarks {@link Path#appendTo(Appendable)} on a freshly created
+   * {@link StringBuilder}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the {@link StringBuilder}
+   *
+   * @exception IOException if an error occurs
+   */
+  @Benchmark
+  public StringBuilder appendTo(final PathState s) throws IOException {
+    return s.path.appendTo(new StringBuilder(s.path.renderedLength()));
+  }
+
+  /**
+   * Benchmarks {@link Path#describeConstable()}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the {@link ConstantDesc}, if any
+   */
+  @Benchmark
+  public Optional<? extends ConstantDesc> describeConstable(final PathState s) {
+    return s.path.describeConstable();
+  }
+
+}
@@ -0,0 +1,179 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.microbean.path.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link Path#equals(Object)}, {@link
+ * Path#hashCode()}, and their use by a {@link java.util.HashMap}.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+public class EqualityBenchmarks {
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link EqualityBenchmarks}.
+   */
+  public EqualityBenchmarks() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Benchmarks {@link Path#hashCode()} on a {@link Path} whose
+   * hashcode has already been computed and cached, which reduces to a
+   * field read.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the hashcode
+   *
+   * @see #hashCodeCold(PathState)
+   */
+  @Benchmark
+  public int hashCode(final PathState s) {
+    return s.path.hashCode();
+  }
+
+  /**
+   * Benchmarks {@link Path#hashCode()} on a {@linkplain
+   * PathState#freshPath() fresh} {@link Path}, whose hashcode and
+   * whose {@link org.microbean.path.Path.Element Element}s' hashcodes
+   * have not yet been computed.
+   *
+   * <p>The result includes the cost of {@link PathState#freshPath()},
+   * which {@link ConstructionBenchmarks#freshPath(PathState)}
+   * measures on its own.</p>
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the hashcode
+   */
+  @Benchmark
+  public int hashCodeCold(final PathState s) {
+    return s.freshPath().hashCode();
+  }
+
+  /**
+   * Benchmarks {@link Path#equals(Object)} with an equal but not
+   * identical {@link Path}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the result of the comparison
+   */
+  @Benchmark
+  public boolean equalsEqual(final PathState s) {
+    return s.path.equals(s.equalPath);
+  }
+
+  /**
+   * Benchmarks {@link Path#equals(Object)} with a {@link Path} that
+   * differs only in its last element.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the result of the comparison
+   */
+  @Benchmark
+  public boolean equalsDifferent(final PathState s) {
+    return s.path.equals(s.differentPath);
+  }
+
+  /**
+   * Benchmarks a {@link java.util.HashMap#get(Object)} lookup keyed
+   * by an equal but not identical {@link Path}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the value found
+   */
+  @Benchmark
+  public Object hashMapGet(final PathState s) {
+    return s.map.get(s.equalPath);
+  }
+
+  /**
+   * Benchmarks {@link org.microbean.path.PathMap#get(Path)} when
+   * probed by an equal but not identical {@link Path}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the value found
+   */
+  @Benchmark
+  public Object pathMapGet(final PathState s) {
+    return s.pathMap.get(s.equalPath);
+  }
+
+  /**
+   * Benchmarks {@link org.microbean.path.PathMap#get(Path,
+   * org.microbean.path.Path.Element)}, which does not create the
+   * probed {@link Path}.  When {@link PathState#depth} is {@code 1}
+   * the parent is a root path and the lookup misses.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the value found
+   */
+  @Benchmark
+  public Object pathMapGetByParent(final PathState s) {
+    return s.pathMap.get(s.parent, s.lastElement);
+  }
+
+  /**
+   * Benchmarks {@link org.microbean.path.PathSet#contains(Path)} when
+   * probed by an equal but not identical {@link Path}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return whether the {@link Path} was found
+   */
+  @Benchmark
+  public boolean pathSetContains(final PathState s) {
+    return s.pathSet.contains(s.equalPath);
+  }
+
+}
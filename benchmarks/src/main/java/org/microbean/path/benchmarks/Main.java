@@ -0,0 +1,84 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks in this package, accepting the same command
+ * line arguments as {@link org.openjdk.jmh.Main}, and always enabling
+ * the {@link GCProfiler} so that allocation rates are reported
+ * alongside timings.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class Main {
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private Main() {
+    super();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args JMH command line arguments; may be {@code null}
+   *
+   * @exception CommandLineOptionException if {@code args} could not
+   * be parsed
+   *
+   * @exception IOException if help could not be shown
+   *
+   * @exception RunnerException if the benchmarks could not be run
+   */
+  public static final void main(final String[] args) throws CommandLineOptionException, IOException, RunnerException {
+    final CommandLineOptions commandLineOptions = new CommandLineOptions(args == null ? new String[0] : args);
+    if (commandLineOptions.shouldHelp()) {
+      commandLineOptions.showHelp();
+    } else if (commandLineOptions.shouldList()) {
+      new Runner(commandLineOptions).list();
+    } else {
+      new Runner(new OptionsBuilder()
+                 .parent(commandLineOptions)
+                 .addProfiler(GCProfiler.class)
+                 .build())
+        .run();
+    }
+  }
+
+}
@@ -0,0 +1,281 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+
+import org.microbean.path.Path;
+import org.microbean.path.Path.Element;
+import org.microbean.path.PathMap;
+import org.microbean.path.PathSet;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shared benchmark state: a family of {@link Path}s of a {@linkplain
+ * #depth given depth} whose {@link Element}s each carry a {@linkplain
+ * #qualifierCount given number} of qualifiers.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@State(Scope.Benchmark)
+public class PathState {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The number of {@link Element}s in the {@linkplain #path
+   * benchmarked <code>Path</code>}.
+   */
+  @Param({ "1", "4", "16" })
+  public int depth;
+
+  /**
+   * The number of qualifiers carried by each {@link Element} and by
+   * the {@linkplain #path benchmarked <code>Path</code>} itself.
+   */
+  @Param({ "0", "2", "8" })
+  public int qualifierCount;
+
+  /**
+   * The {@link Element#qualified() qualified} object of the last
+   * {@link Element}.
+   */
+  public Class<?> qualified;
+
+  /**
+   * The {@linkplain Element#name() names} of the {@link Element}s.
+   */
+  public String[] names;
+
+  /**
+   * {@link #names} as a {@link List}.
+   */
+  public List<String> nameList;
+
+  /**
+   * The {@link Qualifiers} qualifying the {@link Path} itself.
+   */
+  public Qualifiers<String, Object> pathQualifiers;
+
+  /**
+   * All {@link Element}s but the last.
+   */
+  public List<Element<?>> elements;
+
+  /**
+   * The last {@link Element}.
+   */
+  public Element<?> lastElement;
+
+  /**
+   * The benchmarked {@link Path}.
+   */
+  public Path<?> path;
+
+  /**
+   * A {@link Path} {@linkplain Path#equals(Object) equal to} but not
+   * identical to {@link #path}.
+   */
+  public Path<?> equalPath;
+
+  /**
+   * A {@link Path} differing from {@link #path} only in its last
+   * {@link Element}.
+   */
+  public Path<?> differentPath;
+
+  /**
+   * {@link #path} minus its last {@link Element}, or a root path if
+   * {@link #depth} is {@code 1}.
+   */
+  public Path<?> parent;
+
+  /**
+   * A {@link Path} consisting of the leading half of {@link #path}'s
+   * {@link Element}s.
+   */
+  public Path<?> prefix;
+
+  /**
+   * A {@link Path} consisting of the trailing half of {@link #path}'s
+   * {@link Element}s.
+   */
+  public Path<?> suffix;
+
+  /**
+   * A {@link Path} that does not occur within {@link #path}.
+   */
+  public Path<?> absent;
+
+  /**
+   * A {@link Map} containing {@link #path} as a key.
+   */
+  public Map<Path<?>, Object> map;
+
+  /**
+   * A {@link PathMap} containing {@link #path} as a key.
+   */
+  public PathMap<Object> pathMap;
+
+  /**
+   * A {@link PathSet} containing {@link #path} and its neighbours.
+   */
+  public PathSet pathSet;
+
+  /**
+   * A {@link BiPredicate} that is equivalent to {@link
+   * Element#equals(Object)} but defeats any identity shortcuts.
+   */
+  public BiPredicate<Element<?>, Element<?>> predicate;
+
+  /**
+   * An identity transliteration function.
+   */
+  public BiFunction<String, Element<?>, Element<?>> transliterator;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link PathState}.
+   */
+  public PathState() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Builds the benchmarked {@link Path}s.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.qualified = String.class;
+    this.names = new String[this.depth];
+    for (int i = 0; i < this.depth; i++) {
+      this.names[i] = "element" + i;
+    }
+    this.nameList = List.of(this.names);
+    this.pathQualifiers = qualifiers("env", this.qualifierCount);
+    this.elements = elements(this.names, this.qualifierCount);
+    this.lastElement = Element.of(qualifiers("q", this.qualifierCount), this.qualified, this.names[this.depth - 1]);
+    this.path = Path.of(this.pathQualifiers, this.elements, this.lastElement);
+    this.equalPath = Path.of(qualifiers("env", this.qualifierCount),
+                             elements(this.names, this.qualifierCount),
+                             Element.of(qualifiers("q", this.qualifierCount), this.qualified, this.names[this.depth - 1]));
+    this.differentPath = Path.of(this.pathQualifiers, this.elements, Element.of(qualifiers("q", this.qualifierCount), Integer.class, "different"));
+    this.parent = this.depth == 1 ? Path.root() : Path.of(this.pathQualifiers, this.elements.subList(0, this.depth - 2), this.elements.get(this.depth - 2));
+    final int half = Math.max(1, this.depth / 2);
+    this.prefix = subpath(this.path, 0, half);
+    this.suffix = subpath(this.path, this.depth - half, this.depth);
+    this.absent = Path.of(Element.of("absent"));
+    this.map = new HashMap<>();
+    this.map.put(this.path, Boolean.TRUE);
+    this.pathMap = new PathMap<>();
+    this.pathMap.put(this.path, Boolean.TRUE);
+    this.pathSet = PathSet.of(List.of(this.path, this.differentPath, this.parent, this.prefix, this.suffix, this.absent));
+    this.predicate = Objects::equals;
+    this.transliterator = (packageName, element) -> element;
+  }
+
+
+  /**
+   * Returns a new {@link Path} {@linkplain Path#equals(Object) equal
+   * to} {@link #path} whose {@link Element}s are also new, so that
+   * nothing cached by {@link #path} or its {@link Element}s is
+   * shared.
+   *
+   * <p>Benchmarks of cached operations use this to measure the
+   * uncached, first-use cost; {@link
+   * ConstructionBenchmarks#freshPath(PathState)} measures the cost of
+   * this method alone.</p>
+   *
+   * @return a new {@link Path}; never {@code null}
+   */
+  public Path<?> freshPath() {
+    final List<Element<?>> elements = new ArrayList<>(this.depth - 1);
+    for (final Element<?> e : this.elements) {
+      elements.add(Element.of(e.qualifiers(), e.qualified(), e.name()));
+    }
+    return Path.of(this.pathQualifiers,
+                   elements,
+                   Element.of(this.lastElement.qualifiers(), this.lastElement.qualified(), this.lastElement.name()));
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  private static final Path<?> subpath(final Path<?> path, final int fromIndex, final int toIndex) {
+    final List<Element<?>> elements = new ArrayList<>(toIndex - fromIndex - 1);
+    for (int i = fromIndex; i < toIndex - 1; i++) {
+      elements.add(path.get(i));
+    }
+    return Path.of(Qualifiers.of(), elements, path.get(toIndex - 1));
+  }
+
+  private static final List<Element<?>> elements(final String[] names, final int qualifierCount) {
+    final List<Element<?>> elements = new ArrayList<>(names.length - 1);
+    for (int i = 0; i < names.length - 1; i++) {
+      elements.add(Element.of(qualifiers("q", qualifierCount), null, names[i]));
+    }
+    return elements;
+  }
+
+  private static final Qualifiers<String, Object> qualifiers(final String prefix, final int count) {
+    if (count == 0) {
+      return Qualifiers.of();
+    }
+    final Set<Qualifier<String, Object>> qualifiers = new TreeSet<>();
+    for (int i = 0; i < count; i++) {
+      qualifiers.add(Qualifier.<String, Object>of(prefix + i, "value" + i));
+    }
+    return Qualifiers.of(qualifiers);
+  }
+
+}
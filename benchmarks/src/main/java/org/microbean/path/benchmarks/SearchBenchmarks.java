@@ -0,0 +1,179 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.microbean.path.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link Path#indexOf(Path)}, {@link
+ * Path#lastIndexOf(Path)}, {@link Path#startsWith(Path)}, {@link
+ * Path#endsWith(Path)} and their {@link java.util.function.BiPredicate
+ * BiPredicate}-accepting counterparts.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+public class SearchBenchmarks {
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link SearchBenchmarks}.
+   */
+  public SearchBenchmarks() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Benchmarks {@link Path#indexOf(Path)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the index
+   */
+  @Benchmark
+  public int indexOf(final PathState s) {
+    return s.path.indexOf(s.suffix);
+  }
+
+  /**
+   * Benchmarks {@link Path#indexOf(Path)} with a {@link Path} that
+   * does not occur.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the index
+   */
+  @Benchmark
+  public int indexOfAbsent(final PathState s) {
+    return s.path.indexOf(s.absent);
+  }
+
+  /**
+   * Benchmarks {@link Path#indexOf(Path,
+   * java.util.function.BiPredicate)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the index
+   */
+  @Benchmark
+  public int indexOfPredicate(final PathState s) {
+    return s.path.indexOf(s.suffix, s.predicate);
+  }
+
+  /**
+   * Benchmarks {@link Path#lastIndexOf(Path)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the index
+   */
+  @Benchmark
+  public int lastIndexOf(final PathState s) {
+    return s.path.lastIndexOf(s.prefix);
+  }
+
+  /**
+   * Benchmarks {@link Path#lastIndexOf(Path,
+   * java.util.function.BiPredicate)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the index
+   */
+  @Benchmark
+  public int lastIndexOfPredicate(final PathState s) {
+    return s.path.lastIndexOf(s.prefix, s.predicate);
+  }
+
+  /**
+   * Benchmarks {@link Path#startsWith(Path)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the result
+   */
+  @Benchmark
+  public boolean startsWith(final PathState s) {
+    return s.path.startsWith(s.prefix);
+  }
+
+  /**
+   * Benchmarks {@link Path#startsWith(Path,
+   * java.util.function.BiPredicate)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the result
+   */
+  @Benchmark
+  public boolean startsWithPredicate(final PathState s) {
+    return s.path.startsWith(s.prefix, s.predicate);
+  }
+
+  /**
+   * Benchmarks {@link Path#endsWith(Path)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the result
+   */
+  @Benchmark
+  public boolean endsWith(final PathState s) {
+    return s.path.endsWith(s.suffix);
+  }
+
+  /**
+   * Benchmarks {@link Path#endsWith(Path,
+   * java.util.function.BiPredicate)}.
+   *
+   * @param s the {@link PathState}; must not be {@code null}
+   *
+   * @return the result
+   */
+  @Benchmark
+  public boolean endsWithPredicate(final PathState s) {
+    return s.path.endsWith(s.suffix, s.predicate);
+  }
+
+}
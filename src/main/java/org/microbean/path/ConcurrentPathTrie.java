@@ -0,0 +1,1175 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import java.util.function.BiConsumer;
+
+import org.microbean.path.Path.Element;
+
+/**
+ * A concurrent, lock-free map of {@link Path}s to values, organized
+ * as a trie keyed {@linkplain Path.Element element} by element, that
+ * supports constant-time, consistent {@linkplain #snapshot()
+ * snapshots}.
+ *
+ * <p>This class is an adaptation of the <em>Ctrie</em> of Prokopec,
+ * Bronson, Bagwell and Odersky ("Concurrent Tries with Efficient
+ * Non-Blocking Snapshots", PPoPP 2012) to tries whose edges are
+ * {@link Element}s rather than hash fragments:</p>
+ *
+ * <ul>
+ *
+ * <li>Each trie node is an <em>indirection node</em> whose immutable
+ * content is replaced by compare-and-set.  Insertions and removals
+ * therefore contend only on the node they change, and lookups never
+ * block or write.</li>
+ *
+ * <li>Each indirection node belongs to a <em>generation</em>.  Taking
+ * a snapshot replaces the root with a copy in a new generation;
+ * writers lazily copy older-generation nodes along the paths they
+ * modify, so a snapshot costs constant time and the original and the
+ * snapshot never observe one another's subsequent changes.  Updates
+ * use the Ctrie's generation-checking compare-and-set (GCAS), so that
+ * no update can slip into a node after a snapshot has frozen it.</li>
+ *
+ * <li>The children of each node are held, as in the Ctrie, in a hash
+ * array mapped trie whose levels are themselves indirection nodes,
+ * each with at most 32 entries.  Adding or removing a child therefore
+ * copies at most 32 entries, however many siblings it has, and
+ * contends only with updates to the same level.</li>
+ *
+ * <li>Nodes and levels left empty by a {@linkplain #remove(Path)
+ * removal} are <em>entombed</em> and then unlinked from their
+ * parents, so removals do not leak nodes.</li>
+ *
+ * </ul>
+ *
+ * <p>Keys are compared element by element, exactly as in a {@link
+ * PathTrie}: a {@link Path}'s own {@linkplain Path#qualifiers()
+ * qualifiers} and {@linkplain Path#transliterated() transliteration
+ * status} do not participate.  Values must not be {@code null}.</p>
+ *
+ * <p>Single-key operations ({@link #get(Path)}, {@link #put(Path,
+ * Object)}, {@link #putIfAbsent(Path, Object)} and {@link
+ * #remove(Path)}) are linearizable.  Whole-trie operations ({@link
+ * #size()}, {@link #forEach(BiConsumer)} and {@link
+ * #descendants(Path)}) operate on a {@linkplain #readOnlySnapshot()
+ * read-only snapshot} and are therefore consistent.  {@link
+ * #longestPrefix(Path)} reads each node along its way atomically but
+ * may observe concurrent updates to different nodes; invoke it on a
+ * read-only snapshot if that matters.</p>
+ *
+ * @param <V> the type of value
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are safe for concurrent use
+ * by multiple threads.
+ *
+ * @see PathTrie
+ */
+public final class ConcurrentPathTrie<V> {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  private static final Object RESTART = new Object();
+
+  // The number of hash bits consumed by each level of a node's
+  // children.
+  private static final int W = 5;
+
+  // The maximum number of levels of a node's children: enough to
+  // consume all 32 hash bits, plus one for full collisions.
+  private static final int MAX_LEVELS = (Integer.SIZE + W - 1) / W + 1;
+
+  private static final VarHandle ROOT;
+
+  static {
+    try {
+      ROOT = MethodHandles.lookup().findVarHandle(ConcurrentPathTrie.class, "root", Object.class);
+    } catch (final ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  // Either an INode or, transiently, a Descriptor.
+  private volatile Object root;
+
+  private final boolean readOnly;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link ConcurrentPathTrie}.
+   */
+  public ConcurrentPathTrie() {
+    this(new INode<>(new Gen(), new CNode<>(null, null, null)), false);
+  }
+
+  private ConcurrentPathTrie(final INode<V> root, final boolean readOnly) {
+    super();
+    this.root = root;
+    this.readOnly = readOnly;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns {@code true} if this {@link ConcurrentPathTrie} is a
+   * {@linkplain #readOnlySnapshot() read-only snapshot}.
+   *
+   * @return {@code true} if this {@link ConcurrentPathTrie} is a
+   * {@linkplain #readOnlySnapshot() read-only snapshot}
+   */
+  public final boolean isReadOnly() {
+    return this.readOnly;
+  }
+
+  /**
+   * Returns the value associated with the supplied {@link Path}, or
+   * {@code null} if there is no such value.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the value associated with the supplied {@link Path}, or
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V get(final Path<?> path) {
+    final CNode<V> cn = this.find(path.flat());
+    return cn == null ? null : cn.value;
+  }
+
+  /**
+   * Returns {@code true} if this {@link ConcurrentPathTrie} contains
+   * an entry for the supplied {@link Path}.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return {@code true} if this {@link ConcurrentPathTrie} contains
+   * an entry for the supplied {@link Path}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   */
+  public final boolean containsKey(final Path<?> path) {
+    return this.get(path) != null;
+  }
+
+  /**
+   * Returns the entry whose {@link Path} is the longest {@link Path}
+   * in this {@link ConcurrentPathTrie} that the supplied {@link Path}
+   * {@linkplain Path#startsWith(Path) starts with}, or {@code null}
+   * if there is no such entry.
+   *
+   * @param path the {@link Path} to probe; must not be {@code null}
+   *
+   * @return the matching entry, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final Entry<Path<?>, V> longestPrefix(final Path<?> path) {
+    final Path<?> keys = path.flat();
+    INode<V> in = this.readRoot(false);
+    CNode<V> match = null;
+    for (int depth = 0; ; depth++) {
+      if (!(this.gcasRead(in) instanceof CNode<V> cn)) {
+        break;
+      }
+      if (depth > 0 && cn.value != null) {
+        match = cn;
+      }
+      if (depth == keys.size()) {
+        break;
+      }
+      in = this.child(cn, keys.elementAt(depth));
+      if (in == null) {
+        break;
+      }
+    }
+    return match == null ? null : Map.entry(match.key, match.value);
+  }
+
+  /**
+   * Returns a {@link List} of the entries whose {@link Path}s
+   * {@linkplain Path#startsWith(Path) start with} the supplied {@link
+   * Path}, including any entry for the supplied {@link Path} itself,
+   * as of a single point in time.
+   *
+   * <p>The order of the returned entries is unspecified.</p>
+   *
+   * @param prefix the prefix; must not be {@code null}
+   *
+   * @return a new, mutable {@link List} of matching entries; never
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code prefix} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final List<Entry<Path<?>, V>> descendants(final Path<?> prefix) {
+    final List<Entry<Path<?>, V>> entries = new ArrayList<>();
+    final ConcurrentPathTrie<V> snapshot = this.readOnlySnapshot();
+    final Path<?> keys = prefix.flat();
+    INode<V> in = snapshot.readRoot(false);
+    for (int i = 0; i < keys.size(); i++) {
+      if (!(snapshot.gcasRead(in) instanceof CNode<V> cn) || (in = snapshot.child(cn, keys.elementAt(i))) == null) {
+        return entries;
+      }
+    }
+    snapshot.collect(in, (k, v) -> entries.add(Map.entry(k, v)));
+    return entries;
+  }
+
+  /**
+   * Supplies each entry in this {@link ConcurrentPathTrie}, as of a
+   * single point in time, to the supplied {@link BiConsumer}, in no
+   * particular order.
+   *
+   * @param action the {@link BiConsumer}; must not be {@code null}
+   *
+   * @exception NullPointerException if {@code action} is {@code null}
+   */
+  public final void forEach(final BiConsumer<? super Path<?>, ? super V> action) {
+    Objects.requireNonNull(action, "action");
+    final ConcurrentPathTrie<V> snapshot = this.readOnlySnapshot();
+    snapshot.collect(snapshot.readRoot(false), action);
+  }
+
+  /**
+   * Returns the number of entries in this {@link ConcurrentPathTrie}
+   * as of a single point in time.
+   *
+   * <p>This method takes time proportional to the size of the
+   * trie.</p>
+   *
+   * @return the number of entries
+   */
+  public final int size() {
+    final int[] size = new int[1];
+    this.forEach((k, v) -> ++size[0]);
+    return size[0];
+  }
+
+  /**
+   * Associates the supplied value with the supplied {@link Path} and
+   * returns the value previously associated with an equivalent {@link
+   * Path}, if any.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @return the previous value, or {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @exception UnsupportedOperationException if this {@link
+   * ConcurrentPathTrie} {@linkplain #isReadOnly() is read-only}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V put(final Path<?> path, final V value) {
+    return this.insert(path, Objects.requireNonNull(value, "value"), false);
+  }
+
+  /**
+   * Associates the supplied value with the supplied {@link Path} if
+   * no value is already associated with an equivalent {@link Path},
+   * and returns the existing value, if any.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @return the existing value, or {@code null} if the supplied value
+   * was associated
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @exception UnsupportedOperationException if this {@link
+   * ConcurrentPathTrie} {@linkplain #isReadOnly() is read-only}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V putIfAbsent(final Path<?> path, final V value) {
+    return this.insert(path, Objects.requireNonNull(value, "value"), true);
+  }
+
+  /**
+   * Removes the entry for the supplied {@link Path}, if any, and
+   * returns its value.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the removed value, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @exception UnsupportedOperationException if this {@link
+   * ConcurrentPathTrie} {@linkplain #isReadOnly() is read-only}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  @SuppressWarnings("unchecked")
+  public final V remove(final Path<?> path) {
+    this.checkWritable();
+    final Path<?> keys = path.flat();
+    final INode<V>[] stack = (INode<V>[])new INode<?>[keys.size() + 1];
+    RESTART:
+    while (true) {
+      final INode<V> r = this.readRoot(false);
+      final Gen startGen = r.gen;
+      INode<V> in = r;
+      int depth = 0;
+      stack[0] = r;
+      while (true) {
+        if (!(this.gcasRead(in) instanceof CNode<V> cn)) {
+          // in is entombed; help unlink it and start over.
+          this.clean(stack[depth - 1], keys.elementAt(depth - 1), in);
+          continue RESTART;
+        }
+        if (depth == keys.size()) {
+          if (cn.value == null) {
+            return null;
+          }
+          final boolean entomb = depth > 0 && cn.children == null;
+          if (!this.gcas(in, cn, entomb ? new TNode<>() : cn.withValue(null, null))) {
+            continue RESTART;
+          }
+          if (entomb) {
+            this.contract(stack, keys, depth);
+          }
+          return cn.value;
+        }
+        final Object child = this.child(in, cn, keys.elementAt(depth), null, null, null, 0, startGen);
+        if (child == null) {
+          return null;
+        } else if (child == RESTART) {
+          continue RESTART;
+        } else if (child instanceof INode) {
+          in = (INode<V>)child;
+          stack[++depth] = in;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns a new, writable {@link ConcurrentPathTrie} containing
+   * the entries of this one as of a single point in time, in
+   * constant time.
+   *
+   * <p>Subsequent changes to either trie are not visible in the
+   * other.</p>
+   *
+   * @return a new {@link ConcurrentPathTrie}; never {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final ConcurrentPathTrie<V> snapshot() {
+    while (true) {
+      final INode<V> r = this.readRoot(false);
+      final MainNode<V> expectedMain = this.gcasRead(r);
+      if (this.rdcssRoot(r, expectedMain, r.copyToGen(new Gen(), this))) {
+        return new ConcurrentPathTrie<>(r.copyToGen(new Gen(), this), false);
+      }
+    }
+  }
+
+  /**
+   * Returns a read-only {@link ConcurrentPathTrie} containing the
+   * entries of this one as of a single point in time, in constant
+   * time.
+   *
+   * <p>If this {@link ConcurrentPathTrie} is itself read-only, it is
+   * returned.</p>
+   *
+   * @return a read-only {@link ConcurrentPathTrie}; never {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final ConcurrentPathTrie<V> readOnlySnapshot() {
+    if (this.readOnly) {
+      return this;
+    }
+    while (true) {
+      final INode<V> r = this.readRoot(false);
+      final MainNode<V> expectedMain = this.gcasRead(r);
+      if (this.rdcssRoot(r, expectedMain, r.copyToGen(new Gen(), this))) {
+        return new ConcurrentPathTrie<>(r, true);
+      }
+    }
+  }
+
+  private final CNode<V> find(final Path<?> keys) {
+    INode<V> in = this.readRoot(false);
+    for (int depth = 0; ; depth++) {
+      // Older-generation nodes are frozen, so lookups may read them
+      // without first copying them into the current generation.
+      if (!(this.gcasRead(in) instanceof CNode<V> cn)) {
+        return null;
+      } else if (depth == keys.size()) {
+        return cn;
+      }
+      in = this.child(cn, keys.elementAt(depth));
+      if (in == null) {
+        return null;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private final V insert(final Path<?> path, final V value, final boolean onlyIfAbsent) {
+    this.checkWritable();
+    final Path<?> keys = path.flat();
+    Object result;
+    do {
+      final INode<V> r = this.readRoot(false);
+      result = this.insert(r, keys, path, value, onlyIfAbsent, r.gen);
+    } while (result == RESTART);
+    return (V)result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private final Object insert(INode<V> in,
+                              final Path<?> keys,
+                              final Path<?> path,
+                              final V value,
+                              final boolean onlyIfAbsent,
+                              final Gen startGen) {
+    INode<V> parent = null;
+    for (int depth = 0; ; ) {
+      if (!(this.gcasRead(in) instanceof CNode<V> cn)) {
+        // in is entombed; help unlink it and start over.
+        this.clean(parent, keys.elementAt(depth - 1), in);
+        return RESTART;
+      }
+      if (depth == keys.size()) {
+        if (onlyIfAbsent && cn.value != null) {
+          return cn.value;
+        }
+        return this.gcas(in, cn, cn.withValue(path, value)) ? cn.value : RESTART;
+      }
+      final Object child = this.child(in, cn, keys.elementAt(depth), keys, path, value, depth + 1, startGen);
+      if (child == null || child == RESTART) {
+        return child;
+      } else if (child instanceof INode) {
+        parent = in;
+        in = (INode<V>)child;
+        ++depth;
+      }
+    }
+  }
+
+  // Returns the child of the node in, whose content is cn, under key,
+  // without renewing anything.  Used by lookups, which may read
+  // frozen, older-generation nodes.
+  @SuppressWarnings("unchecked")
+  private final INode<V> child(final CNode<V> cn, final Element<?> key) {
+    final int hash = hash(key);
+    Object slot = cn.children;
+    for (int shift = 0; slot instanceof INode; shift += W) {
+      final MainNode<V> m = this.gcasRead((INode<V>)slot);
+      if (m instanceof HNode<V> hn) {
+        slot = hn.slot(hash, shift);
+      } else if (m instanceof LNode<V> ln) {
+        slot = ln.get(key);
+      } else {
+        // An entombed level is empty.
+        return null;
+      }
+    }
+    return slot instanceof SNode<?> sn && sn.key.equals(key) ? (INode<V>)sn.node : null;
+  }
+
+  // Returns the child of the node in, whose content is cn, under key,
+  // renewing the levels leading to it, and it, into startGen.  If
+  // there is no such child and value is non-null, adds a chain of new
+  // nodes for keys from index from onwards, ending in one holding
+  // value, and returns null.  If there is no such child and value is
+  // null, returns null.  Returns RESTART if the operation must start
+  // over, or any other non-INode to retry at the same depth.
+  @SuppressWarnings("unchecked")
+  private final Object child(final INode<V> in,
+                             final CNode<V> cn,
+                             final Element<?> key,
+                             final Path<?> keys,
+                             final Path<?> path,
+                             final V value,
+                             final int from,
+                             final Gen startGen) {
+    final INode<V> root = cn.children;
+    if (root == null) {
+      if (value == null) {
+        return null;
+      }
+      final SNode<V> sn = new SNode<>(key, tail(keys, from, path, value, startGen));
+      return this.gcas(in, cn, cn.withChildren(new INode<>(startGen, HNode.of(sn, 0)))) ? null : RESTART;
+    } else if (root.gen != startGen) {
+      return this.gcas(in, cn, cn.renewed(startGen, this)) ? cn : RESTART;
+    }
+    final int hash = hash(key);
+    INode<V> level = root;
+    for (int shift = 0; ; ) {
+      if (!(this.gcasRead(level) instanceof Level<V> lv)) {
+        // level is entombed; help unlink it and start over.
+        this.clean(in, key, level);
+        return RESTART;
+      }
+      final Object slot;
+      if (lv instanceof HNode<V> hn) {
+        slot = hn.slot(hash, shift);
+        if (slot == null) {
+          if (value == null) {
+            return null;
+          }
+          final SNode<V> sn = new SNode<>(key, tail(keys, from, path, value, startGen));
+          return this.gcas(level, hn, hn.inserted(sn, shift)) ? null : RESTART;
+        } else if (slot instanceof SNode<?> s && !s.key.equals(key)) {
+          if (value == null) {
+            return null;
+          }
+          // Push both entries down into a new level.
+          final SNode<V> sn = new SNode<>(key, tail(keys, from, path, value, startGen));
+          final INode<V> sub = new INode<>(startGen, split((SNode<V>)s, sn, shift + W, startGen));
+          return this.gcas(level, hn, hn.updated(hash, shift, sub)) ? null : RESTART;
+        }
+      } else {
+        final LNode<V> ln = (LNode<V>)lv;
+        slot = ln.get(key);
+        if (slot == null) {
+          if (value == null) {
+            return null;
+          }
+          final SNode<V> sn = new SNode<>(key, tail(keys, from, path, value, startGen));
+          return this.gcas(level, ln, ln.inserted(sn)) ? null : RESTART;
+        }
+      }
+      final INode<V> next = slot instanceof SNode<?> s ? (INode<V>)s.node : (INode<V>)slot;
+      if (next.gen != startGen) {
+        return this.gcas(level, lv, lv.renewed(startGen, this)) ? cn : RESTART;
+      } else if (slot instanceof SNode) {
+        return next;
+      }
+      level = next;
+      shift += W;
+    }
+  }
+
+  // Unlinks entombed nodes upward from stack[depth], entombing each
+  // ancestor (other than the root) that is left empty in turn.
+  private final void contract(final INode<V>[] stack, final Path<?> keys, final int depth) {
+    for (int d = depth; d > 0; d--) {
+      final INode<V> parent = stack[d - 1];
+      this.clean(parent, keys.elementAt(d - 1), stack[d]);
+      if (d == 1 ||
+          !(this.gcasRead(parent) instanceof CNode<V> pcn) ||
+          pcn.value != null ||
+          pcn.children != null ||
+          !this.gcas(parent, pcn, new TNode<>())) {
+        return;
+      }
+    }
+  }
+
+  // Unlinks target, either parent's entombed child under key or an
+  // entombed level of parent's children on the way to it, from
+  // parent, entombing and unlinking in turn each level thereby left
+  // empty.  Gives up on a failed GCAS, leaving the work to whoever
+  // next encounters an entombed node.
+  @SuppressWarnings("unchecked")
+  private final void clean(final INode<V> parent, final Element<?> key, final INode<V> target) {
+    if (!(this.gcasRead(parent) instanceof CNode<V> pcn)) {
+      return;
+    }
+    final int hash = hash(key);
+    final INode<V>[] levels = (INode<V>[])new INode<?>[MAX_LEVELS];
+    int i = -1;
+    Object slot = pcn.children;
+    while (slot != target && !(slot instanceof SNode<?> sn && sn.node == target)) {
+      if (!(slot instanceof INode)) {
+        return;
+      }
+      levels[++i] = (INode<V>)slot;
+      final MainNode<V> m = this.gcasRead(levels[i]);
+      if (m instanceof HNode<V> hn) {
+        slot = hn.slot(hash, i * W);
+      } else if (m instanceof LNode<V> ln) {
+        slot = ln.get(key);
+      } else {
+        return;
+      }
+    }
+    for (; i >= 0; i--) {
+      final INode<V> level = levels[i];
+      final MainNode<V> m = this.gcasRead(level);
+      final Level<V> n;
+      if (m instanceof HNode<V> hn) {
+        n = hn.removed(slot, hash, i * W);
+      } else if (m instanceof LNode<V> ln) {
+        n = ln.removed(slot);
+      } else {
+        return;
+      }
+      if (n == null) {
+        return;
+      } else if (!n.isEmpty()) {
+        this.gcas(level, m, n);
+        return;
+      } else if (!this.gcas(level, m, new TNode<>())) {
+        return;
+      }
+      slot = level;
+    }
+    if (this.gcasRead(parent) instanceof CNode<V> cn && cn.children == slot) {
+      this.gcas(parent, cn, cn.withChildren(null));
+    }
+  }
+
+  private final void collect(final INode<V> start, final BiConsumer<? super Path<?>, ? super V> action) {
+    final Deque<INode<V>> stack = new ArrayDeque<>();
+    stack.push(start);
+    while (!stack.isEmpty()) {
+      final MainNode<V> m = this.gcasRead(stack.pop());
+      if (m instanceof CNode<V> cn) {
+        if (cn.value != null) {
+          action.accept(cn.key, cn.value);
+        }
+        if (cn.children != null) {
+          stack.push(cn.children);
+        }
+      } else if (m instanceof HNode<V> hn) {
+        push(hn.slots, stack);
+      } else if (m instanceof LNode<V> ln) {
+        push(ln.entries, stack);
+      }
+    }
+  }
+
+  private final void checkWritable() {
+    if (this.readOnly) {
+      throw new UnsupportedOperationException("read-only snapshot");
+    }
+  }
+
+
+  /*
+   * Generation-compare-and-set (GCAS) and root RDCSS, after the
+   * Ctrie paper.
+   */
+
+
+  // Installs n in place of old in, committing only if the trie's root
+  // generation still matches in's generation.
+  private final boolean gcas(final INode<V> in, final MainNode<V> old, final MainNode<V> n) {
+    n.prev = old;
+    if (in.casMain(old, n)) {
+      this.gcasComplete(in, n);
+      return n.prev == null;
+    }
+    return false;
+  }
+
+  private final MainNode<V> gcasRead(final INode<V> in) {
+    final MainNode<V> m = in.main;
+    return m.prev == null ? m : this.gcasComplete(in, m);
+  }
+
+  private final MainNode<V> gcasComplete(final INode<V> in, MainNode<V> m) {
+    while (true) {
+      if (m == null) {
+        return null;
+      }
+      final MainNode<V> prev = m.prev;
+      final INode<V> r = this.readRoot(true);
+      if (prev == null) {
+        return m;
+      } else if (prev instanceof FailedNode<V> failed) {
+        // Roll back a failed update.
+        if (in.casMain(m, failed.prev)) {
+          return failed.prev;
+        }
+        m = in.main;
+      } else if (r.gen == in.gen && !this.readOnly) {
+        // Commit.
+        if (m.casPrev(prev, null)) {
+          return m;
+        }
+      } else {
+        // A snapshot intervened; fail the update.
+        m.casPrev(prev, new FailedNode<>(prev));
+        m = in.main;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private final INode<V> readRoot(final boolean abort) {
+    final Object r = this.root;
+    return r instanceof INode ? (INode<V>)r : this.rdcssComplete(abort);
+  }
+
+  // Replaces the root old with nv only if old's content is still
+  // expectedMain.
+  private final boolean rdcssRoot(final INode<V> old, final MainNode<V> expectedMain, final INode<V> nv) {
+    final Descriptor<V> d = new Descriptor<>(old, expectedMain, nv);
+    if (ROOT.compareAndSet(this, old, d)) {
+      this.rdcssComplete(false);
+      return d.committed;
+    }
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  private final INode<V> rdcssComplete(final boolean abort) {
+    while (true) {
+      final Object v = this.root;
+      if (v instanceof INode) {
+        return (INode<V>)v;
+      }
+      final Descriptor<V> d = (Descriptor<V>)v;
+      if (abort) {
+        if (ROOT.compareAndSet(this, d, d.old)) {
+          return d.old;
+        }
+      } else if (this.gcasRead(d.old) == d.expectedMain) {
+        if (ROOT.compareAndSet(this, d, d.nv)) {
+          d.committed = true;
+          return d.nv;
+        }
+      } else if (ROOT.compareAndSet(this, d, d.old)) {
+        return d.old;
+      }
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  // Returns a chain of new nodes for the elements of keys from index
+  // from onwards, ending in a node holding value.
+  private static final <V> INode<V> tail(final Path<?> keys,
+                                         final int from,
+                                         final Path<?> path,
+                                         final V value,
+                                         final Gen gen) {
+    INode<V> in = new INode<>(gen, new CNode<>(path, value, null));
+    for (int i = keys.size() - 1; i >= from; i--) {
+      in = new INode<>(gen, new CNode<>(null, null, new INode<>(gen, HNode.of(new SNode<>(keys.elementAt(i), in), 0))));
+    }
+    return in;
+  }
+
+  // Returns a level, at the supplied shift, holding a and b, whose
+  // keys' hashes agree below that shift.
+  private static final <V> MainNode<V> split(final SNode<V> a, final SNode<V> b, final int shift, final Gen gen) {
+    if (shift >= Integer.SIZE) {
+      return new LNode<>(new Object[] { a, b });
+    }
+    final int ia = index(a.hash, shift);
+    final int ib = index(b.hash, shift);
+    if (ia == ib) {
+      return new HNode<>(1 << ia, new Object[] { new INode<>(gen, split(a, b, shift + W, gen)) });
+    }
+    return new HNode<>((1 << ia) | (1 << ib), ia < ib ? new Object[] { a, b } : new Object[] { b, a });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static final <V> void push(final Object[] slots, final Deque<INode<V>> stack) {
+    for (final Object slot : slots) {
+      stack.push(slot instanceof SNode<?> sn ? (INode<V>)sn.node : (INode<V>)slot);
+    }
+  }
+
+  private static final int hash(final Element<?> key) {
+    final int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static final int index(final int hash, final int shift) {
+    return (hash >>> shift) & ((1 << W) - 1);
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  private static final class Gen {
+
+    private Gen() {
+      super();
+    }
+
+  }
+
+  private static final class INode<V> {
+
+    private static final VarHandle MAIN;
+
+    static {
+      try {
+        MAIN = MethodHandles.lookup().findVarHandle(INode.class, "main", MainNode.class);
+      } catch (final ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
+    private final Gen gen;
+
+    private volatile MainNode<V> main;
+
+    private INode(final Gen gen, final MainNode<V> main) {
+      super();
+      this.gen = gen;
+      this.main = main;
+    }
+
+    private final boolean casMain(final MainNode<V> expected, final MainNode<V> main) {
+      return MAIN.compareAndSet(this, expected, main);
+    }
+
+    private final INode<V> copyToGen(final Gen gen, final ConcurrentPathTrie<V> trie) {
+      return new INode<>(gen, trie.gcasRead(this));
+    }
+
+  }
+
+  private abstract static class MainNode<V> {
+
+    private static final VarHandle PREV;
+
+    static {
+      try {
+        PREV = MethodHandles.lookup().findVarHandle(MainNode.class, "prev", MainNode.class);
+      } catch (final ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
+    // Non-null while a GCAS installing this node is pending.
+    volatile MainNode<V> prev;
+
+    private MainNode() {
+      super();
+    }
+
+    final boolean casPrev(final MainNode<V> expected, final MainNode<V> prev) {
+      return PREV.compareAndSet(this, expected, prev);
+    }
+
+  }
+
+  // An immutable trie node: an optional entry and the first level of
+  // the children, if there are any.
+  private static final class CNode<V> extends MainNode<V> {
+
+    private final Path<?> key;
+
+    private final V value;
+
+    private final INode<V> children;
+
+    private CNode(final Path<?> key, final V value, final INode<V> children) {
+      super();
+      this.key = key;
+      this.value = value;
+      this.children = children;
+    }
+
+    private final CNode<V> withValue(final Path<?> key, final V value) {
+      return new CNode<>(key, value, this.children);
+    }
+
+    private final CNode<V> withChildren(final INode<V> children) {
+      return new CNode<>(this.key, this.value, children);
+    }
+
+    // Returns a copy whose children are copied into the supplied
+    // generation.
+    private final CNode<V> renewed(final Gen gen, final ConcurrentPathTrie<V> trie) {
+      return this.children == null ? this : this.withChildren(this.children.copyToGen(gen, trie));
+    }
+
+  }
+
+  // An immutable level of a node's children.
+  private abstract static class Level<V> extends MainNode<V> {
+
+    private Level() {
+      super();
+    }
+
+    // Returns true if this level has no entries.
+    abstract boolean isEmpty();
+
+    // Returns a copy whose indirection nodes are copied into the
+    // supplied generation.
+    abstract Level<V> renewed(final Gen gen, final ConcurrentPathTrie<V> trie);
+
+  }
+
+  // A level of a node's children: a bitmap of occupied positions and,
+  // in position order, for each, either an SNode or an INode holding
+  // the next level.
+  private static final class HNode<V> extends Level<V> {
+
+    private final int bitmap;
+
+    private final Object[] slots;
+
+    private HNode(final int bitmap, final Object[] slots) {
+      super();
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    // Returns the slot that hash selects at the supplied shift, or
+    // null.
+    private final Object slot(final int hash, final int shift) {
+      final int bit = 1 << index(hash, shift);
+      return (this.bitmap & bit) == 0 ? null : this.slots[Integer.bitCount(this.bitmap & (bit - 1))];
+    }
+
+    // Returns a copy with sn added in the empty position its hash
+    // selects at the supplied shift.
+    private final HNode<V> inserted(final SNode<V> sn, final int shift) {
+      final int bit = 1 << index(sn.hash, shift);
+      final int position = Integer.bitCount(this.bitmap & (bit - 1));
+      final Object[] slots = new Object[this.slots.length + 1];
+      System.arraycopy(this.slots, 0, slots, 0, position);
+      slots[position] = sn;
+      System.arraycopy(this.slots, position, slots, position + 1, this.slots.length - position);
+      return new HNode<>(this.bitmap | bit, slots);
+    }
+
+    // Returns a copy with slot in the occupied position hash selects
+    // at the supplied shift.
+    private final HNode<V> updated(final int hash, final int shift, final Object slot) {
+      final int bit = 1 << index(hash, shift);
+      final Object[] slots = this.slots.clone();
+      slots[Integer.bitCount(this.bitmap & (bit - 1))] = slot;
+      return new HNode<>(this.bitmap, slots);
+    }
+
+    // Returns a copy without slot, which hash selects at the supplied
+    // shift, or null if slot is no longer there.
+    private final HNode<V> removed(final Object slot, final int hash, final int shift) {
+      final int bit = 1 << index(hash, shift);
+      if ((this.bitmap & bit) == 0) {
+        return null;
+      }
+      final int position = Integer.bitCount(this.bitmap & (bit - 1));
+      if (this.slots[position] != slot) {
+        return null;
+      }
+      final Object[] slots = new Object[this.slots.length - 1];
+      System.arraycopy(this.slots, 0, slots, 0, position);
+      System.arraycopy(this.slots, position + 1, slots, position, slots.length - position);
+      return new HNode<>(this.bitmap & ~bit, slots);
+    }
+
+    @Override // Level<V>
+    final boolean isEmpty() {
+      return this.bitmap == 0;
+    }
+
+    @Override // Level<V>
+    final HNode<V> renewed(final Gen gen, final ConcurrentPathTrie<V> trie) {
+      return new HNode<>(this.bitmap, renewed(this.slots, gen, trie));
+    }
+
+    private static final <V> HNode<V> of(final SNode<V> sn, final int shift) {
+      return new HNode<>(1 << index(sn.hash, shift), new Object[] { sn });
+    }
+
+    // Returns a copy of slots, each of which is an SNode or an INode,
+    // with every INode copied into the supplied generation.
+    @SuppressWarnings("unchecked")
+    static final <V> Object[] renewed(final Object[] slots, final Gen gen, final ConcurrentPathTrie<V> trie) {
+      final Object[] renewed = new Object[slots.length];
+      for (int i = 0; i < slots.length; i++) {
+        if (slots[i] instanceof SNode<?> sn) {
+          renewed[i] = new SNode<>(sn.key, sn.hash, ((INode<V>)sn.node).copyToGen(gen, trie));
+        } else {
+          renewed[i] = ((INode<V>)slots[i]).copyToGen(gen, trie);
+        }
+      }
+      return renewed;
+    }
+
+  }
+
+  // An immutable last level of a node's children, holding SNodes whose
+  // keys' hashes are all equal.
+  private static final class LNode<V> extends Level<V> {
+
+    private final Object[] entries;
+
+    private LNode(final Object[] entries) {
+      super();
+      this.entries = entries;
+    }
+
+    private final SNode<?> get(final Element<?> key) {
+      for (final Object entry : this.entries) {
+        final SNode<?> sn = (SNode<?>)entry;
+        if (sn.key.equals(key)) {
+          return sn;
+        }
+      }
+      return null;
+    }
+
+    private final LNode<V> inserted(final SNode<V> sn) {
+      final Object[] entries = Arrays.copyOf(this.entries, this.entries.length + 1);
+      entries[this.entries.length] = sn;
+      return new LNode<>(entries);
+    }
+
+    // Returns a copy without entry, or null if entry is no longer
+    // here.
+    private final LNode<V> removed(final Object entry) {
+      for (int i = 0; i < this.entries.length; i++) {
+        if (this.entries[i] == entry) {
+          final Object[] entries = new Object[this.entries.length - 1];
+          System.arraycopy(this.entries, 0, entries, 0, i);
+          System.arraycopy(this.entries, i + 1, entries, i, entries.length - i);
+          return new LNode<>(entries);
+        }
+      }
+      return null;
+    }
+
+    @Override // Level<V>
+    final boolean isEmpty() {
+      return this.entries.length == 0;
+    }
+
+    @Override // Level<V>
+    final LNode<V> renewed(final Gen gen, final ConcurrentPathTrie<V> trie) {
+      return new LNode<>(HNode.renewed(this.entries, gen, trie));
+    }
+
+  }
+
+  // An immutable entry in a level of a node's children: a child node
+  // and the key under which it is stored.
+  private static final class SNode<V> {
+
+    private final Element<?> key;
+
+    private final int hash;
+
+    private final INode<V> node;
+
+    private SNode(final Element<?> key, final INode<V> node) {
+      this(key, hash(key), node);
+    }
+
+    private SNode(final Element<?> key, final int hash, final INode<V> node) {
+      super();
+      this.key = key;
+      this.hash = hash;
+      this.node = node;
+    }
+
+  }
+
+  // Marks a node that has been removed and awaits unlinking from its
+  // parent.
+  private static final class TNode<V> extends MainNode<V> {
+
+    private TNode() {
+      super();
+    }
+
+  }
+
+  // Marks a GCAS that must be rolled back.
+  private static final class FailedNode<V> extends MainNode<V> {
+
+    private FailedNode(final MainNode<V> prev) {
+      super();
+      this.prev = prev;
+    }
+
+  }
+
+  private static final class Descriptor<V> {
+
+    private final INode<V> old;
+
+    private final MainNode<V> expectedMain;
+
+    private final INode<V> nv;
+
+    private volatile boolean committed;
+
+    private Descriptor(final INode<V> old, final MainNode<V> expectedMain, final INode<V> nv) {
+      super();
+      this.old = old;
+      this.expectedMain = expectedMain;
+      this.nv = nv;
+    }
+
+  }
+
+}
@@ -16,6 +16,8 @@
  */
 package org.microbean.path;
 
+import java.io.IOException;
+
 import java.lang.StackWalker.StackFrame;
 
 import java.lang.constant.ClassDesc;
@@ -33,20 +35,25 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.microbean.constant.Constables;
 
@@ -101,7 +108,18 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
 
 
-  private static final StackWalker stackWalker = StackWalker.getInstance();
+  private static final StackWalker stackWalker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+  private static final ClassValue<CallerClass> callerClasses = new ClassValue<>() {
+      @Override
+      protected final CallerClass computeValue(final Class<?> c) {
+        return new CallerClass(c);
+      }
+    };
+
+  // The largest size of a flat Path whose elements are held in
+  // fields rather than in an array.
+  private static final int INLINE_MAX = 3;
 
   private static final Path<?> ROOT = new Path<>();
 
@@ -109,18 +127,60 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
 
   private static final String PREFIX_SEPARATOR = "" + PREFIX_SEPARATOR_CHAR;
 
+  // Reported, in addition to SIZED and SUBSIZED, by #spliterator().
+  private static final int ELEMENT_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
 
   /*
    * Instance fields.
    */
 
 
+  // The qualifiers supplied at construction time, not including the
+  // prefixed qualifiers of this Path's elements.
   private final Qualifiers<String, Object> qualifiers;
 
-  private final List<Element<?>> elements;
+  // The qualifiers returned by #qualifiers(): this.qualifiers plus
+  // the prefixed qualifiers of this Path's elements.  Computed on
+  // first use; see #aggregateQualifiers().
+  private volatile Qualifiers<String, Object> aggregatedQualifiers;
+
+  // If non-null, this Path was formed by appending lastElement to
+  // parent, and shares parent's storage; elements, first and second
+  // will be null.  Otherwise this Path is "flat": it holds its
+  // elements itself, inline if there are at most INLINE_MAX of them
+  // and in elements if there are more.
+  private final Path<?> parent;
+
+  // If non-null, all the elements of this flat Path, including
+  // lastElement.  Never modified and never exposed.
+  private final Element<?>[] elements;
+
+  // The first and second elements of a flat Path of size 2 or 3
+  // whose elements are held inline; otherwise null.
+  private final Element<?> first;
+
+  private final Element<?> second;
+
+  private final Element<?> lastElement;
+
+  private final int size;
 
   private final boolean transliterated;
 
+  // The List#hashCode()-compatible hash of this Path's elements.
+  // Lazily computed; 0 means not yet computed.  Benign race: every
+  // thread computes the same value, and int writes are atomic.
+  private int elementsHashCode;
+
+  // The canonical rendering returned by #toString().  Lazily
+  // computed; benign race as above, since String is immutable.
+  private String string;
+
+  // An index of #qualifiers() by name.  Lazily computed; benign race
+  // as above, since the map is immutable.
+  private Map<String, Object> qualifierIndex;
+
 
   /*
    * Constructors.
@@ -187,82 +247,97 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
   }
 
   @SuppressWarnings("unchecked")
-  // Also used by #describeConstable()
+  // Also used by #describeConstable() and PathCodec
+  Path(final Qualifiers<? extends String, ?> qualifiers,
+       final List<? extends Element<?>> elements,
+       final Element<? extends T> lastElement,
+       final boolean transliterated) {
+    super();
+    final int size = elements.size() + 1;
+    this.qualifiers = (Qualifiers<String, Object>)Objects.requireNonNull(qualifiers, "qualifiers");
+    this.parent = null;
+    if (size <= INLINE_MAX) {
+      this.elements = null;
+      this.first = size > 1 ? Objects.requireNonNull(elements.get(0), "elements") : null;
+      this.second = size > 2 ? Objects.requireNonNull(elements.get(1), "elements") : null;
+    } else {
+      final Element<?>[] newElements = new Element<?>[size];
+      for (int i = 0; i < size - 1; i++) {
+        newElements[i] = Objects.requireNonNull(elements.get(i), "elements");
+      }
+      newElements[size - 1] = lastElement;
+      this.elements = newElements;
+      this.first = null;
+      this.second = null;
+    }
+    this.lastElement = Objects.requireNonNull(lastElement, "lastElement");
+    this.size = size;
+    this.transliterated = transliterated;
+  }
+
+  // Adopts elements, which must be non-empty, free of nulls and never
+  // modified or exposed afterwards, as this Path's storage without
+  // copying it (or, if it is short enough, holds its contents
+  // inline).  Used by Builder and by methods that have already
+  // assembled a fresh array.
+  @SuppressWarnings("unchecked")
   private Path(final Qualifiers<? extends String, ?> qualifiers,
-               final List<? extends Element<?>> elements,
-               final Element<? extends T> lastElement,
+               final Element<?>[] elements,
                final boolean transliterated) {
     super();
-    final int size = elements.size();
-    if (size > 0) {
-      Set<Qualifier<String, Object>> pathQualifiers = null;
-      final List<Element<?>> newList = new ArrayList<>(size + 1);
-      StringBuilder prefix = null;
-      for (int i = 0; i < size; i++) {
-        final Element<?> e = elements.get(i);
-        newList.add(e);
-        final Qualifiers<String, Object> eQualifiers = e.qualifiers();
-        if (!eQualifiers.isEmpty()) {
-          if (prefix == null) {
-            prefix = new StringBuilder();
-          }
-          if (pathQualifiers == null) {
-            pathQualifiers = new TreeSet<>();
-            for (final Qualifier<? extends String, ?> q : qualifiers) {
-              pathQualifiers.add((Qualifier<String, Object>)q);
-            }
-          }
-          prefix.append(e.name()).append(PREFIX_SEPARATOR_CHAR);
-          final String finalPrefix = prefix.toString();
-          for (final Qualifier<String, Object> q : eQualifiers.withPrefix(q -> finalPrefix + PREFIX_SEPARATOR + q.name())) {
-            pathQualifiers.add(q);
-          }
-        }
-      }
-      newList.add(lastElement);
-      this.elements = Collections.unmodifiableList(newList);
-      final Qualifiers<? extends String, ?> lastElementQualifiers = lastElement.qualifiers();
-      if (lastElementQualifiers.isEmpty()) {
-        if (pathQualifiers == null) {
-          this.qualifiers = (Qualifiers<String, Object>)qualifiers;
-        } else {
-          this.qualifiers = Qualifiers.of(pathQualifiers);
-        }
-      } else {
-        if (prefix == null) {
-          prefix = new StringBuilder();
-        }
-        if (pathQualifiers == null) {
-          pathQualifiers = new TreeSet<>();
-          for (final Qualifier<? extends String, ?> q : qualifiers) {
-            pathQualifiers.add((Qualifier<String, Object>)q);
-          }
-        }
-        final String finalPrefix = prefix.append(lastElement.name()).toString();
-        for (final Qualifier<String, Object> q : lastElement.qualifiers().withPrefix(q -> finalPrefix + PREFIX_SEPARATOR + q.name())) {
-          pathQualifiers.add(q);
-        }
-        this.qualifiers = Qualifiers.of(pathQualifiers);
-      }
+    this.qualifiers = (Qualifiers<String, Object>)Objects.requireNonNull(qualifiers, "qualifiers");
+    final int size = elements.length;
+    this.parent = null;
+    if (size <= INLINE_MAX) {
+      this.elements = null;
+      this.first = size > 1 ? elements[0] : null;
+      this.second = size > 2 ? elements[1] : null;
     } else {
-      this.elements = List.of(lastElement);
-      final Qualifiers<? extends String, ?> lastElementQualifiers = lastElement.qualifiers();
-      if (lastElementQualifiers.isEmpty()) {
-        this.qualifiers = (Qualifiers<String, Object>)qualifiers;
-      } else {
-        Set<Qualifier<String, Object>> pathQualifiers = new TreeSet<>();
-        for (final Qualifier<? extends String, ?> q : qualifiers) {
-          pathQualifiers.add((Qualifier<String, Object>)q);
-        }
-        for (final Qualifier<String, Object> q : lastElement.qualifiers().withPrefix(q -> lastElement.name() + PREFIX_SEPARATOR + q.name())) {
-          pathQualifiers.add(q);
-        }
-        this.qualifiers = Qualifiers.of(pathQualifiers);
-      }
+      this.elements = elements;
+      this.first = null;
+      this.second = null;
     }
+    this.lastElement = (Element<? extends T>)elements[size - 1];
+    this.size = size;
     this.transliterated = transliterated;
   }
 
+  // Holds size elements, which must be non-null and no more than
+  // INLINE_MAX in number, inline; first and second are null when
+  // size is too small to need them.  Used by Builder, which can then
+  // build short paths without copying its storage.
+  @SuppressWarnings("unchecked")
+  private Path(final Qualifiers<? extends String, ?> qualifiers,
+               final Element<?> first,
+               final Element<?> second,
+               final Element<? extends T> lastElement,
+               final int size) {
+    super();
+    assert size > 0 && size <= INLINE_MAX;
+    this.qualifiers = (Qualifiers<String, Object>)Objects.requireNonNull(qualifiers, "qualifiers");
+    this.parent = null;
+    this.elements = null;
+    this.first = first;
+    this.second = second;
+    this.lastElement = lastElement;
+    this.size = size;
+    this.transliterated = false;
+  }
+
+  // Used by #plus(Element).  Shares the parent's storage, so
+  // construction takes constant time and space.
+  private Path(final Path<?> parent, final Element<? extends T> lastElement) {
+    super();
+    this.qualifiers = parent.qualifiers;
+    this.parent = parent;
+    this.elements = null;
+    this.first = null;
+    this.second = null;
+    this.lastElement = Objects.requireNonNull(lastElement, "lastElement");
+    this.size = parent.size + 1;
+    this.transliterated = false;
+  }
+
 
   /*
    * Instance methods.
@@ -356,29 +431,112 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * @see #transliterated()
    */
   @Experimental
-  @SuppressWarnings("unchecked")
   public final Path<T> transliterate(final BiFunction<? super String, ? super Element<?>, ? extends Element<?>> f) {
+    if (this.transliterated() || f == null) {
+      // No package name is needed, so don't walk the stack.
+      return this.transliterate("", f);
+    }
+    final String userPackageName = stackWalker.walk(Path::findUserPackageName);
+    return this.transliterate(userPackageName, f);
+  }
+
+  /**
+   * <em>Transliterates</em> this {@link Path} into another,
+   * semantically equivalent {@link Path} by applying the supplied
+   * {@link BiFunction}, and returns the transliterated {@link Path}.
+   *
+   * <p>This method behaves exactly like {@link
+   * #transliterate(BiFunction)}, except that the {@link BiFunction}
+   * receives the {@linkplain Class#getPackageName() package name} of
+   * the supplied {@link Class} instead of a package name discovered
+   * by walking the current thread's stack.  Callers on performance
+   * sensitive paths should prefer this method, typically passing
+   * their own class.</p>
+   *
+   * @param caller the {@link Class} whose package name will be
+   * supplied to the {@link BiFunction}; must not be {@code null}
+   *
+   * @param f a {@link BiFunction} responsible for the
+   * transliteration, element by element; may be {@code null}
+   *
+   * @return the transliterated {@link Path}, which may be this {@link
+   * Path}; never {@code null}
+   *
+   * @exception NullPointerException if {@code caller} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic, but the
+   * supplied {@link BiFunction} may not be.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads, but the supplied {@link BiFunction} may not be.
+   *
+   * @see #transliterate(String, BiFunction)
+   */
+  @Experimental
+  public final Path<T> transliterate(final Class<?> caller,
+                                     final BiFunction<? super String, ? super Element<?>, ? extends Element<?>> f) {
+    return this.transliterate(callerClasses.get(caller).packageName, f);
+  }
+
+  /**
+   * <em>Transliterates</em> this {@link Path} into another,
+   * semantically equivalent {@link Path} by applying the supplied
+   * {@link BiFunction}, and returns the transliterated {@link Path}.
+   *
+   * <p>This method behaves exactly like {@link
+   * #transliterate(BiFunction)}, except that the {@link BiFunction}
+   * receives the supplied package name instead of a package name
+   * discovered by walking the current thread's stack.</p>
+   *
+   * @param packageName the package name to supply to the {@link
+   * BiFunction}; must not be {@code null}
+   *
+   * @param f a {@link BiFunction} responsible for the
+   * transliteration, element by element; may be {@code null}
+   *
+   * @return the transliterated {@link Path}, which may be this {@link
+   * Path}; never {@code null}
+   *
+   * @exception NullPointerException if {@code packageName} is {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic, but the
+   * supplied {@link BiFunction} may not be.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads, but the supplied {@link BiFunction} may not be.
+   *
+   * @see #transliterate(BiFunction)
+   */
+  @Experimental
+  @SuppressWarnings("unchecked")
+  public final Path<T> transliterate(final String packageName,
+                                     final BiFunction<? super String, ? super Element<?>, ? extends Element<?>> f) {
+    Objects.requireNonNull(packageName, "packageName");
     if (this.transliterated()) {
       return this;
     } else {
-      final int size = this.size();
-      final int lastIndex = size - 1;
+      final Element<?>[] elements = this.elementArray();
+      final int lastIndex = elements.length - 1;
       if (f == null) {
         return
-          new Path<T>(this.qualifiers(),
-                      this.elements.subList(0, lastIndex),
-                      (Element<? extends T>)this.elements.get(lastIndex),
+          new Path<T>(this.qualifiers,
+                      Arrays.asList(elements).subList(0, lastIndex),
+                      (Element<? extends T>)elements[lastIndex],
                       true);
       } else {
-        final String userPackageName = stackWalker.walk(Path::findUserPackageName);
         final List<Element<?>> newElements = new ArrayList<>(lastIndex);
         for (int i = 0; i < lastIndex; i++) {
-          newElements.add(f.apply(userPackageName, this.elements.get(i)));
+          newElements.add(f.apply(packageName, elements[i]));
         }
         return
-          new Path<T>(this.qualifiers(),
+          new Path<T>(this.qualifiers,
                       newElements,
-                      (Element<? extends T>)f.apply(userPackageName, this.elements.get(lastIndex)),
+                      (Element<? extends T>)f.apply(packageName, elements[lastIndex]),
                       true);
       }
     }
@@ -421,11 +579,13 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
                                                                           "root",
                                                                           MethodTypeDesc.of(CD_Path))));
     } else {
-      final ConstantDesc qualifiers = this.qualifiers().describeConstable().orElse(null);
+      // The supplied qualifiers suffice; the new Path will aggregate
+      // them with its elements' qualifiers on demand.
+      final ConstantDesc qualifiers = this.qualifiers.describeConstable().orElse(null);
       if (qualifiers != null) {
-        final ConstantDesc elements = Constables.describeConstable(this.elements.subList(0, this.size() - 1)).orElse(null);
+        final ConstantDesc elements = Constables.describeConstable(this.elementList().subList(0, this.size() - 1)).orElse(null);
         if (elements != null) {
-          final ConstantDesc lastElement = this.elements.get(this.size() - 1).describeConstable().orElse(null);
+          final ConstantDesc lastElement = this.lastElement().describeConstable().orElse(null);
           if (lastElement != null) {
             return
               Optional.of(DynamicConstantDesc.ofNamed(BSM_INVOKE,
@@ -461,13 +621,163 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
   @Override // Qualified<String, Object, T>
   public final Qualifiers<String, Object> qualifiers() {
+    Qualifiers<String, Object> qualifiers = this.aggregatedQualifiers;
+    if (qualifiers == null) {
+      qualifiers = this.aggregateQualifiers();
+      this.aggregatedQualifiers = qualifiers;
+    }
+    return qualifiers;
+  }
+
+  /**
+   * Returns the value of the {@linkplain #qualifiers() qualifier} of
+   * this {@link Path} with the supplied name, or {@code null} if
+   * there is no such qualifier.
+   *
+   * <p>Names include the element-prefixed names under which the
+   * qualifiers of this {@link Path}'s {@link Element}s are
+   * aggregated, such as {@code c.foo}.  If more than one qualifier
+   * has the supplied name, the value of the first such qualifier in
+   * iteration order is returned.</p>
+   *
+   * <p>The first invocation of this method builds a hash index of
+   * this {@link Path}'s qualifiers; subsequent invocations take
+   * constant time.</p>
+   *
+   * @param name the name; must not be {@code null}
+   *
+   * @return the value of the qualifier with the supplied name, or
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code name} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   *
+   * @see #qualifiers()
+   *
+   * @see #qualifier(int, String)
+   */
+  public final Object qualifier(final String name) {
+    Objects.requireNonNull(name, "name");
+    Map<String, Object> index = this.qualifierIndex;
+    if (index == null) {
+      index = index(this.qualifiers());
+      this.qualifierIndex = index;
+    }
+    return index.get(name);
+  }
+
+  /**
+   * Returns the value of the qualifier with the supplied unprefixed
+   * name belonging to the {@link Element} at the supplied index, or
+   * {@code null} if there is no such qualifier.
+   *
+   * <p>This is equivalent to, but cheaper than, {@linkplain
+   * #qualifier(String) looking up} the element-prefixed name under
+   * which that qualifier is aggregated into this {@link Path}'s
+   * {@linkplain #qualifiers() qualifiers}, except that qualifiers
+   * supplied for the {@link Path} itself are never consulted.  No
+   * prefixed name is built.</p>
+   *
+   * @param index the zero-based index of the {@link Element}; must
+   * be {@code 0} or greater and less than this {@link Path}'s
+   * {@linkplain #size() size}
+   *
+   * @param name the unprefixed name; must not be {@code null}
+   *
+   * @return the value of the qualifier, or {@code null}
+   *
+   * @exception IndexOutOfBoundsException if {@code index} does not
+   * meet the requirements described above
+   *
+   * @exception NullPointerException if {@code name} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   *
+   * @see Element#qualifier(String)
+   */
+  public final Object qualifier(final int index, final String name) {
+    return this.get(index).qualifier(name);
+  }
+
+  // Returns the Qualifiers supplied when this Path was created,
+  // without those aggregated from its elements.
+  final Qualifiers<String, Object> suppliedQualifiers() {
     return this.qualifiers;
   }
 
+  // Returns the qualifiers supplied at construction time plus the
+  // qualifiers of every element, each of whose names is prefixed with
+  // the dot-separated names of the elements up to and including its
+  // own.  Idempotent, so racing threads compute equal results.
+  private final Qualifiers<String, Object> aggregateQualifiers() {
+    final Qualifiers<String, Object> lastElementQualifiers = this.lastElement.qualifiers();
+    if (this.parent != null) {
+      final Qualifiers<String, Object> parentQualifiers = this.parent.aggregatedQualifiers;
+      if (parentQualifiers != null) {
+        // Build on the parent's work.
+        if (lastElementQualifiers.isEmpty()) {
+          return parentQualifiers;
+        }
+        final Set<Qualifier<String, Object>> pathQualifiers = new TreeSet<>();
+        for (final Qualifier<String, Object> q : parentQualifiers) {
+          pathQualifiers.add(q);
+        }
+        addPrefixed(pathQualifiers, this.parent.prefix() + this.lastElement.name(), lastElementQualifiers);
+        return Qualifiers.of(pathQualifiers);
+      }
+    }
+    final Element<?>[] elements = this.elementArray();
+    Set<Qualifier<String, Object>> pathQualifiers = null;
+    StringBuilder prefix = null;
+    for (int i = 0; i < elements.length; i++) {
+      final Element<?> e = elements[i];
+      if (prefix != null) {
+        prefix.append(PREFIX_SEPARATOR_CHAR).append(e.name());
+      }
+      final Qualifiers<String, Object> eQualifiers = e.qualifiers();
+      if (!eQualifiers.isEmpty()) {
+        if (prefix == null) {
+          prefix = new StringBuilder();
+          for (int j = 0; j <= i; j++) {
+            if (j > 0) {
+              prefix.append(PREFIX_SEPARATOR_CHAR);
+            }
+            prefix.append(elements[j].name());
+          }
+        }
+        if (pathQualifiers == null) {
+          pathQualifiers = new TreeSet<>();
+          for (final Qualifier<String, Object> q : this.qualifiers) {
+            pathQualifiers.add(q);
+          }
+        }
+        addPrefixed(pathQualifiers, prefix.toString(), eQualifiers);
+      }
+    }
+    return pathQualifiers == null ? this.qualifiers : Qualifiers.of(pathQualifiers);
+  }
+
   /**
    * Returns the {@link Path.Element} found at the supplied zero-based
    * index.
    *
+   * <p>This method runs in constant time unless this {@link Path} was
+   * built by {@linkplain #plus(Element) appending} {@link Element}s
+   * one at a time, in which case it runs in time proportional to the
+   * number of {@link Element}s appended after the one requested, and
+   * so in O(depth) time in the worst case.</p>
+   *
    * @param index the index of the {@link Path.Element} to return;
    * must be {@code 0} or greater and less than this {@link Path}'s
    * {@linkplain #size() size}
@@ -486,7 +796,15 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * @idempotency This method is idempotent and deterministic.
    */
   public final Element<?> get(final int index) {
-    return this.elements.get(index);
+    Objects.checkIndex(index, this.size);
+    Path<?> p = this;
+    while (p.parent != null) {
+      if (index == p.size - 1) {
+        return p.lastElement;
+      }
+      p = p.parent;
+    }
+    return p.flatGet(index);
   }
 
   /**
@@ -494,6 +812,9 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * Element elements} of this {@link Path}, including the {@linkplain
    * #lastElement() last element}.
    *
+   * <p>The returned {@link Iterator} is backed directly by this
+   * {@link Path}'s storage and does not support removal.</p>
+   *
    * @return an {@link Iterator} that iterates over the {@linkplain
    * Element elements} of this {@link Path}, including the {@linkplain
    * #lastElement() last element}
@@ -507,7 +828,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
   @Override // Iterable<Element<?>>
   public final Iterator<Element<?>> iterator() {
-    return this.elements.iterator();
+    return new ElementIterator(this.flat());
   }
 
   /**
@@ -515,6 +836,11 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * elements} of this {@link Path}, including the {@linkplain
    * #lastElement() last element}.
    *
+   * <p>The returned {@link Spliterator} is backed directly by this
+   * {@link Path}'s storage and reports {@link Spliterator#ORDERED},
+   * {@link Spliterator#IMMUTABLE}, {@link Spliterator#NONNULL},
+   * {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED}.</p>
+   *
    * @return a {@link Spliterator} for the {@linkplain Element
    * elements} of this {@link Path}, including the {@linkplain
    * #lastElement() last element}
@@ -528,7 +854,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
   @Override // Iterable<Element<?>>
   public final Spliterator<Element<?>> spliterator() {
-    return this.elements.spliterator();
+    return Spliterators.spliterator(this.elementArray(), ELEMENT_CHARACTERISTICS);
   }
 
   /**
@@ -545,7 +871,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * threads.
    */
   public final Stream<Element<?>> stream() {
-    return this.elements.stream();
+    return StreamSupport.stream(this.spliterator(), false);
   }
 
   /**
@@ -563,7 +889,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * threads.
    */
   public final Stream<Element<?>> parallelStream() {
-    return this.elements.parallelStream();
+    return StreamSupport.stream(this.spliterator(), true);
   }
 
   /**
@@ -578,7 +904,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * threads.
    */
   public final int size() {
-    return this.elements.size();
+    return this.size;
   }
 
   /**
@@ -604,7 +930,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * threads.
    */
   public final int indexOf(final Path<?> other) {
-    return other == this ? 0 : Collections.indexOfSubList(this.elements, other.elements);
+    return other == this ? 0 : other.size() > this.size() ? -1 : PathSearch.indexOf(this, other, false);
   }
 
   /**
@@ -624,6 +950,12 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * BiPredicate#test(Object, Object)} method must be idempotent and
    * deterministic.</p>
    *
+   * <p>Because the supplied {@link BiPredicate} need not be an
+   * equivalence relation, this method cannot use the linear-time
+   * algorithm employed by {@link #compileSearch(Path)} and may take
+   * time proportional to the product of the sizes of the two {@link
+   * Path}s.</p>
+   *
    * @param path the other {@link Path}; must not be {@code null}
    *
    * @param p the {@link BiPredicate} used to {@linkplain
@@ -645,12 +977,14 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * threads.
    */
   public final int indexOf(final Path<?> path, final BiPredicate<? super Element<?>, ? super Element<?>> p) {
-    final int pathSize = path.size();
-    final int sizeDiff = this.size() - pathSize;
+    final Path<?> flat = this.flat();
+    final Path<?> pathFlat = path.flat();
+    final int pathSize = pathFlat.size;
+    final int sizeDiff = flat.size - pathSize;
     OUTER_LOOP:
     for (int i = 0; i <= sizeDiff; i++) {
       for (int j = 0, k = i; j < pathSize; j++, k++) {
-        if (!p.test(this.elements.get(k), path.elements.get(j))) {
+        if (!p.test(flat.elementAt(k), pathFlat.elementAt(j))) {
           continue OUTER_LOOP;
         }
       }
@@ -691,7 +1025,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * @see #indexOf(Path)
    */
   public final boolean startsWith(final Path<?> other) {
-    return other == this || this.indexOf(other) == 0;
+    return other == this || this.regionMatches(0, other);
   }
 
   /**
@@ -708,7 +1042,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
   @SuppressWarnings("unchecked")
   public final Element<T> lastElement() {
-    return (Element<T>)this.elements.get(this.size() - 1);
+    return (Element<T>)this.lastElement;
   }
 
   /**
@@ -734,7 +1068,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * threads.
    */
   public final int lastIndexOf(final Path<?> other) {
-    return other == this ? 0 : Collections.lastIndexOfSubList(this.elements, other.elements);
+    return other == this ? 0 : other.size() > this.size() ? -1 : PathSearch.indexOf(this, other, true);
   }
 
   /**
@@ -754,6 +1088,12 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * BiPredicate#test(Object, Object)} method must be idempotent and
    * deterministic.</p>
    *
+   * <p>Because the supplied {@link BiPredicate} need not be an
+   * equivalence relation, this method cannot use the linear-time
+   * algorithm employed by {@link #compileSearch(Path)} and may take
+   * time proportional to the product of the sizes of the two {@link
+   * Path}s.</p>
+   *
    * @param path the other {@link Path}; must not be {@code null}
    *
    * @param p the {@link BiPredicate} used to {@linkplain
@@ -775,12 +1115,14 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * threads.
    */
   public final int lastIndexOf(final Path<?> path, final BiPredicate<? super Element<?>, ? super Element<?>> p) {
-    final int pathSize = path.size();
-    final int sizeDiff = this.size() - pathSize;
+    final Path<?> flat = this.flat();
+    final Path<?> pathFlat = path.flat();
+    final int pathSize = pathFlat.size;
+    final int sizeDiff = flat.size - pathSize;
     OUTER_LOOP:
     for (int i = sizeDiff; i >= 0; i--) {
       for (int j = 0, k = i; j < pathSize; j++, k++) {
-        if (!p.test(this.elements.get(k), path.elements.get(j))) {
+        if (!p.test(flat.elementAt(k), pathFlat.elementAt(j))) {
           continue OUTER_LOOP;
         }
       }
@@ -874,12 +1216,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * @see #lastIndexOf(Path)
    */
   public final boolean endsWith(final Path<?> other) {
-    if (other == this) {
-      return true;
-    } else {
-      final int lastIndex = this.lastIndexOf(other);
-      return lastIndex >= 0 && lastIndex + other.size() == this.size();
-    }
+    return other == this || this.regionMatches(this.size() - other.size(), other);
   }
 
   /**
@@ -986,12 +1323,14 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * @return {@code true} if and only if this {@link Path} is absolute
    */
   public final boolean absolute() {
-    return this.elements.get(0).isRoot();
+    return this.get(0).isRoot();
   }
 
   /**
    * Returns a hashcode for this {@link Path}.
    *
+   * <p>The hashcode is computed once, on first use, and cached.</p>
+   *
    * @return a hashcode for this {@link Path}
    *
    * @idempotency This method is idempotent and deterministic.
@@ -1001,16 +1340,41 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
   @Override // Object
   public final int hashCode() {
-    int hashCode = 17;
-    Object value = this.qualifiers();
-    int c = value == null ? 0 : value.hashCode();
-    hashCode = 37 * hashCode + c;
-    value = this.elements;
-    c = value == null ? 0 : value.hashCode();
-    hashCode = 37 * hashCode + c;
-    c = this.transliterated ? 1 : 0;
-    hashCode = 37 * hashCode + c;
-    return hashCode;
+    // Qualifiers do not participate, so that hashing never forces
+    // their aggregation.  Equal Paths have equal elements, so this is
+    // still consistent with equals(Object).
+    return pathHashCode(this.elementsHashCode(), this.transliterated);
+  }
+
+  // Returns the List#hashCode()-compatible hash of this Path's
+  // elements.  For a Path formed by appending an element to a parent,
+  // this is 31 * (the parent's elements hash) + (the element's hash),
+  // which lets PathMap compute the hash of parent.plus(e) without
+  // creating it.  Iterative, and allocation-free, so that long
+  // appended chains cannot overflow the stack.
+  final int elementsHashCode() {
+    int h = this.elementsHashCode;
+    if (h == 0) {
+      int acc = 0;
+      int pow = 1;
+      Path<?> p = this;
+      while (true) {
+        final int cached = p.elementsHashCode;
+        if (cached != 0) {
+          acc += pow * cached;
+          break;
+        } else if (p.parent == null) {
+          acc += pow * p.flatHashCode();
+          break;
+        }
+        acc += pow * p.lastElement.hashCode();
+        pow *= 31;
+        p = p.parent;
+      }
+      h = acc;
+      this.elementsHashCode = h;
+    }
+    return h;
   }
 
   /**
@@ -1034,13 +1398,141 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
       return true;
     } else if (other != null && other.getClass() == this.getClass()) {
       final Path<?> her = (Path<?>)other;
+      final int elementsHashCode = this.elementsHashCode;
+      if (elementsHashCode != 0) {
+        final int herElementsHashCode = her.elementsHashCode;
+        if (herElementsHashCode != 0 && herElementsHashCode != elementsHashCode) {
+          return false;
+        }
+      }
       return
-        Objects.equals(this.qualifiers(), her.qualifiers()) &&
-        Objects.equals(this.elements, her.elements) &&
-        this.transliterated == her.transliterated;
+        this.size == her.size &&
+        this.transliterated == her.transliterated &&
+        elementsEqual(this, her) &&
+        // Equal elements and identical supplied qualifiers imply equal
+        // aggregated qualifiers.
+        (this.qualifiers == her.qualifiers || Objects.equals(this.qualifiers(), her.qualifiers()));
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the canonical {@link Path} that is {@linkplain
+   * #equals(Object) equal to} this {@link Path}, which may be this
+   * {@link Path}.
+   *
+   * <p>Canonical {@link Path}s are held in a JVM-wide {@link
+   * PathInterner}, which holds them only weakly.</p>
+   *
+   * @return the canonical {@link Path} that is {@linkplain
+   * #equals(Object) equal to} this {@link Path}; never {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent but not deterministic.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   *
+   * @see PathInterner#intern(Path)
+   */
+  public final Path<T> intern() {
+    return PathInterner.INSTANCE.intern(this);
+  }
+
+  // Returns true if other's elements occur in this Path starting at
+  // offset.  Equivalent to, but cheaper than, searching for other and
+  // comparing the resulting index with offset.
+  private final boolean regionMatches(final int offset, final Path<?> other) {
+    final int otherSize = other.size();
+    if (offset < 0 || offset + otherSize > this.size()) {
+      return false;
+    }
+    final Path<?> flat = this.flat();
+    final Path<?> otherFlat = other.flat();
+    for (int i = 0; i < otherSize; i++) {
+      if (!flat.elementAt(offset + i).equals(otherFlat.elementAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Returns true if this Path is equal to parent.plus(last), without
+  // creating it unless the two have distinct, unequal supplied
+  // qualifiers.  Used by PathMap.
+  final boolean equalsAppended(final Path<?> parent, final Element<?> last) {
+    if (this.transliterated || this.size != parent.size + 1 || !this.lastElement.equals(last)) {
+      return false;
+    }
+    final boolean prefixEqual;
+    if (this.parent != null) {
+      prefixEqual = elementsEqual(this.parent, parent);
     } else {
+      prefixEqual = regionEquals(this, parent);
+    }
+    if (!prefixEqual) {
       return false;
     }
+    if (this.qualifiers == parent.qualifiers || this.qualifiers.equals(parent.qualifiers)) {
+      // Equal elements and equal supplied qualifiers imply equal
+      // aggregated qualifiers.
+      return true;
+    }
+    // Unequal supplied qualifiers may still aggregate to equal
+    // qualifiers; settle it the slow way.
+    return this.equals(parent.plus(last));
+  }
+
+  // Returns true if a and b, which have the same size, have equal
+  // elements.  Walks shared storage rather than copying it.
+  private static final boolean elementsEqual(Path<?> a, Path<?> b) {
+    while (a != b) {
+      if (a.parent != null) {
+        if (b.parent == null) {
+          return regionEquals(b, a);
+        }
+        if (!a.lastElement.equals(b.lastElement)) {
+          return false;
+        }
+        a = a.parent;
+        b = b.parent;
+      } else {
+        return regionEquals(a, b);
+      }
+    }
+    return true;
+  }
+
+  // Returns true if the first p.size elements of the supplied flat
+  // Path are equal to p's elements.
+  private static final boolean regionEquals(final Path<?> flat, Path<?> p) {
+    int i = p.size - 1;
+    while (p.parent != null) {
+      if (!flat.flatGet(i--).equals(p.lastElement)) {
+        return false;
+      }
+      p = p.parent;
+    }
+    if (flat.elements != null && p.elements != null) {
+      return Arrays.equals(flat.elements, 0, p.size, p.elements, 0, p.size);
+    }
+    for (i = 0; i < p.size; i++) {
+      if (!flat.flatGet(i).equals(p.flatGet(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Combines an elements hash and transliteration status into a Path
+  // hash code.  Package-private for use by PathMap.
+  static final int pathHashCode(final int elementsHashCode, final boolean transliterated) {
+    int hashCode = 17;
+    hashCode = 37 * hashCode + elementsHashCode;
+    hashCode = 37 * hashCode + (transliterated ? 1 : 0);
+    return hashCode;
   }
 
   /**
@@ -1049,6 +1541,15 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * {@linkplain Element elments} plus the supplied {@linkplain
    * Element element}.
    *
+   * <p>The new {@link Path} shares this {@link Path}'s storage, and
+   * its {@linkplain #qualifiers() qualifiers} are aggregated lazily,
+   * so this method always runs in constant time and space.  In
+   * exchange, {@link #get(int)} on a {@link Path} built up by
+   * repeated invocations of this method runs in time proportional to
+   * the number of {@link Element}s appended after the one requested,
+   * and so in O(depth) time in the worst case; {@link #iterator()}
+   * and other bulk operations are unaffected.</p>
+   *
    * @param <U> the type of the new {@link Path}
    *
    * @param element the new {@link Path}'s {@linkplain #lastElement()
@@ -1070,7 +1571,7 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * threads.
    */
   public final <U> Path<U> plus(final Element<? extends U> element) {
-    return new Path<>(this.qualifiers(), this.elements, element);
+    return new Path<>(this, element);
   }
 
   /**
@@ -1104,9 +1605,14 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
   public final <U> Path<U> plus(final Collection<? extends Element<?>> elements,
                                 final Element<? extends U> lastElement) {
-    final List<Element<?>> newElements = new ArrayList<>(this.size() + elements.size());
-    newElements.addAll(elements);
-    return new Path<>(this.qualifiers(), newElements, lastElement);
+    final Element<?>[] newElements = new Element<?>[this.size + elements.size() + 1];
+    this.copyInto(newElements);
+    int i = this.size;
+    for (final Element<?> element : elements) {
+      newElements[i++] = Objects.requireNonNull(element, "elements");
+    }
+    newElements[i] = Objects.requireNonNull(lastElement, "lastElement");
+    return new Path<>(this.qualifiers, newElements, false);
   }
 
   /**
@@ -1146,37 +1652,115 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    * @threadsafety This method is safe for concurrent use by multiple
    * threads.
    */
-  @SuppressWarnings("unchecked")
   public final <U> Path<U> plus(final Path<? extends U> path) {
-    final int pathSize = path.size();
-    final List<Element<?>> newElements = new ArrayList<>(this.size() + pathSize);
-    newElements.addAll(this.elements);
-    final int lastIndex = pathSize - 1;
-    for (int i = 0; i < lastIndex; i++) {
-      newElements.add(path.elements.get(i));
-    }
+    final Element<?>[] pathElements = path.elementArray();
+    final Element<?>[] newElements = Arrays.copyOf(this.elementArray(), this.size + pathElements.length);
+    System.arraycopy(pathElements, 0, newElements, this.size, pathElements.length);
     final String prefix = this.prefix();
-    return
-      new Path<>(path.qualifiers().withPrefix(k -> prefix + k),
-                 newElements,
-                 (Element<? extends U>)path.elements.get(lastIndex));
+    return new Path<>(path.qualifiers().withPrefix(k -> prefix + k), newElements, false);
   }
 
   private final String prefix() {
+    final Path<?> flat = this.flat();
     final StringBuilder prefix = new StringBuilder();
-    for (final Element<?> e : this) {
-      prefix.append(e.name()).append(PREFIX_SEPARATOR_CHAR);
+    for (int i = 0; i < flat.size; i++) {
+      prefix.append(flat.elementAt(i).name()).append(PREFIX_SEPARATOR_CHAR);
     }
     return prefix.toString();
   }
 
+  // Returns this Path if it holds its own elements, or, if it was
+  // built by plus(Element) and shares its parent's storage, a new,
+  // equal Path that holds its own.  Together with elementAt(int),
+  // lets other classes in this package walk elements by index
+  // without allocating in the common case.
+  final Path<T> flat() {
+    return this.parent == null ? this : new Path<>(this.qualifiers, this.elementArray(), this.transliterated);
+  }
+
+  // Returns the element at the supplied index, which must be valid,
+  // of this flat Path (see flat()) in a few field loads.
+  final Element<?> elementAt(final int index) {
+    assert this.parent == null;
+    return this.flatGet(index);
+  }
+
+  // Returns all of this Path's elements in order.  If this Path owns
+  // an array of its elements, the returned array is that array and
+  // must not be modified or exposed; otherwise it is a new array.
+  // Package-private for use by other classes in this package that
+  // copy elements in bulk; to walk elements, use flat() and
+  // elementAt(int) instead.
+  final Element<?>[] elementArray() {
+    if (this.elements != null) {
+      return this.elements;
+    }
+    final Element<?>[] elements = new Element<?>[this.size];
+    this.copyInto(elements);
+    return elements;
+  }
+
+  // Copies all of this Path's elements, in order, into the start of
+  // the supplied array, which must be large enough to hold them.
+  private final void copyInto(final Element<?>[] elements) {
+    Path<?> p = this;
+    while (p.parent != null) {
+      elements[p.size - 1] = p.lastElement;
+      p = p.parent;
+    }
+    if (p.elements != null) {
+      System.arraycopy(p.elements, 0, elements, 0, p.size);
+    } else {
+      for (int i = 0; i < p.size; i++) {
+        elements[i] = p.flatGet(i);
+      }
+    }
+  }
+
+  // Returns the element at the supplied index of this flat Path.
+  private final Element<?> flatGet(final int index) {
+    if (this.elements != null) {
+      return this.elements[index];
+    } else if (index == this.size - 1) {
+      return this.lastElement;
+    }
+    return index == 0 ? this.first : this.second;
+  }
+
+  // Returns the List#hashCode()-compatible hash of this flat Path's
+  // elements.
+  private final int flatHashCode() {
+    if (this.elements != null) {
+      return Arrays.hashCode(this.elements);
+    }
+    int h = 1;
+    for (int i = 0; i < this.size; i++) {
+      h = 31 * h + this.flatGet(i).hashCode();
+    }
+    return h;
+  }
+
+  private final List<Element<?>> elementList() {
+    return Collections.unmodifiableList(Arrays.asList(this.elementArray()));
+  }
+
   /**
    * Returns a non-{@code null} {@link String} representation of this
-   * {@link Path}.
-   *
-   * <p>The format of the returned {@link String} is deliberately
-   * undefined and may change between revisions of this class without
-   * notice.</p>
+   * {@link Path} that can be read back by the {@link
+   * #parse(CharSequence)} method.
+   *
+   * <p>The returned {@link String} consists of the {@linkplain
+   * Element#toString() string representations} of this {@link
+   * Path}'s {@link Element}s separated by {@code /} characters,
+   * followed, if the {@link Qualifiers} supplied when this {@link
+   * Path} was created are not empty, by those {@link Qualifiers}
+   * rendered as <code>{<em>key</em>=<em>value</em>,...}</code>.
+   * Qualifiers aggregated from {@link Element}s are not rendered
+   * here, since they are rendered as part of their {@link
+   * Element}s.</p>
+   *
+   * <p>The returned {@link String} is computed once, on first use,
+   * and cached.</p>
    *
    * @return a non-{@code null} {@link String} representation of this
    * {@link Path}
@@ -1187,19 +1771,77 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    *
    * @threadsafety This method is safe for concurrent use by multiple
    * threads.
+   *
+   * @see #parse(CharSequence)
    */
   @Override // Object
   public final String toString() {
-    final StringBuilder sb = new StringBuilder();
-    Iterator<Element<?>> i = this.iterator();
-    while (i.hasNext()) {
-      sb.append(i.next());
-      if (i.hasNext()) {
-        sb.append('/');
-      }
+    String string = this.string;
+    if (string == null) {
+      final StringBuilder sb = new StringBuilder(PathParser.pathLength(this));
+      PathParser.appendPath(sb, this);
+      string = sb.toString();
+      this.string = string;
     }
-    sb.append(this.qualifiers());
-    return sb.toString();
+    return string;
+  }
+
+  /**
+   * Returns the exact length of this {@link Path}'s {@linkplain
+   * #toString() string representation}.
+   *
+   * <p>Once computed, the string representation is cached, so this
+   * method is cheap after the first invocation of either this method
+   * or {@link #toString()}.  Computing the length before the string
+   * representation renders (and caches) only each {@link Element}'s
+   * string representation.</p>
+   *
+   * @return the exact length of this {@link Path}'s {@linkplain
+   * #toString() string representation}; never negative
+   *
+   * @idempotency This method is idempotent and deterministic.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   *
+   * @see #toString()
+   */
+  public final int renderedLength() {
+    final String string = this.string;
+    return string == null ? PathParser.pathLength(this) : string.length();
+  }
+
+  /**
+   * Appends this {@link Path}'s {@linkplain #toString() string
+   * representation} to the supplied {@link Appendable} and returns
+   * it.
+   *
+   * <p>The string representation is computed once and cached, so
+   * repeated invocations of this method do no rendering work.</p>
+   *
+   * @param <A> the type of {@link Appendable}
+   *
+   * @param appendable the {@link Appendable}; must not be {@code
+   * null}
+   *
+   * @return {@code appendable}
+   *
+   * @exception NullPointerException if {@code appendable} is {@code
+   * null}
+   *
+   * @exception IOException if {@code appendable} throws it
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads provided that {@code appendable} is not concurrently
+   * used.
+   *
+   * @see #toString()
+   */
+  public final <A extends Appendable> A appendTo(final A appendable) throws IOException {
+    appendable.append(this.toString());
+    return appendable;
   }
 
 
@@ -1228,6 +1870,107 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
     return ROOT;
   }
 
+  /**
+   * Returns a new {@link PathSearch} that finds occurrences of the
+   * supplied {@link Path} within other {@link Path}s in linear time.
+   *
+   * <p>Prefer this method over repeated invocations of {@link
+   * #indexOf(Path)} or {@link #lastIndexOf(Path)} when the same
+   * {@link Path} is to be sought within many {@link Path}s.</p>
+   *
+   * @param needle the {@link Path} to seek; must not be {@code null}
+   *
+   * @return a new {@link PathSearch}; never {@code null}
+   *
+   * @exception NullPointerException if {@code needle} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   *
+   * @see PathSearch
+   */
+  public static final PathSearch compileSearch(final Path<?> needle) {
+    return new PathSearch(needle);
+  }
+
+  /**
+   * Parses the supplied {@link CharSequence}, in the format produced
+   * by the {@link #toString()} method, into a {@link Path}, leaving
+   * any {@linkplain Element#qualified() qualified} token as a {@link
+   * String}.
+   *
+   * <p>Qualifier values are always parsed as {@link String}s.  As
+   * with {@link #parse(CharSequence, Function)}, the {@link Path}
+   * returned is never {@linkplain #transliterated() transliterated}.</p>
+   *
+   * @param cs the {@link CharSequence} to parse; must not be {@code
+   * null}
+   *
+   * @return a new {@link Path}; never {@code null}
+   *
+   * @exception NullPointerException if {@code cs} is {@code null}
+   *
+   * @exception IllegalArgumentException if {@code cs} could not be
+   * parsed
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   *
+   * @see #parse(CharSequence, Function)
+   */
+  public static final Path<?> parse(final CharSequence cs) {
+    return parse(cs, Function.identity());
+  }
+
+  /**
+   * Parses the supplied {@link CharSequence}, in the format produced
+   * by the {@link #toString()} method, into a {@link Path}, using the
+   * supplied {@link Function} to resolve each {@linkplain
+   * Element#qualified() qualified} token.
+   *
+   * <p>The input is read once, from left to right, without regular
+   * expressions or intermediate splitting.  Qualifier values are
+   * always parsed as {@link String}s.</p>
+   *
+   * <p>The {@link #toString()} format does not record whether a
+   * {@link Path} is {@linkplain #transliterated() transliterated}, so
+   * the {@link Path} returned never is.  In particular, parsing the
+   * empty string, which is how both {@link #root()} and {@code
+   * Path.of(Element.root())} are rendered, yields a {@link Path}
+   * equal to the latter, since {@link #root()} is transliterated.</p>
+   *
+   * @param cs the {@link CharSequence} to parse; must not be {@code
+   * null}
+   *
+   * @param resolver a {@link Function} that accepts the (unescaped)
+   * text preceding an {@link Element}'s {@code :} separator and
+   * returns the corresponding {@linkplain Element#qualified()
+   * qualified} object, such as a {@link Class} for a class name; must
+   * not be {@code null}; may return {@code null}
+   *
+   * @return a new {@link Path}; never {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code cs} could not be
+   * parsed
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads, provided that the supplied {@link Function} is.
+   *
+   * @see #toString()
+   */
+  public static final Path<?> parse(final CharSequence cs, final Function<? super String, ?> resolver) {
+    return new PathParser(cs, resolver).parsePath();
+  }
+
   /**
    * Returns a (<strong>usually new</strong>) {@link Path} formed from
    * a {@link Element} formed from the supplied {@code qualified} and
@@ -1384,19 +2127,18 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
   public static final <T> Path<T> of(final T qualified, final List<? extends String> names) {
     final int lastIndex = names.size() - 1;
-    final List<Element<Object>> elements;
     switch (lastIndex) {
     case -1:
       return new Path<>(Qualifiers.of(), List.of(), Element.of(qualified, null));
     case 0:
       return new Path<>(Qualifiers.of(), List.of(), Element.of(qualified, names.get(0)));
     default:
-      elements = new ArrayList<>(lastIndex);
+      final Element<?>[] elements = new Element<?>[lastIndex + 1];
       for (int i = 0; i < lastIndex; i++) {
-        final String name = names.get(i);
-        elements.add(Element.of(name));
+        elements[i] = Element.of(names.get(i));
       }
-      return new Path<>(Qualifiers.of(), elements, Element.of(qualified, names.get(lastIndex)));
+      elements[lastIndex] = Element.of(qualified, names.get(lastIndex));
+      return new Path<>(Qualifiers.of(), elements, false);
     }
   }
 
@@ -1466,25 +2208,47 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
     return new Path<>(pathQualifiers, elements, lastElement);
   }
 
+  // Adds qualifiers to pathQualifiers after prefixing each of their
+  // names with elementPrefix and a separator.
+  private static final void addPrefixed(final Set<? super Qualifier<String, Object>> pathQualifiers,
+                                        final String elementPrefix,
+                                        final Qualifiers<String, Object> qualifiers) {
+    for (final Qualifier<String, Object> q : qualifiers.withPrefix(q -> elementPrefix + PREFIX_SEPARATOR + q.name())) {
+      pathQualifiers.add(q);
+    }
+  }
+
+  // Returns an immutable map of the supplied qualifiers' values
+  // indexed by name; the first of several same-named qualifiers wins.
+  private static final Map<String, Object> index(final Qualifiers<String, Object> qualifiers) {
+    if (qualifiers.isEmpty()) {
+      return Map.of();
+    }
+    final Map<String, Object> index = new HashMap<>(qualifiers.size() * 2);
+    for (final Qualifier<String, Object> q : qualifiers) {
+      index.putIfAbsent(q.name(), q.value());
+    }
+    return Map.copyOf(index);
+  }
+
+  // Returns the package name of the first frame that is not in this
+  // package, skipping any proxy frames immediately following this
+  // package's frames.  Frames are classified once per class, not
+  // once per walk.
   private static final String findUserPackageName(final Stream<StackFrame> stream) {
-    final String className = stream.sequential()
-      .dropWhile(f -> f.getClassName().startsWith(Path.class.getPackageName()))
-      .dropWhile(f -> f.getClassName().contains(".$Proxy")) // skip JDK proxies (and any other kind of proxies)
-      .map(StackFrame::getClassName)
-      .findFirst()
-      .orElse(null);
-    if (className == null) {
-      return "";
-    } else {
-      final int lastIndex = className.lastIndexOf('.');
-      if (lastIndex < 0) {
-        return "";
-      } else if (lastIndex == 0) {
-        throw new AssertionError("className: " + className);
-      } else {
-        return className.substring(0, lastIndex);
+    final Iterator<StackFrame> i = stream.iterator();
+    boolean skippingPathFrames = true;
+    while (i.hasNext()) {
+      final CallerClass c = callerClasses.get(i.next().getDeclaringClass());
+      if (skippingPathFrames && c.pathFrame) {
+        continue;
+      }
+      skippingPathFrames = false;
+      if (!c.proxyFrame) { // skip JDK proxies (and any other kind of proxies)
+        return c.packageName;
       }
     }
+    return "";
   }
 
 
@@ -1493,6 +2257,61 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
    */
 
 
+  // An Iterator over the elements of a flat Path (see Path#flat()).
+  private static final class ElementIterator implements Iterator<Element<?>> {
+
+    private final Path<?> flat;
+
+    private int i;
+
+    private ElementIterator(final Path<?> flat) {
+      super();
+      this.flat = flat;
+    }
+
+    @Override // Iterator<Element<?>>
+    public final boolean hasNext() {
+      return this.i < this.flat.size;
+    }
+
+    @Override // Iterator<Element<?>>
+    public final Element<?> next() {
+      if (this.i >= this.flat.size) {
+        throw new NoSuchElementException();
+      }
+      return this.flat.elementAt(this.i++);
+    }
+
+  }
+
+  // How a class appearing on the stack is treated when finding the
+  // user package name.
+  private static final class CallerClass {
+
+    private final String packageName;
+
+    private final boolean pathFrame;
+
+    private final boolean proxyFrame;
+
+    private CallerClass(final Class<?> c) {
+      super();
+      final String className = c.getName();
+      this.pathFrame = className.startsWith(Path.class.getPackageName());
+      this.proxyFrame = className.contains(".$Proxy");
+      final int lastIndex = className.lastIndexOf('.');
+      if (lastIndex < 0) {
+        this.packageName = "";
+      } else if (lastIndex == 0) {
+        throw new AssertionError("className: " + className);
+      } else {
+        this.packageName = className.substring(0, lastIndex);
+      }
+    }
+
+  }
+
+
   /**
    * An element normally {@linkplain Path#iterator() within} a {@link
    * Path}, consisting of a {@link #qualifiers() Qualifiers}, a
@@ -1526,6 +2345,18 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
 
     private final String name;
 
+    // Lazily computed; 0 means not yet computed.  Benign race: every
+    // thread computes the same value, and int writes are atomic.
+    private int hashCode;
+
+    // The rendering returned by #toString().  Lazily computed; benign
+    // race as above, since String is immutable.
+    private String string;
+
+    // An index of #qualifiers() by name.  Lazily computed; benign
+    // race as above, since the map is immutable.
+    private Map<String, Object> qualifierIndex;
+
 
     /*
      * Constructors.
@@ -1734,6 +2565,46 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
       return this.qualifiers;
     }
 
+    /**
+     * Returns the value of the {@linkplain #qualifiers() qualifier} of
+     * this {@link Element} with the supplied name, or {@code null} if
+     * there is no such qualifier.
+     *
+     * <p>If more than one qualifier has the supplied name, the value
+     * of the first such qualifier in iteration order is returned.
+     * The first invocation of this method builds a hash index of this
+     * {@link Element}'s qualifiers; subsequent invocations take
+     * constant time.</p>
+     *
+     * @param name the name; must not be {@code null}
+     *
+     * @return the value of the qualifier with the supplied name, or
+     * {@code null}
+     *
+     * @exception NullPointerException if {@code name} is {@code null}
+     *
+     * @nullability This method may return {@code null}.
+     *
+     * @idempotency This method is idempotent and deterministic.
+     *
+     * @threadsafety This method is safe for concurrent use by
+     * multiple threads.
+     *
+     * @see #qualifiers()
+     */
+    public final Object qualifier(final String name) {
+      Objects.requireNonNull(name, "name");
+      if (this.qualifiers.isEmpty()) {
+        return null;
+      }
+      Map<String, Object> index = this.qualifierIndex;
+      if (index == null) {
+        index = index(this.qualifiers);
+        this.qualifierIndex = index;
+      }
+      return index.get(name);
+    }
+
     /**
      * Returns the thing that this {@link Element} describes (which
      * may be nothing).
@@ -1820,6 +2691,8 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
     /**
      * Returns a hashcode for this {@link Element}.
      *
+     * <p>The hashcode is computed once, on first use, and cached.</p>
+     *
      * @return a hashcode for this {@link Element}
      *
      * @idempotency This method is idempotent.
@@ -1829,16 +2702,20 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
      */
     @Override // Object
     public final int hashCode() {
-      int hashCode = 17;
-      Object value = this.qualified();
-      int c = value == null ? 0 : value.hashCode();
-      hashCode = 37 * hashCode + c;
-      value = this.name();
-      c = value == null ? 0 : value.hashCode();
-      hashCode = 37 * hashCode + c;
-      value = this.qualifiers();
-      c = value == null ? 0 : value.hashCode();
-      hashCode = 37 * hashCode + c;
+      int hashCode = this.hashCode;
+      if (hashCode == 0) {
+        hashCode = 17;
+        Object value = this.qualified();
+        int c = value == null ? 0 : value.hashCode();
+        hashCode = 37 * hashCode + c;
+        value = this.name();
+        c = value == null ? 0 : value.hashCode();
+        hashCode = 37 * hashCode + c;
+        value = this.qualifiers();
+        c = value == null ? 0 : value.hashCode();
+        hashCode = 37 * hashCode + c;
+        this.hashCode = hashCode;
+      }
       return hashCode;
     }
 
@@ -1863,6 +2740,13 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
         return true;
       } else if (other != null && this.getClass() == other.getClass()) {
         final Element<?> her = (Element<?>)other;
+        final int hashCode = this.hashCode;
+        if (hashCode != 0) {
+          final int herHashCode = her.hashCode;
+          if (herHashCode != 0 && herHashCode != hashCode) {
+            return false;
+          }
+        }
         return
           Objects.equals(this.qualified(), her.qualified()) &&
           Objects.equals(this.name(), her.name()) &&
@@ -1873,12 +2757,48 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
     }
 
     /**
-     * Returns a non-{@code null} {@link String} representation of
+     * Returns the canonical {@link Element} that is {@linkplain
+     * #equals(Object) equal to} this {@link Element}, which may be
      * this {@link Element}.
      *
-     * <p>The format of the {@link String} that is returned is
-     * deliberately unspecified and subject to change without notice
-     * from version to version of this class.</p>
+     * <p>Canonical {@link Element}s are held in a JVM-wide {@link
+     * PathInterner}, which holds them only weakly.</p>
+     *
+     * @return the canonical {@link Element} that is {@linkplain
+     * #equals(Object) equal to} this {@link Element}; never {@code
+     * null}
+     *
+     * @nullability This method never returns {@code null}.
+     *
+     * @idempotency This method is idempotent but not deterministic.
+     *
+     * @threadsafety This method is safe for concurrent use by
+     * multiple threads.
+     *
+     * @see PathInterner#intern(Element)
+     */
+    public final Element<T> intern() {
+      return PathInterner.INSTANCE.intern(this);
+    }
+
+    /**
+     * Returns a non-{@code null} {@link String} representation of
+     * this {@link Element} that can be read back by the {@link
+     * #parse(CharSequence)} method.
+     *
+     * <p>The returned {@link String} consists of the {@linkplain
+     * #qualified() qualified} object, if there is one, rendered as
+     * its {@linkplain Type#getTypeName() type name} if it is a {@link
+     * Type} and as its {@linkplain String#valueOf(Object) string
+     * value} otherwise, followed by {@code :}; then the {@linkplain
+     * #name() name}; then, if this {@link Element}'s {@linkplain
+     * #qualifiers() qualifiers} are not empty, those qualifiers
+     * rendered as <code>[<em>key</em>=<em>value</em>,...]</code>.
+     * Characters that would otherwise be ambiguous are escaped with
+     * a backslash.</p>
+     *
+     * <p>The returned {@link String} is computed once, on first use,
+     * and cached.</p>
      *
      * @return a {@link String} representation of this {@link Element}
      *
@@ -1888,21 +2808,65 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
      *
      * @threadsafety This method is safe for concurrent use by
      * multiple threads.
+     *
+     * @see #parse(CharSequence)
      */
     @Override // Object
     public final String toString() {
-      final StringBuilder sb = new StringBuilder();
-      final T qualified = this.qualified();
-      if (qualified != null) {
-        // Handle the extremely common case that qualified is a Type.
-        sb.append(qualified instanceof Type t ? t.getTypeName() : qualified).append(':');
+      String string = this.string;
+      if (string == null) {
+        string = PathParser.renderElement(this);
+        this.string = string;
       }
-      sb.append(name);
-      final Qualifiers<?, ?> q = this.qualifiers();
-      if (!q.isEmpty()) {
-        sb.append(q.toString());
-      }
-      return sb.toString();
+      return string;
+    }
+
+    /**
+     * Returns the exact length of this {@link Element}'s {@linkplain
+     * #toString() string representation}.
+     *
+     * @return the exact length of this {@link Element}'s {@linkplain
+     * #toString() string representation}; never negative
+     *
+     * @idempotency This method is idempotent and deterministic.
+     *
+     * @threadsafety This method is safe for concurrent use by
+     * multiple threads.
+     *
+     * @see #toString()
+     */
+    public final int renderedLength() {
+      return this.toString().length();
+    }
+
+    /**
+     * Appends this {@link Element}'s {@linkplain #toString() string
+     * representation} to the supplied {@link Appendable} and returns
+     * it.
+     *
+     * @param <A> the type of {@link Appendable}
+     *
+     * @param appendable the {@link Appendable}; must not be {@code
+     * null}
+     *
+     * @return {@code appendable}
+     *
+     * @exception NullPointerException if {@code appendable} is {@code
+     * null}
+     *
+     * @exception IOException if {@code appendable} throws it
+     *
+     * @nullability This method never returns {@code null}.
+     *
+     * @threadsafety This method is safe for concurrent use by
+     * multiple threads provided that {@code appendable} is not
+     * concurrently used.
+     *
+     * @see #toString()
+     */
+    public final <A extends Appendable> A appendTo(final A appendable) throws IOException {
+      appendable.append(this.toString());
+      return appendable;
     }
 
 
@@ -2035,6 +2999,338 @@ public final class Path<T> implements Iterable<Path.Element<?>>, Qualified<Strin
       return new Element<>(name);
     }
 
+    /**
+     * Parses the supplied {@link CharSequence}, in the format
+     * produced by the {@link #toString()} method, into an {@link
+     * Element}, leaving any {@linkplain #qualified() qualified} token
+     * as a {@link String}.
+     *
+     * @param cs the {@link CharSequence} to parse; must not be {@code
+     * null}
+     *
+     * @return a new {@link Element}; never {@code null}
+     *
+     * @exception NullPointerException if {@code cs} is {@code null}
+     *
+     * @exception IllegalArgumentException if {@code cs} could not be
+     * parsed
+     *
+     * @nullability This method never returns {@code null}.
+     *
+     * @threadsafety This method is safe for concurrent use by
+     * multiple threads.
+     *
+     * @see #parse(CharSequence, Function)
+     */
+    public static final Element<?> parse(final CharSequence cs) {
+      return parse(cs, Function.identity());
+    }
+
+    /**
+     * Parses the supplied {@link CharSequence}, in the format
+     * produced by the {@link #toString()} method, into an {@link
+     * Element}, using the supplied {@link Function} to resolve any
+     * {@linkplain #qualified() qualified} token.
+     *
+     * @param cs the {@link CharSequence} to parse; must not be {@code
+     * null}
+     *
+     * @param resolver a {@link Function} that accepts the (unescaped)
+     * text preceding the {@code :} separator and returns the
+     * corresponding {@linkplain #qualified() qualified} object; must
+     * not be {@code null}; may return {@code null}
+     *
+     * @return a new {@link Element}; never {@code null}
+     *
+     * @exception NullPointerException if either argument is {@code
+     * null}
+     *
+     * @exception IllegalArgumentException if {@code cs} could not be
+     * parsed
+     *
+     * @nullability This method never returns {@code null}.
+     *
+     * @threadsafety This method is safe for concurrent use by
+     * multiple threads, provided that the supplied {@link Function}
+     * is.
+     *
+     * @see Path#parse(CharSequence, Function)
+     */
+    public static final Element<?> parse(final CharSequence cs, final Function<? super String, ?> resolver) {
+      return new PathParser(cs, resolver).parseElement();
+    }
+
+  }
+
+  /**
+   * A mutable, reusable accumulator of {@link Element}s and {@link
+   * Qualifiers} that {@linkplain #build() builds} {@link Path}s.
+   *
+   * <p>A {@link Builder} collects {@link Element}s into an array that
+   * it grows as needed and retains across {@linkplain #reset()
+   * resets}.  Building a {@link Path} of three or fewer {@link
+   * Element}s copies nothing, since such a {@link Path} holds its
+   * {@link Element}s inline; building a longer one copies that array
+   * exactly once, into storage the new {@link Path} adopts.  No
+   * intermediate {@link List} is created.  A thread that builds many
+   * {@link Path}s can therefore use one {@link Builder}, {@linkplain
+   * #reset() resetting} it between {@link Path}s.</p>
+   *
+   * <p>Building a {@link Path} does not change the state of the
+   * {@link Builder}, so a {@link Builder} holding a common prefix can
+   * {@linkplain #build(Element) build} several {@link Path}s that
+   * differ only in their last {@link Element}s.</p>
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @threadsafety Instances of this class are not safe for concurrent
+   * use by multiple threads.
+   *
+   * @see Path#Path(Qualifiers, List, Element)
+   */
+  public static final class Builder {
+
+
+    /*
+     * Instance fields.
+     */
+
+
+    private Qualifiers<? extends String, ?> qualifiers;
+
+    private Element<?>[] elements;
+
+    private int size;
+
+
+    /*
+     * Constructors.
+     */
+
+
+    /**
+     * Creates a new, empty {@link Builder}.
+     */
+    public Builder() {
+      this(8);
+    }
+
+    // Used by Path#plus(Collection, Element) to size storage exactly.
+    Builder(final int capacity) {
+      super();
+      this.qualifiers = Qualifiers.of();
+      this.elements = new Element<?>[Math.max(1, capacity)];
+    }
+
+
+    /*
+     * Instance methods.
+     */
+
+
+    /**
+     * Sets the {@link Qualifiers} that will qualify {@link Path}s
+     * built by this {@link Builder} and returns this {@link
+     * Builder}.
+     *
+     * @param qualifiers the {@link Qualifiers}; must not be {@code
+     * null}
+     *
+     * @return this {@link Builder}
+     *
+     * @exception NullPointerException if {@code qualifiers} is {@code
+     * null}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final Builder qualifiers(final Qualifiers<? extends String, ?> qualifiers) {
+      this.qualifiers = Objects.requireNonNull(qualifiers, "qualifiers");
+      return this;
+    }
+
+    /**
+     * Appends the supplied {@link Element} and returns this {@link
+     * Builder}.
+     *
+     * @param element the {@link Element}; must not be {@code null}
+     *
+     * @return this {@link Builder}
+     *
+     * @exception NullPointerException if {@code element} is {@code
+     * null}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final Builder add(final Element<?> element) {
+      Objects.requireNonNull(element, "element");
+      this.ensureCapacity(this.size + 1);
+      this.elements[this.size++] = element;
+      return this;
+    }
+
+    /**
+     * Appends an {@link Element} with the supplied {@linkplain
+     * Element#name() name}, no qualifiers and no {@linkplain
+     * Element#qualified() qualified} object, and returns this {@link
+     * Builder}.
+     *
+     * @param name the name; must not be {@code null} or {@linkplain
+     * String#isEmpty() empty}
+     *
+     * @return this {@link Builder}
+     *
+     * @exception NullPointerException if {@code name} is {@code null}
+     *
+     * @exception IllegalArgumentException if {@code name} is empty
+     *
+     * @nullability This method never returns {@code null}.
+     *
+     * @see Element#of(String)
+     */
+    public final Builder add(final String name) {
+      return this.add(Element.of(name));
+    }
+
+    /**
+     * Appends the supplied {@link Element}s, in iteration order, and
+     * returns this {@link Builder}.
+     *
+     * @param elements the {@link Element}s; must not be {@code null}
+     * or contain {@code null} elements
+     *
+     * @return this {@link Builder}
+     *
+     * @exception NullPointerException if {@code elements} is {@code
+     * null} or contains {@code null} elements
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final Builder addAll(final Collection<? extends Element<?>> elements) {
+      this.ensureCapacity(this.size + elements.size());
+      for (final Element<?> element : elements) {
+        this.add(element);
+      }
+      return this;
+    }
+
+    /**
+     * Appends the {@link Element}s of the supplied {@link Path} and
+     * returns this {@link Builder}.
+     *
+     * <p>The supplied {@link Path}'s {@linkplain Path#qualifiers()
+     * qualifiers} are not added.</p>
+     *
+     * @param path the {@link Path}; must not be {@code null}
+     *
+     * @return this {@link Builder}
+     *
+     * @exception NullPointerException if {@code path} is {@code null}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final Builder addAll(final Path<?> path) {
+      final Path<?> flat = path.flat();
+      final int size = flat.size;
+      this.ensureCapacity(this.size + size);
+      for (int i = 0; i < size; i++) {
+        this.elements[this.size++] = flat.elementAt(i);
+      }
+      return this;
+    }
+
+    /**
+     * Returns the number of {@link Element}s this {@link Builder}
+     * holds.
+     *
+     * @return the number of {@link Element}s this {@link Builder}
+     * holds
+     */
+    public final int size() {
+      return this.size;
+    }
+
+    /**
+     * Discards this {@link Builder}'s {@link Element}s and {@link
+     * Qualifiers}, retaining its storage for reuse, and returns this
+     * {@link Builder}.
+     *
+     * @return this {@link Builder}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final Builder reset() {
+      Arrays.fill(this.elements, 0, this.size, null);
+      this.size = 0;
+      this.qualifiers = Qualifiers.of();
+      return this;
+    }
+
+    /**
+     * Returns a new {@link Path} whose {@link Element}s are those
+     * held by this {@link Builder}, the last of which becomes its
+     * {@linkplain Path#lastElement() last element}.
+     *
+     * @return a new {@link Path}; never {@code null}
+     *
+     * @exception IllegalStateException if this {@link Builder} holds
+     * no {@link Element}s
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final Path<?> build() {
+      final int size = this.size;
+      if (size == 0) {
+        throw new IllegalStateException("no elements");
+      } else if (size <= INLINE_MAX) {
+        return new Path<>(this.qualifiers,
+                          size > 1 ? this.elements[0] : null,
+                          size > 2 ? this.elements[1] : null,
+                          this.elements[size - 1],
+                          size);
+      }
+      return new Path<>(this.qualifiers, Arrays.copyOf(this.elements, size), false);
+    }
+
+    /**
+     * Returns a new {@link Path} whose {@link Element}s are those
+     * held by this {@link Builder} followed by the supplied {@link
+     * Element}, without adding that {@link Element} to this {@link
+     * Builder}.
+     *
+     * @param <T> the type of the new {@link Path}
+     *
+     * @param lastElement the new {@link Path}'s {@linkplain
+     * Path#lastElement() last element}; must not be {@code null}
+     *
+     * @return a new {@link Path}; never {@code null}
+     *
+     * @exception NullPointerException if {@code lastElement} is {@code
+     * null}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final <T> Path<T> build(final Element<? extends T> lastElement) {
+      Objects.requireNonNull(lastElement, "lastElement");
+      final int size = this.size + 1;
+      if (size <= INLINE_MAX) {
+        return new Path<>(this.qualifiers,
+                          size > 1 ? this.elements[0] : null,
+                          size > 2 ? this.elements[1] : null,
+                          lastElement,
+                          size);
+      }
+      final Element<?>[] elements = Arrays.copyOf(this.elements, size);
+      elements[this.size] = lastElement;
+      return new Path<>(this.qualifiers, elements, false);
+    }
+
+    private final void ensureCapacity(final int capacity) {
+      if (capacity > this.elements.length) {
+        this.elements = Arrays.copyOf(this.elements, Math.max(capacity, this.elements.length * 2));
+      }
+    }
+
   }
 
 }
@@ -0,0 +1,703 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.lang.reflect.Type;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes {@link Path}s and {@link Element}s to, and decodes them
+ * from, a compact binary format read and written directly against
+ * {@link ByteBuffer}s.
+ *
+ * <p>Encoding and decoding happen within <em>batches</em>.  An {@link
+ * Encoder} writes a batch to a {@link ByteBuffer}, and a {@link
+ * Decoder} reads the same batch back.  Within a batch, every
+ * distinct {@link String} (element names, qualifier keys and string
+ * qualifier values) and every distinct {@link Element} is written in
+ * full only the first time it occurs; later occurrences are written
+ * as small integer references.  A batch of {@link Path}s that share
+ * prefixes is therefore little larger than its distinct {@link
+ * Element}s, and decoding it yields {@link Path}s that share their
+ * {@link Element} instances.</p>
+ *
+ * <p>Integers are written as unsigned LEB128 varints.  {@linkplain
+ * Element#qualified() Qualified} objects are written by a pluggable
+ * {@link QualifiedCodec}.  Qualifier values must be {@link String}s,
+ * {@link Boolean}s, {@link Integer}s or {@link Long}s.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are immutable and safe for
+ * concurrent use by multiple threads.  {@link Encoder} and {@link
+ * Decoder} instances are not.
+ */
+public final class PathCodec {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  private static final int PATH_TRANSLITERATED = 0x01;
+
+  private static final int ELEMENT_QUALIFIED = 0x01;
+
+  private static final int ELEMENT_QUALIFIERS = 0x02;
+
+  private static final int VALUE_STRING = 0;
+
+  private static final int VALUE_FALSE = 1;
+
+  private static final int VALUE_TRUE = 2;
+
+  private static final int VALUE_INT = 3;
+
+  private static final int VALUE_LONG = 4;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final QualifiedCodec qualifiedCodec;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private PathCodec(final QualifiedCodec qualifiedCodec) {
+    super();
+    this.qualifiedCodec = Objects.requireNonNull(qualifiedCodec, "qualifiedCodec");
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns a new {@link Encoder} that writes a new batch to the
+   * supplied {@link ByteBuffer}, starting at its current position.
+   *
+   * @param out the {@link ByteBuffer} to write to; must not be {@code
+   * null}
+   *
+   * @return a new {@link Encoder}; never {@code null}
+   *
+   * @exception NullPointerException if {@code out} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final Encoder newEncoder(final ByteBuffer out) {
+    return new Encoder(this.qualifiedCodec, out);
+  }
+
+  /**
+   * Returns a new {@link Decoder} that reads a batch from the
+   * supplied {@link ByteBuffer}, starting at its current position.
+   *
+   * @param in the {@link ByteBuffer} to read from; must not be {@code
+   * null}
+   *
+   * @return a new {@link Decoder}; never {@code null}
+   *
+   * @exception NullPointerException if {@code in} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final Decoder newDecoder(final ByteBuffer in) {
+    return new Decoder(this.qualifiedCodec, in);
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a {@link PathCodec} that uses the {@linkplain
+   * QualifiedCodec#strings() string <code>QualifiedCodec</code>}.
+   *
+   * @return a {@link PathCodec}; never {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final PathCodec of() {
+    return of(QualifiedCodec.strings());
+  }
+
+  /**
+   * Returns a {@link PathCodec} that uses the supplied {@link
+   * QualifiedCodec} to encode and decode {@linkplain
+   * Element#qualified() qualified} objects.
+   *
+   * @param qualifiedCodec the {@link QualifiedCodec}; must not be
+   * {@code null}
+   *
+   * @return a {@link PathCodec}; never {@code null}
+   *
+   * @exception NullPointerException if {@code qualifiedCodec} is
+   * {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final PathCodec of(final QualifiedCodec qualifiedCodec) {
+    return new PathCodec(qualifiedCodec);
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * Encodes and decodes non-{@code null} {@linkplain
+   * Element#qualified() qualified} objects using the primitives
+   * offered by {@link Encoder} and {@link Decoder}.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see PathCodec#of(QualifiedCodec)
+   */
+  public static interface QualifiedCodec {
+
+    /**
+     * Writes the supplied non-{@code null} qualified object using the
+     * supplied {@link Encoder}.
+     *
+     * @param qualified the qualified object; must not be {@code null}
+     *
+     * @param encoder the {@link Encoder}; must not be {@code null}
+     *
+     * @exception IllegalArgumentException if {@code qualified} cannot
+     * be encoded
+     */
+    public void encode(final Object qualified, final Encoder encoder);
+
+    /**
+     * Reads a qualified object previously written by the {@link
+     * #encode(Object, Encoder)} method using the supplied {@link
+     * Decoder}.
+     *
+     * @param decoder the {@link Decoder}; must not be {@code null}
+     *
+     * @return the qualified object; must not be {@code null}
+     *
+     * @exception IllegalArgumentException if the qualified object
+     * cannot be decoded
+     */
+    public Object decode(final Decoder decoder);
+
+    /**
+     * Returns a {@link QualifiedCodec} that writes each qualified
+     * object as its {@linkplain Type#getTypeName() type name} if it
+     * is a {@link Type} and as its {@linkplain String#valueOf(Object)
+     * string value} otherwise, and that reads it back as a {@link
+     * String}.
+     *
+     * @return a {@link QualifiedCodec}; never {@code null}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public static QualifiedCodec strings() {
+      return Strings.INSTANCE;
+    }
+
+    /**
+     * Returns a {@link QualifiedCodec} that writes each qualified
+     * object, which must be a {@link Class}, as its {@linkplain
+     * Class#getName() name}, and that reads it back by {@linkplain
+     * Class#forName(String, boolean, ClassLoader) loading} it with
+     * the supplied {@link ClassLoader}.
+     *
+     * @param loader the {@link ClassLoader}; may be {@code null} to
+     * indicate the bootstrap class loader
+     *
+     * @return a {@link QualifiedCodec}; never {@code null}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public static QualifiedCodec classes(final ClassLoader loader) {
+      return new QualifiedCodec() {
+        @Override
+        public final void encode(final Object qualified, final Encoder encoder) {
+          if (qualified instanceof Class<?> c) {
+            encoder.writeString(c.getName());
+          } else {
+            throw new IllegalArgumentException("qualified: " + qualified);
+          }
+        }
+        @Override
+        public final Object decode(final Decoder decoder) {
+          final String name = decoder.readString();
+          try {
+            return Class.forName(name, false, loader);
+          } catch (final ClassNotFoundException e) {
+            throw new IllegalArgumentException(name, e);
+          }
+        }
+      };
+    }
+
+  }
+
+  private static final class Strings implements QualifiedCodec {
+
+    private static final Strings INSTANCE = new Strings();
+
+    private Strings() {
+      super();
+    }
+
+    @Override
+    public final void encode(final Object qualified, final Encoder encoder) {
+      encoder.writeString(qualified instanceof Type t ? t.getTypeName() : String.valueOf(qualified));
+    }
+
+    @Override
+    public final Object decode(final Decoder decoder) {
+      return decoder.readString();
+    }
+
+  }
+
+  /**
+   * Writes one batch of {@link Path}s and {@link Element}s to a
+   * {@link ByteBuffer}.
+   *
+   * <p>If the {@link ByteBuffer} overflows, a {@link
+   * java.nio.BufferOverflowException} is thrown and this {@link
+   * Encoder} must not be used further.</p>
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @threadsafety Instances of this class are not safe for concurrent
+   * use by multiple threads.
+   *
+   * @see PathCodec#newEncoder(ByteBuffer)
+   */
+  public static final class Encoder {
+
+    private final QualifiedCodec qualifiedCodec;
+
+    private final ByteBuffer out;
+
+    private final Map<String, Integer> strings;
+
+    private final Map<Element<?>, Integer> elements;
+
+    private Encoder(final QualifiedCodec qualifiedCodec, final ByteBuffer out) {
+      super();
+      this.qualifiedCodec = qualifiedCodec;
+      this.out = Objects.requireNonNull(out, "out");
+      this.strings = new HashMap<>();
+      this.elements = new HashMap<>();
+    }
+
+    /**
+     * Returns the {@link ByteBuffer} this {@link Encoder} writes to.
+     *
+     * @return the {@link ByteBuffer} this {@link Encoder} writes to;
+     * never {@code null}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final ByteBuffer buffer() {
+      return this.out;
+    }
+
+    /**
+     * Writes the supplied {@link Path}.
+     *
+     * @param path the {@link Path}; must not be {@code null}
+     *
+     * @exception NullPointerException if {@code path} is {@code null}
+     *
+     * @exception IllegalArgumentException if {@code path} cannot be
+     * encoded
+     */
+    public final void write(final Path<?> path) {
+      final Path<?> flat = path.flat();
+      this.writeVarint(path.transliterated() ? PATH_TRANSLITERATED : 0);
+      this.writeVarint(flat.size());
+      for (int i = 0; i < flat.size(); i++) {
+        this.write(flat.elementAt(i));
+      }
+      this.writeQualifiers(path.suppliedQualifiers());
+    }
+
+    /**
+     * Writes the supplied {@link Element}.
+     *
+     * @param element the {@link Element}; must not be {@code null}
+     *
+     * @exception NullPointerException if {@code element} is {@code
+     * null}
+     *
+     * @exception IllegalArgumentException if {@code element} cannot
+     * be encoded
+     */
+    public final void write(final Element<?> element) {
+      final Integer index = this.elements.get(element);
+      if (index != null) {
+        this.writeVarint(index + 1);
+        return;
+      }
+      this.writeVarint(0);
+      final Object qualified = element.qualified();
+      final Qualifiers<String, Object> qualifiers = element.qualifiers();
+      this.writeVarint((qualified == null ? 0 : ELEMENT_QUALIFIED) | (qualifiers.isEmpty() ? 0 : ELEMENT_QUALIFIERS));
+      if (qualified != null) {
+        this.qualifiedCodec.encode(qualified, this);
+      }
+      this.writeString(element.name());
+      if (!qualifiers.isEmpty()) {
+        this.writeQualifiers(qualifiers);
+      }
+      this.elements.put(element, this.elements.size());
+    }
+
+    /**
+     * Writes the supplied {@link String}, or a reference to it if it
+     * has already been written in this batch.
+     *
+     * @param s the {@link String}; must not be {@code null}
+     *
+     * @exception NullPointerException if {@code s} is {@code null}
+     */
+    public final void writeString(final String s) {
+      final Integer index = this.strings.get(s);
+      if (index == null) {
+        final byte[] bytes = s.getBytes(UTF_8);
+        this.writeVarint(0);
+        this.writeVarint(bytes.length);
+        this.out.put(bytes);
+        this.strings.put(s, this.strings.size());
+      } else {
+        this.writeVarint(index + 1);
+      }
+    }
+
+    /**
+     * Writes the supplied non-negative {@code int} as an unsigned
+     * LEB128 varint.
+     *
+     * @param value the value; must not be negative
+     *
+     * @exception IllegalArgumentException if {@code value} is
+     * negative
+     */
+    public final void writeVarint(final int value) {
+      if (value < 0) {
+        throw new IllegalArgumentException("value: " + value);
+      }
+      this.writeVarlong(value);
+    }
+
+    private final void writeVarlong(long value) {
+      while ((value & ~0x7FL) != 0L) {
+        this.out.put((byte)((value & 0x7FL) | 0x80L));
+        value >>>= 7;
+      }
+      this.out.put((byte)value);
+    }
+
+    private final void writeQualifiers(final Qualifiers<String, Object> qualifiers) {
+      this.writeVarint(qualifiers.size());
+      for (final Qualifier<String, Object> q : qualifiers) {
+        this.writeString(q.name());
+        final Object value = q.value();
+        if (value instanceof String s) {
+          this.writeVarint(VALUE_STRING);
+          this.writeString(s);
+        } else if (value instanceof Boolean b) {
+          this.writeVarint(b.booleanValue() ? VALUE_TRUE : VALUE_FALSE);
+        } else if (value instanceof Integer i) {
+          this.writeVarint(VALUE_INT);
+          this.writeVarlong(zigzag(i.intValue()));
+        } else if (value instanceof Long l) {
+          this.writeVarint(VALUE_LONG);
+          this.writeVarlong(zigzag(l.longValue()));
+        } else {
+          throw new IllegalArgumentException("Unsupported qualifier value: " + value);
+        }
+      }
+    }
+
+    private static final long zigzag(final long value) {
+      return (value << 1) ^ (value >> 63);
+    }
+
+  }
+
+  /**
+   * Reads one batch of {@link Path}s and {@link Element}s from a
+   * {@link ByteBuffer}.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @threadsafety Instances of this class are not safe for concurrent
+   * use by multiple threads.
+   *
+   * @see PathCodec#newDecoder(ByteBuffer)
+   */
+  public static final class Decoder {
+
+    private final QualifiedCodec qualifiedCodec;
+
+    private final ByteBuffer in;
+
+    private final List<String> strings;
+
+    private final List<Element<?>> elements;
+
+    private byte[] scratch;
+
+    private Decoder(final QualifiedCodec qualifiedCodec, final ByteBuffer in) {
+      super();
+      this.qualifiedCodec = qualifiedCodec;
+      this.in = Objects.requireNonNull(in, "in");
+      this.strings = new ArrayList<>();
+      this.elements = new ArrayList<>();
+    }
+
+    /**
+     * Returns the {@link ByteBuffer} this {@link Decoder} reads from.
+     *
+     * @return the {@link ByteBuffer} this {@link Decoder} reads from;
+     * never {@code null}
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final ByteBuffer buffer() {
+      return this.in;
+    }
+
+    /**
+     * Returns {@code true} if there is more input to read.
+     *
+     * @return {@code true} if there is more input to read
+     */
+    public final boolean hasRemaining() {
+      return this.in.hasRemaining();
+    }
+
+    /**
+     * Reads a {@link Path}.
+     *
+     * @return a {@link Path}; never {@code null}
+     *
+     * @exception BufferUnderflowException if the input ends
+     * prematurely
+     *
+     * @exception IllegalArgumentException if the input is malformed
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final Path<?> readPath() {
+      final int flags = this.readVarint();
+      final int size = this.readCount();
+      if (size == 0) {
+        throw new IllegalArgumentException("size: 0");
+      }
+      final Element<?>[] elements = new Element<?>[size];
+      for (int i = 0; i < size; i++) {
+        elements[i] = this.readElement();
+      }
+      final Qualifiers<String, Object> qualifiers = this.readQualifiers();
+      final Element<?> last = elements[size - 1];
+      final boolean transliterated = (flags & PATH_TRANSLITERATED) != 0;
+      if (size == 1 && transliterated && last == Element.root() && qualifiers.isEmpty()) {
+        return Path.root();
+      }
+      return new Path<>(qualifiers, Arrays.asList(elements).subList(0, size - 1), last, transliterated);
+    }
+
+    /**
+     * Reads an {@link Element}.
+     *
+     * @return an {@link Element}; never {@code null}
+     *
+     * @exception BufferUnderflowException if the input ends
+     * prematurely
+     *
+     * @exception IllegalArgumentException if the input is malformed
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final Element<?> readElement() {
+      final int ref = this.readVarint();
+      if (ref != 0) {
+        if (ref > this.elements.size()) {
+          throw new IllegalArgumentException("Unknown element reference: " + ref);
+        }
+        return this.elements.get(ref - 1);
+      }
+      final int flags = this.readVarint();
+      final Object qualified = (flags & ELEMENT_QUALIFIED) == 0 ? null : this.qualifiedCodec.decode(this);
+      final String name = this.readString();
+      final Qualifiers<String, Object> qualifiers = (flags & ELEMENT_QUALIFIERS) == 0 ? Qualifiers.of() : this.readQualifiers();
+      final Element<?> element;
+      if (qualified == null && name.isEmpty() && qualifiers.isEmpty()) {
+        element = Element.root();
+      } else {
+        element = Element.of(qualifiers, qualified, name);
+      }
+      this.elements.add(element);
+      return element;
+    }
+
+    /**
+     * Reads a {@link String} written by {@link
+     * Encoder#writeString(String)}.
+     *
+     * @return a {@link String}; never {@code null}
+     *
+     * @exception BufferUnderflowException if the input ends
+     * prematurely
+     *
+     * @exception IllegalArgumentException if the input is malformed
+     *
+     * @nullability This method never returns {@code null}.
+     */
+    public final String readString() {
+      final int ref = this.readVarint();
+      if (ref != 0) {
+        if (ref > this.strings.size()) {
+          throw new IllegalArgumentException("Unknown string reference: " + ref);
+        }
+        return this.strings.get(ref - 1);
+      }
+      final int length = this.readVarint();
+      if (length > this.in.remaining()) {
+        throw new BufferUnderflowException();
+      }
+      final String s;
+      if (this.in.hasArray()) {
+        final int position = this.in.position();
+        s = new String(this.in.array(), this.in.arrayOffset() + position, length, UTF_8);
+        this.in.position(position + length);
+      } else {
+        if (this.scratch == null || this.scratch.length < length) {
+          this.scratch = new byte[Math.max(64, length)];
+        }
+        this.in.get(this.scratch, 0, length);
+        s = new String(this.scratch, 0, length, UTF_8);
+      }
+      this.strings.add(s);
+      return s;
+    }
+
+    /**
+     * Reads a non-negative {@code int} written by {@link
+     * Encoder#writeVarint(int)}.
+     *
+     * @return a non-negative {@code int}
+     *
+     * @exception BufferUnderflowException if the input ends
+     * prematurely
+     *
+     * @exception IllegalArgumentException if the input is malformed
+     */
+    public final int readVarint() {
+      final long value = this.readVarlong();
+      if (value < 0L || value > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Varint out of range: " + value);
+      }
+      return (int)value;
+    }
+
+    private final long readVarlong() {
+      long value = 0L;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final byte b = this.in.get();
+        value |= (long)(b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint");
+    }
+
+    // Reads the number of items that follow.  Each item occupies at
+    // least one byte, so a count larger than what remains is malformed
+    // and is rejected before anything is sized by it.
+    private final int readCount() {
+      final int count = this.readVarint();
+      if (count > this.in.remaining()) {
+        throw new IllegalArgumentException("count: " + count + "; remaining: " + this.in.remaining());
+      }
+      return count;
+    }
+
+    private final Qualifiers<String, Object> readQualifiers() {
+      final int size = this.readCount();
+      if (size == 0) {
+        return Qualifiers.of();
+      }
+      final List<Qualifier<String, Object>> qualifiers = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        final String name = this.readString();
+        final int tag = this.readVarint();
+        final Object value = switch (tag) {
+        case VALUE_STRING -> this.readString();
+        case VALUE_FALSE -> Boolean.FALSE;
+        case VALUE_TRUE -> Boolean.TRUE;
+        case VALUE_INT -> Integer.valueOf((int)unzigzag(this.readVarlong()));
+        case VALUE_LONG -> Long.valueOf(unzigzag(this.readVarlong()));
+        default -> throw new IllegalArgumentException("Unknown qualifier value tag: " + tag);
+        };
+        qualifiers.add(Qualifier.of(name, value));
+      }
+      return Qualifiers.of(qualifiers);
+    }
+
+    private static final long unzigzag(final long value) {
+      return (value >>> 1) ^ -(value & 1L);
+    }
+
+  }
+
+}
@@ -0,0 +1,421 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import java.lang.reflect.Type;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+/**
+ * Fast, total {@link Comparator}s over {@link Path}s and {@link
+ * Element}s, suitable for sorted indexes and prefix range queries.
+ *
+ * <p>{@link Element}s are ordered by {@linkplain Element#name()
+ * name}, then by {@linkplain Element#qualifiers() qualifiers}, then
+ * by {@linkplain Element#qualified() qualified} object.  {@link
+ * Path}s are ordered lexicographically by their {@link Element}s, so
+ * that a {@link Path} sorts immediately before all the {@link Path}s
+ * that {@linkplain Path#startsWith(Path) start with} it and those
+ * {@link Path}s are contiguous; ties are broken by {@linkplain
+ * Path#transliterated() transliteration status} and then by
+ * {@linkplain Path#qualifiers() qualifiers}.</p>
+ *
+ * <p>Qualifiers are compared pairwise in iteration order, by name and
+ * then by value, and then by number.  Qualifier values and {@linkplain
+ * Element#qualified() qualified} objects are compared as follows:
+ * {@code null} sorts first, then all {@link Type}s, then everything
+ * else.  {@link Type}s, whatever their classes, are compared by a
+ * pluggable {@link Comparator}, by default one that compares
+ * {@linkplain Class#getName() class names} and {@linkplain
+ * Type#getTypeName() type names}; {@link String}s and other mutually
+ * {@link Comparable} objects of the same class are compared
+ * naturally; anything else is compared by class name.  Unequal
+ * objects that these steps cannot distinguish, such as two
+ * same-named {@link Class}es from different {@link ClassLoader}s,
+ * or two {@link Comparable} objects whose {@link
+ * Comparable#compareTo(Object) compareTo} method returns {@code 0},
+ * are ordered by {@linkplain Object#hashCode() hash code} and, if
+ * those are equal too, by the order in which these {@link
+ * Comparator}s first had to tell them apart.  That order is stable
+ * for as long as any of the objects involved is reachable, but not
+ * across virtual machines.</p>
+ *
+ * <p>So long as the {@link Object#equals(Object)} and {@link
+ * Object#hashCode()} methods of the qualifier values and qualified
+ * objects involved honor their contracts, these {@link Comparator}s
+ * therefore impose total orderings consistent with {@link
+ * Path#equals(Object)} and {@link Element#equals(Object)}.  Because
+ * that ordering can depend on the order in which objects are
+ * encountered, {@link Path} and {@link Element} do not themselves
+ * implement {@link Comparable}: they may describe arbitrary objects,
+ * which have no natural order the classes could promise.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety The methods of this class, and the {@link
+ * Comparator}s they return, are safe for concurrent use by multiple
+ * threads, provided that any supplied {@link Comparator} is.
+ *
+ * @see PathSet
+ */
+public final class PathComparators {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  private static final Comparator<Type> TYPE_NAMES = Comparator.comparing(PathComparators::typeName);
+
+  private static final Comparator<Element<?>> ELEMENTS = elements(TYPE_NAMES);
+
+  private static final Comparator<Path<?>> PATHS = paths(ELEMENTS);
+
+  private static final TieBreaker TIE_BREAKER = new TieBreaker();
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private PathComparators() {
+    super();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the default {@link Comparator} over {@link Element}s,
+   * which compares {@link Type}s by name.
+   *
+   * @return the default {@link Comparator} over {@link Element}s;
+   * never {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   *
+   * @see #elements(Comparator)
+   */
+  public static final Comparator<Element<?>> elements() {
+    return ELEMENTS;
+  }
+
+  /**
+   * Returns a {@link Comparator} over {@link Element}s that uses the
+   * supplied {@link Comparator} to break ties between {@link Type}s.
+   *
+   * @param types the {@link Comparator} to use to compare {@link
+   * Type}s; must not be {@code null}; should return {@code 0} for
+   * {@linkplain Object#equals(Object) equal} {@link Type}s; when it
+   * returns {@code 0} for unequal ones, they are ordered as described
+   * in the {@linkplain PathComparators class documentation}
+   *
+   * @return a {@link Comparator} over {@link Element}s; never {@code
+   * null}
+   *
+   * @exception NullPointerException if {@code types} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final Comparator<Element<?>> elements(final Comparator<? super Type> types) {
+    Objects.requireNonNull(types, "types");
+    return (a, b) -> {
+      if (a == b) {
+        return 0;
+      }
+      int c = a.name().compareTo(b.name());
+      if (c != 0) {
+        return c;
+      }
+      c = compare(a.qualifiers(), b.qualifiers(), types);
+      return c != 0 ? c : compare(a.qualified(), b.qualified(), types);
+    };
+  }
+
+  /**
+   * Returns the default {@link Comparator} over {@link Path}s, which
+   * compares {@link Element}s using the {@linkplain #elements()
+   * default <code>Element</code> <code>Comparator</code>}.
+   *
+   * @return the default {@link Comparator} over {@link Path}s; never
+   * {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   *
+   * @see #paths(Comparator)
+   */
+  public static final Comparator<Path<?>> paths() {
+    return PATHS;
+  }
+
+  /**
+   * Returns a {@link Comparator} over {@link Path}s that compares
+   * their {@link Element}s lexicographically using the supplied
+   * {@link Comparator}.
+   *
+   * @param elements the {@link Comparator} to use to compare {@link
+   * Element}s; must not be {@code null}; must be consistent with
+   * {@link Element#equals(Object)}
+   *
+   * @return a {@link Comparator} over {@link Path}s; never {@code
+   * null}
+   *
+   * @exception NullPointerException if {@code elements} is {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final Comparator<Path<?>> paths(final Comparator<? super Element<?>> elements) {
+    Objects.requireNonNull(elements, "elements");
+    return (a, b) -> {
+      if (a == b) {
+        return 0;
+      }
+      int c = comparePrefix(elements, a, b);
+      if (c != 0) {
+        return c;
+      }
+      c = Integer.compare(a.size(), b.size());
+      if (c != 0) {
+        return c;
+      }
+      c = Boolean.compare(a.transliterated(), b.transliterated());
+      if (c != 0) {
+        return c;
+      }
+      final Qualifiers<String, Object> aq = a.suppliedQualifiers();
+      final Qualifiers<String, Object> bq = b.suppliedQualifiers();
+      // Equal elements and equal supplied qualifiers imply equal
+      // aggregated qualifiers; only otherwise are they aggregated.
+      return aq == bq || aq.equals(bq) ? 0 : compare(a.qualifiers(), b.qualifiers(), TYPE_NAMES);
+    };
+  }
+
+  // Compares the first min(a.size(), b.size()) elements of a and b.
+  // Returns 0 if one is a prefix of the other.  Package-private for
+  // use by PathSet.
+  static final int comparePrefix(final Comparator<? super Element<?>> elements, final Path<?> a, final Path<?> b) {
+    final Path<?> af = a.flat();
+    final Path<?> bf = b.flat();
+    final int size = Math.min(af.size(), bf.size());
+    for (int i = 0; i < size; i++) {
+      final int c = elements.compare(af.elementAt(i), bf.elementAt(i));
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  private static final int compare(final Qualifiers<String, Object> a,
+                                   final Qualifiers<String, Object> b,
+                                   final Comparator<? super Type> types) {
+    if (a == b) {
+      return 0;
+    }
+    final Iterator<Qualifier<String, Object>> ai = a.iterator();
+    final Iterator<Qualifier<String, Object>> bi = b.iterator();
+    while (ai.hasNext() && bi.hasNext()) {
+      final Qualifier<String, Object> aq = ai.next();
+      final Qualifier<String, Object> bq = bi.next();
+      int c = aq.name().compareTo(bq.name());
+      if (c != 0) {
+        return c;
+      }
+      c = compare(aq.value(), bq.value(), types);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return Boolean.compare(ai.hasNext(), bi.hasNext());
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private static final int compare(final Object a, final Object b, final Comparator<? super Type> types) {
+    if (a == b) {
+      return 0;
+    } else if (a == null) {
+      return -1;
+    } else if (b == null) {
+      return 1;
+    } else if (a instanceof Type s) {
+      if (b instanceof Type t) {
+        final int c = types.compare(s, t);
+        return c != 0 || s.equals(t) ? c : tieBreak(s, t);
+      }
+      // Types form one category, whatever their classes, so that
+      // class names never order a Type against anything else.
+      return -1;
+    } else if (b instanceof Type) {
+      return 1;
+    } else if (a instanceof String s && b instanceof String t) {
+      return s.compareTo(t);
+    }
+    final Class<?> ac = a.getClass();
+    final Class<?> bc = b.getClass();
+    if (ac == bc) {
+      final int c = a instanceof Comparable ? ((Comparable)a).compareTo(b) : 0;
+      return c != 0 || a.equals(b) ? c : tieBreak(a, b);
+    }
+    final int c = ac.getName().compareTo(bc.getName());
+    return c != 0 ? c : tieBreak(ac, bc);
+  }
+
+  // Orders a and b, which must not be equal, consistently with
+  // Object#equals(Object) and with every earlier invocation.
+  private static final int tieBreak(final Object a, final Object b) {
+    final int c = Integer.compare(a.hashCode(), b.hashCode());
+    return c != 0 ? c : Long.compare(TIE_BREAKER.sequence(a), TIE_BREAKER.sequence(b));
+  }
+
+  private static final String typeName(final Type type) {
+    // Class#getName() is cached; getTypeName() may not be.
+    return type instanceof Class<?> c ? c.getName() : type.getTypeName();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  // Assigns each class of equal objects whose hash codes collide a
+  // unique sequence number, on first request.  Objects are held
+  // weakly; a class's number is kept for as long as any of its
+  // members that were ever passed to sequence(Object) is reachable,
+  // which is as long as any ordering decided by that number can be
+  // observed.  Only unequal objects with equal hash codes that
+  // nothing else distinguishes get this far, so contention and size
+  // are not concerns.
+  private static final class TieBreaker {
+
+    private final Map<Integer, List<Sequenced>> buckets;
+
+    private final ReferenceQueue<Object> queue;
+
+    private long next;
+
+    private TieBreaker() {
+      super();
+      this.buckets = new HashMap<>();
+      this.queue = new ReferenceQueue<>();
+    }
+
+    private final synchronized long sequence(final Object o) {
+      this.expunge();
+      final int hashCode = o.hashCode();
+      final List<Sequenced> bucket = this.buckets.computeIfAbsent(hashCode, h -> new ArrayList<>(2));
+      for (final Sequenced s : bucket) {
+        if (s.add(o, this.queue)) {
+          return s.sequence;
+        }
+      }
+      final Sequenced s = new Sequenced(hashCode, this.next++);
+      s.add(o, this.queue);
+      bucket.add(s);
+      return s.sequence;
+    }
+
+    private final void expunge() {
+      Member m;
+      while ((m = (Member)this.queue.poll()) != null) {
+        final Sequenced s = m.owner;
+        s.members.remove(m);
+        if (s.members.isEmpty()) {
+          final List<Sequenced> bucket = this.buckets.get(s.hashCode);
+          bucket.remove(s);
+          if (bucket.isEmpty()) {
+            this.buckets.remove(s.hashCode);
+          }
+        }
+      }
+    }
+
+    // The members ever seen of one class of equal objects.
+    private static final class Sequenced {
+
+      private final int hashCode;
+
+      private final long sequence;
+
+      private final List<Member> members;
+
+      private Sequenced(final int hashCode, final long sequence) {
+        super();
+        this.hashCode = hashCode;
+        this.sequence = sequence;
+        this.members = new ArrayList<>(2);
+      }
+
+      // Returns true, remembering o if it is new, if o is equal to
+      // some live member; or, if there are no members yet, adds o.
+      private final boolean add(final Object o, final ReferenceQueue<Object> queue) {
+        boolean equal = this.members.isEmpty();
+        for (final Member m : this.members) {
+          final Object member = m.get();
+          if (member == o) {
+            return true;
+          } else if (!equal && member != null && member.equals(o)) {
+            equal = true;
+          }
+        }
+        if (equal) {
+          this.members.add(new Member(o, queue, this));
+        }
+        return equal;
+      }
+
+    }
+
+    private static final class Member extends WeakReference<Object> {
+
+      private final Sequenced owner;
+
+      private Member(final Object referent, final ReferenceQueue<Object> queue, final Sequenced owner) {
+        super(referent, queue);
+        this.owner = owner;
+      }
+
+    }
+
+  }
+
+}
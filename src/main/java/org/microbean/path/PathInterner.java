@@ -0,0 +1,279 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.microbean.path.Path.Element;
+
+/**
+ * A concurrent, weakly-referencing table that canonicalizes
+ * {@linkplain Path#equals(Object) equal} {@link Path}s and
+ * {@linkplain Element#equals(Object) equal} {@link Element}s to a
+ * single shared instance.
+ *
+ * <p>Once interned, equal {@link Path}s and {@link Element}s are
+ * identical, so comparing them with {@link Path#equals(Object)} or
+ * {@link Element#equals(Object)} succeeds on the very first identity
+ * check.</p>
+ *
+ * <p>A {@link PathInterner} holds its canonical instances only
+ * weakly.  An interned {@link Path} or {@link Element} that is no
+ * longer otherwise reachable, perhaps because the {@linkplain
+ * Element#qualified() qualified} {@link Class} it refers to is being
+ * unloaded, may be garbage collected, and its entry is then removed
+ * from the table.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Path#intern()
+ *
+ * @see Element#intern()
+ */
+public final class PathInterner {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  // Used by Path#intern() and Element#intern().
+  static final PathInterner INSTANCE = new PathInterner();
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  // Keys and values are the same WeakKey instance.
+  private final ConcurrentMap<Object, WeakKey> map;
+
+  private final ReferenceQueue<Object> queue;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link PathInterner}.
+   *
+   * @see #intern(Path)
+   *
+   * @see #intern(Element)
+   */
+  public PathInterner() {
+    super();
+    this.map = new ConcurrentHashMap<>();
+    this.queue = new ReferenceQueue<>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the canonical {@link Path} {@linkplain
+   * Path#equals(Object) equal to} the supplied {@link Path}, making
+   * the supplied {@link Path} canonical if there is not yet one.
+   *
+   * @param <T> the type of the {@link Path}
+   *
+   * @param path the {@link Path} to intern; must not be {@code null}
+   *
+   * @return the canonical {@link Path}; never {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent but not deterministic:
+   * which of several equal {@link Path}s becomes canonical depends on
+   * the order in which they are interned.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   */
+  public final <T> Path<T> intern(final Path<T> path) {
+    return this.intern0(path);
+  }
+
+  /**
+   * Returns the canonical {@link Element} {@linkplain
+   * Element#equals(Object) equal to} the supplied {@link Element},
+   * making the supplied {@link Element} canonical if there is not yet
+   * one.
+   *
+   * @param <T> the type of the {@link Element}
+   *
+   * @param element the {@link Element} to intern; must not be {@code
+   * null}
+   *
+   * @return the canonical {@link Element}; never {@code null}
+   *
+   * @exception NullPointerException if {@code element} is {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent but not deterministic:
+   * which of several equal {@link Element}s becomes canonical depends
+   * on the order in which they are interned.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   */
+  public final <T> Element<T> intern(final Element<T> element) {
+    return this.intern0(element);
+  }
+
+  /**
+   * Returns an approximation of the number of canonical instances
+   * held by this {@link PathInterner}.
+   *
+   * <p>The number may include instances that have been garbage
+   * collected but whose entries have not yet been removed.</p>
+   *
+   * @return the approximate number of canonical instances held by
+   * this {@link PathInterner}; always {@code 0} or greater
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   */
+  public final int size() {
+    this.expunge();
+    return this.map.size();
+  }
+
+  @SuppressWarnings("unchecked")
+  private final <X> X intern0(final X object) {
+    this.expunge();
+    final Object canonical = this.map.get(new Lookup(object));
+    if (canonical != null) {
+      final Object referent = ((WeakKey)canonical).get();
+      if (referent != null) {
+        return (X)referent;
+      }
+    }
+    final WeakKey key = new WeakKey(object, this.queue);
+    while (true) {
+      final WeakKey existing = this.map.putIfAbsent(key, key);
+      if (existing == null) {
+        return object;
+      }
+      final Object referent = existing.get();
+      if (referent != null) {
+        return (X)referent;
+      }
+      // The existing canonical instance was collected but its entry
+      // has not yet been expunged.  Remove it and try again.
+      this.map.remove(existing, existing);
+    }
+  }
+
+  private final void expunge() {
+    Reference<?> r;
+    while ((r = this.queue.poll()) != null) {
+      this.map.remove(r, r);
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  // A weak reference to a canonical instance that is equal to any
+  // other WeakKey or Lookup whose referent is equal to its own.  Its
+  // hashcode is captured eagerly so that the entry can still be found
+  // and removed after the referent has been collected.
+  private static final class WeakKey extends WeakReference<Object> {
+
+    private final int hashCode;
+
+    private WeakKey(final Object referent, final ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.hashCode = referent.hashCode();
+    }
+
+    @Override // Object
+    public final int hashCode() {
+      return this.hashCode;
+    }
+
+    @Override // Object
+    public final boolean equals(final Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof WeakKey her) {
+        if (this.hashCode != her.hashCode) {
+          return false;
+        }
+        final Object referent = this.get();
+        return referent != null && referent.equals(her.get());
+      } else {
+        return false;
+      }
+    }
+
+  }
+
+  // A short-lived, strongly-referencing probe used to look up an
+  // existing canonical instance without allocating a WeakKey.
+  private static final class Lookup {
+
+    private final Object referent;
+
+    private final int hashCode;
+
+    private Lookup(final Object referent) {
+      super();
+      this.referent = referent;
+      this.hashCode = referent.hashCode();
+    }
+
+    @Override // Object
+    public final int hashCode() {
+      return this.hashCode;
+    }
+
+    @Override // Object
+    public final boolean equals(final Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof WeakKey her) {
+        return this.hashCode == her.hashCode && this.referent.equals(her.get());
+      } else {
+        return false;
+      }
+    }
+
+  }
+
+}
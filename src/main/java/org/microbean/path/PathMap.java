@@ -0,0 +1,410 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import java.util.function.BiConsumer;
+
+import org.microbean.path.Path.Element;
+
+/**
+ * A mutable, open-addressing hash map specialized for {@link Path}
+ * keys.
+ *
+ * <p>Keys are compared using {@link Path#equals(Object)}, exactly as a
+ * {@link java.util.HashMap} would compare them, but a {@link PathMap}
+ * differs from a {@code HashMap<Path<?>, V>} in the following
+ * ways:</p>
+ *
+ * <ul>
+ *
+ * <li>Keys, values and hash codes are held in parallel arrays, so no
+ * entry object is allocated per mapping.</li>
+ *
+ * <li>The hash code of each key is stored beside it, so a collision
+ * with a different hash code is rejected without touching the
+ * key.</li>
+ *
+ * <li>Candidate keys are compared by size and {@linkplain
+ * Path#lastElement() last element} first, since the last element
+ * customarily carries the most distinguishing data, before a full
+ * comparison is made.</li>
+ *
+ * <li>A value may be {@linkplain #get(Path, Element) looked up} by a
+ * parent {@link Path} and a last {@link Element}, without creating
+ * the {@link Path} that {@linkplain Path#plus(Element) would result}
+ * from combining them.</li>
+ *
+ * </ul>
+ *
+ * <p>A {@link PathMap} does not implement {@link java.util.Map}, whose
+ * contract requires entry objects.  Values must not be {@code
+ * null}.</p>
+ *
+ * <p>{@link PathMap} instances are not safe for concurrent use by
+ * multiple threads without external synchronization.</p>
+ *
+ * @param <V> the type of value
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class PathMap<V> {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  private static final int MINIMUM_CAPACITY = 8;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private int[] hashes;
+
+  private Path<?>[] keys;
+
+  private Object[] values;
+
+  private int size;
+
+  // The size at which the tables are doubled; two thirds of their
+  // length.
+  private int threshold;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link PathMap}.
+   */
+  public PathMap() {
+    this(MINIMUM_CAPACITY);
+  }
+
+  /**
+   * Creates a new, empty {@link PathMap} that can hold the supplied
+   * number of mappings without resizing.
+   *
+   * @param expectedSize the expected number of mappings; must not be
+   * negative
+   *
+   * @exception IllegalArgumentException if {@code expectedSize} is
+   * negative
+   */
+  public PathMap(final int expectedSize) {
+    super();
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize: " + expectedSize);
+    }
+    int capacity = MINIMUM_CAPACITY;
+    while (capacity * 2 / 3 < expectedSize) {
+      capacity <<= 1;
+    }
+    this.allocate(capacity);
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of mappings in this {@link PathMap}.
+   *
+   * @return the number of mappings in this {@link PathMap}
+   */
+  public final int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns {@code true} if this {@link PathMap} has no mappings.
+   *
+   * @return {@code true} if this {@link PathMap} has no mappings
+   */
+  public final boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the value mapped to the supplied {@link Path}, or {@code
+   * null} if there is none.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the value mapped to the supplied {@link Path}, or {@code
+   * null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  @SuppressWarnings("unchecked")
+  public final V get(final Path<?> path) {
+    final int index = this.indexOf(path);
+    return index < 0 ? null : (V)this.values[index];
+  }
+
+  /**
+   * Returns the value mapped to the {@link Path} that would result
+   * from {@linkplain Path#plus(Element) appending} the supplied
+   * {@link Element} to the supplied parent {@link Path}, or {@code
+   * null} if there is none.
+   *
+   * <p>This method behaves exactly like {@code
+   * get(parent.plus(lastElement))}, but does not create that {@link
+   * Path}, except in the rare case that a candidate key has the same
+   * {@link Element}s as, but different supplied qualifiers than, the
+   * parent.</p>
+   *
+   * @param parent the parent {@link Path}; must not be {@code null}
+   *
+   * @param lastElement the last {@link Element}; must not be {@code
+   * null}
+   *
+   * @return the mapped value, or {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  @SuppressWarnings("unchecked")
+  public final V get(final Path<?> parent, final Element<?> lastElement) {
+    // Mirrors Path#hashCode() for parent.plus(lastElement), which is
+    // never transliterated.
+    final int hash = spread(Path.pathHashCode(31 * parent.elementsHashCode() + lastElement.hashCode(), false));
+    final int[] hashes = this.hashes;
+    final Path<?>[] keys = this.keys;
+    final int mask = keys.length - 1;
+    for (int i = hash & mask; ; i = (i + 1) & mask) {
+      final Path<?> key = keys[i];
+      if (key == null) {
+        return null;
+      } else if (hashes[i] == hash && key.equalsAppended(parent, lastElement)) {
+        return (V)this.values[i];
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if this {@link PathMap} contains a mapping
+   * for the supplied {@link Path}.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return {@code true} if this {@link PathMap} contains a mapping
+   * for the supplied {@link Path}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   */
+  public final boolean containsKey(final Path<?> path) {
+    return this.indexOf(path) >= 0;
+  }
+
+  /**
+   * Maps the supplied {@link Path} to the supplied value and returns
+   * the value previously mapped to it, if any.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @return the previous value, or {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  @SuppressWarnings("unchecked")
+  public final V put(final Path<?> path, final V value) {
+    Objects.requireNonNull(value, "value");
+    final int hash = spread(path.hashCode());
+    final int[] hashes = this.hashes;
+    final Path<?>[] keys = this.keys;
+    final int mask = keys.length - 1;
+    int i = hash & mask;
+    for (Path<?> key = keys[i]; key != null; key = keys[i = (i + 1) & mask]) {
+      if (hashes[i] == hash && keyEquals(key, path)) {
+        final V old = (V)this.values[i];
+        this.values[i] = value;
+        return old;
+      }
+    }
+    hashes[i] = hash;
+    keys[i] = path;
+    this.values[i] = value;
+    if (++this.size > this.threshold) {
+      this.resize();
+    }
+    return null;
+  }
+
+  /**
+   * Removes the mapping for the supplied {@link Path}, if any, and
+   * returns its value.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the removed value, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  @SuppressWarnings("unchecked")
+  public final V remove(final Path<?> path) {
+    int i = this.indexOf(path);
+    if (i < 0) {
+      return null;
+    }
+    final V old = (V)this.values[i];
+    final int[] hashes = this.hashes;
+    final Path<?>[] keys = this.keys;
+    final Object[] values = this.values;
+    final int mask = keys.length - 1;
+    // Backward-shift deletion: move later members of the probe run
+    // into the hole so that no tombstones are needed.
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (keys[j] == null) {
+        break;
+      }
+      final int home = hashes[j] & mask;
+      // Move j into i unless j's home lies cyclically in (i, j].
+      if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+        hashes[i] = hashes[j];
+        keys[i] = keys[j];
+        values[i] = values[j];
+        i = j;
+      }
+    }
+    keys[i] = null;
+    values[i] = null;
+    hashes[i] = 0;
+    --this.size;
+    return old;
+  }
+
+  /**
+   * Removes all mappings from this {@link PathMap}.
+   */
+  public final void clear() {
+    Arrays.fill(this.hashes, 0);
+    Arrays.fill(this.keys, null);
+    Arrays.fill(this.values, null);
+    this.size = 0;
+  }
+
+  /**
+   * Supplies each mapping in this {@link PathMap} to the supplied
+   * {@link BiConsumer}, in no particular order.
+   *
+   * @param action the {@link BiConsumer}; must not be {@code null}
+   *
+   * @exception NullPointerException if {@code action} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public final void forEach(final BiConsumer<? super Path<?>, ? super V> action) {
+    final Path<?>[] keys = this.keys;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        action.accept(keys[i], (V)this.values[i]);
+      }
+    }
+  }
+
+  private final int indexOf(final Path<?> path) {
+    final int hash = spread(path.hashCode());
+    final int[] hashes = this.hashes;
+    final Path<?>[] keys = this.keys;
+    final int mask = keys.length - 1;
+    for (int i = hash & mask; ; i = (i + 1) & mask) {
+      final Path<?> key = keys[i];
+      if (key == null) {
+        return -1;
+      } else if (hashes[i] == hash && keyEquals(key, path)) {
+        return i;
+      }
+    }
+  }
+
+  private final void allocate(final int capacity) {
+    this.hashes = new int[capacity];
+    this.keys = new Path<?>[capacity];
+    this.values = new Object[capacity];
+    this.threshold = capacity * 2 / 3;
+  }
+
+  private final void resize() {
+    final int[] oldHashes = this.hashes;
+    final Path<?>[] oldKeys = this.keys;
+    final Object[] oldValues = this.values;
+    this.allocate(oldKeys.length << 1);
+    final int[] hashes = this.hashes;
+    final Path<?>[] keys = this.keys;
+    final Object[] values = this.values;
+    final int mask = keys.length - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != null) {
+        int i = oldHashes[j] & mask;
+        while (keys[i] != null) {
+          i = (i + 1) & mask;
+        }
+        hashes[i] = oldHashes[j];
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  private static final boolean keyEquals(final Path<?> key, final Path<?> path) {
+    return
+      key == path ||
+      key.size() == path.size() &&
+      key.lastElement().equals(path.lastElement()) &&
+      key.equals(path);
+  }
+
+  // Path hash codes are built from 31- and 37-based polynomials whose
+  // low bits vary poorly; mix them before masking.
+  private static final int spread(final int h) {
+    final int x = h * 0x9E3779B9;
+    return x ^ (x >>> 16);
+  }
+
+}
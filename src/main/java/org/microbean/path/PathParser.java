@@ -0,0 +1,329 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.lang.reflect.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import java.util.function.Function;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+/**
+ * Renders {@link Path}s and {@link Element}s to, and parses them
+ * from, their {@linkplain Path#toString() textual representation}.
+ *
+ * <p>The grammar is:</p>
+ *
+ * <pre>
+ * path       = element *( "/" element ) [ "{" qualifiers "}" ]
+ * element    = [ qualified ":" ] name [ "[" qualifiers "]" ]
+ * qualifiers = qualifier *( "," qualifier )
+ * qualifier  = key "=" value</pre>
+ *
+ * <p>Within {@code qualified} and {@code name} tokens, the characters
+ * {@code \ / : [ ] { }} are escaped with a preceding backslash.
+ * Within {@code key} and {@code value} tokens, the characters {@code
+ * \ = , [ ] { }} are.  Any other character following a backslash
+ * stands for itself.</p>
+ *
+ * <p>Instances of this class parse using a single cursor over the
+ * input and are not safe for concurrent use.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class PathParser {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  private static final String ELEMENT_SPECIALS = "\\/:[]{}";
+
+  private static final String QUALIFIER_SPECIALS = "\\=,[]{}";
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final CharSequence cs;
+
+  private final int length;
+
+  private final Function<? super String, ?> resolver;
+
+  private final StringBuilder token;
+
+  private int i;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  PathParser(final CharSequence cs, final Function<? super String, ?> resolver) {
+    super();
+    this.cs = Objects.requireNonNull(cs, "cs");
+    this.length = cs.length();
+    this.resolver = Objects.requireNonNull(resolver, "resolver");
+    this.token = new StringBuilder();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  final Path<?> parsePath() {
+    final List<Element<?>> elements = new ArrayList<>();
+    Element<?> element = this.element();
+    while (this.i < this.length && this.cs.charAt(this.i) == '/') {
+      ++this.i;
+      elements.add(element);
+      element = this.element();
+    }
+    final Qualifiers<String, Object> qualifiers;
+    if (this.i < this.length && this.cs.charAt(this.i) == '{') {
+      ++this.i;
+      qualifiers = this.qualifiers('}');
+    } else {
+      qualifiers = Qualifiers.of();
+    }
+    this.expectEnd();
+    return Path.of(qualifiers, elements, element);
+  }
+
+  final Element<?> parseElement() {
+    final Element<?> element = this.element();
+    this.expectEnd();
+    return element;
+  }
+
+  private final Element<?> element() {
+    final Object qualified;
+    String name = this.token(ELEMENT_SPECIALS);
+    if (this.i < this.length && this.cs.charAt(this.i) == ':') {
+      ++this.i;
+      qualified = this.resolver.apply(name);
+      name = this.token(ELEMENT_SPECIALS);
+      if (this.i < this.length && this.cs.charAt(this.i) == ':') {
+        throw this.unexpected();
+      }
+    } else {
+      qualified = null;
+    }
+    final Qualifiers<String, Object> qualifiers;
+    if (this.i < this.length && this.cs.charAt(this.i) == '[') {
+      ++this.i;
+      qualifiers = this.qualifiers(']');
+    } else {
+      qualifiers = Qualifiers.of();
+    }
+    if (qualified == null && name.isEmpty() && qualifiers.isEmpty()) {
+      // The root element is the only element that may have an empty
+      // name and no qualified object.
+      return Element.root();
+    }
+    return Element.of(qualifiers, qualified, name);
+  }
+
+  // Parses qualifiers up to and including the supplied closing
+  // character, which has already been opened.
+  private final Qualifiers<String, Object> qualifiers(final char close) {
+    final List<Qualifier<String, Object>> qualifiers = new ArrayList<>();
+    while (true) {
+      final String key = this.token(QUALIFIER_SPECIALS);
+      if (key.isEmpty() || this.i >= this.length || this.cs.charAt(this.i) != '=') {
+        throw this.unexpected();
+      }
+      ++this.i;
+      qualifiers.add(Qualifier.of(key, this.token(QUALIFIER_SPECIALS)));
+      if (this.i >= this.length) {
+        throw this.unexpected();
+      }
+      final char c = this.cs.charAt(this.i++);
+      if (c == close) {
+        return Qualifiers.of(qualifiers);
+      } else if (c != ',') {
+        --this.i;
+        throw this.unexpected();
+      }
+    }
+  }
+
+  // Reads characters up to the next unescaped special character (or
+  // the end of input), unescaping as it goes, and leaves the cursor
+  // on the special character.
+  private final String token(final String specials) {
+    final StringBuilder token = this.token;
+    token.setLength(0);
+    while (this.i < this.length) {
+      final char c = this.cs.charAt(this.i);
+      if (c == '\\') {
+        if (++this.i >= this.length) {
+          throw new IllegalArgumentException("Dangling escape at index " + (this.i - 1) + ": " + this.cs);
+        }
+        token.append(this.cs.charAt(this.i++));
+      } else if (specials.indexOf(c) >= 0) {
+        break;
+      } else {
+        token.append(c);
+        ++this.i;
+      }
+    }
+    return token.toString();
+  }
+
+  private final void expectEnd() {
+    if (this.i != this.length) {
+      throw this.unexpected();
+    }
+  }
+
+  private final IllegalArgumentException unexpected() {
+    return new IllegalArgumentException(this.i < this.length ?
+                                        "Unexpected '" + this.cs.charAt(this.i) + "' at index " + this.i + ": " + this.cs :
+                                        "Unexpected end of input: " + this.cs);
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  // Returns the exact length of the rendering appendPath(StringBuilder,
+  // Path) would produce, using (and caching) each element's rendering.
+  static final int pathLength(final Path<?> path) {
+    final Path<?> flat = path.flat();
+    int length = flat.size() - 1;
+    for (int i = 0; i < flat.size(); i++) {
+      length += flat.elementAt(i).toString().length();
+    }
+    return length + qualifiersLength(path.suppliedQualifiers());
+  }
+
+  // Appends path using each element's cached rendering.
+  static final void appendPath(final StringBuilder sb, final Path<?> path) {
+    final Path<?> flat = path.flat();
+    for (int i = 0; i < flat.size(); i++) {
+      if (i > 0) {
+        sb.append('/');
+      }
+      sb.append(flat.elementAt(i).toString());
+    }
+    appendQualifiers(sb, path.suppliedQualifiers(), '{', '}');
+  }
+
+  static final String renderElement(final Element<?> element) {
+    final Object qualified = element.qualified();
+    if (qualified == null && element.qualifiers().isEmpty() && !needsEscaping(element.name(), ELEMENT_SPECIALS)) {
+      // The overwhelmingly common case: nothing to add or escape.
+      return element.name();
+    }
+    final StringBuilder sb = new StringBuilder();
+    if (qualified != null) {
+      // Handle the extremely common case that qualified is a Type.
+      appendEscaped(sb, qualified instanceof Type t ? t.getTypeName() : String.valueOf(qualified), ELEMENT_SPECIALS);
+      sb.append(':');
+    }
+    appendEscaped(sb, element.name(), ELEMENT_SPECIALS);
+    appendQualifiers(sb, element.qualifiers(), '[', ']');
+    return sb.toString();
+  }
+
+  // Returns the exact length of the rendering appendQualifiers would
+  // produce for the supplied qualifiers, including delimiters.
+  private static final int qualifiersLength(final Qualifiers<String, Object> qualifiers) {
+    if (qualifiers.isEmpty()) {
+      return 0;
+    }
+    // Delimiters, plus a '=' per qualifier and a ',' between each pair.
+    int length = 2 + qualifiers.size() * 2 - 1;
+    for (final Qualifier<String, Object> q : qualifiers) {
+      length += escapedLength(q.name(), QUALIFIER_SPECIALS) + escapedLength(String.valueOf(q.value()), QUALIFIER_SPECIALS);
+    }
+    return length;
+  }
+
+  private static final void appendQualifiers(final StringBuilder sb,
+                                             final Qualifiers<String, Object> qualifiers,
+                                             final char open,
+                                             final char close) {
+    if (!qualifiers.isEmpty()) {
+      sb.append(open);
+      boolean first = true;
+      for (final Qualifier<String, Object> q : qualifiers) {
+        if (first) {
+          first = false;
+        } else {
+          sb.append(',');
+        }
+        appendEscaped(sb, q.name(), QUALIFIER_SPECIALS);
+        sb.append('=');
+        appendEscaped(sb, String.valueOf(q.value()), QUALIFIER_SPECIALS);
+      }
+      sb.append(close);
+    }
+  }
+
+  private static final boolean needsEscaping(final String s, final String specials) {
+    final int length = s.length();
+    for (int i = 0; i < length; i++) {
+      if (specials.indexOf(s.charAt(i)) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final int escapedLength(final String s, final String specials) {
+    final int length = s.length();
+    int escapedLength = length;
+    for (int i = 0; i < length; i++) {
+      if (specials.indexOf(s.charAt(i)) >= 0) {
+        ++escapedLength;
+      }
+    }
+    return escapedLength;
+  }
+
+  private static final void appendEscaped(final StringBuilder sb, final String s, final String specials) {
+    final int length = s.length();
+    for (int i = 0; i < length; i++) {
+      final char c = s.charAt(i);
+      if (specials.indexOf(c) >= 0) {
+        sb.append('\\');
+      }
+      sb.append(c);
+    }
+  }
+
+}
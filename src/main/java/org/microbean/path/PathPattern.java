@@ -0,0 +1,469 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifier;
+
+/**
+ * A compiled, glob-style pattern that {@linkplain #matches(Path)
+ * matches} {@link Path}s by the {@linkplain Element#name() names} and
+ * {@linkplain Element#qualifiers() qualifiers} of their {@link
+ * Element}s.
+ *
+ * <p>A pattern consists of <em>segments</em> separated by {@code /}
+ * characters.  Each segment matches {@link Element}s as follows:</p>
+ *
+ * <ul>
+ *
+ * <li>{@code **} matches zero or more {@link Element}s.</li>
+ *
+ * <li>Any other segment matches exactly one {@link Element}.  It
+ * consists of a <em>name glob</em>, optionally followed by a
+ * bracketed, comma-separated list of <em>qualifier constraints</em>
+ * of the form <code><em>name</em>=<em>value glob</em></code>, as in
+ * {@code bean*[env=prod,region=us-*]}.  The name glob is matched
+ * against the {@link Element}'s {@linkplain Element#name() name}.
+ * Each qualifier constraint requires the {@link Element} to bear a
+ * {@linkplain Element#qualifiers() qualifier} with the given name
+ * whose {@linkplain String#valueOf(Object) string value} matches the
+ * value glob.</li>
+ *
+ * </ul>
+ *
+ * <p>Within globs, {@code *} matches any run of characters, including
+ * an empty one, and {@code ?} matches any single character.  A
+ * backslash ({@code \}) causes the character following it to be taken
+ * literally.</p>
+ *
+ * <p>Matching is anchored: a pattern {@linkplain #matches(Path)
+ * matches} a {@link Path} only if it accounts for all of the {@link
+ * Path}'s {@link Element}s.  As with {@link Path#toString()}, the
+ * {@linkplain Path#root() root element} has an empty name, so the
+ * pattern {@code /a/**} matches {@link Path}s that begin with the root
+ * element followed by an element named {@code a}.  A {@link Path}'s
+ * own {@linkplain Path#qualifiers() qualifiers} do not
+ * participate.</p>
+ *
+ * <p>To match one {@link Path} against many patterns at once, use a
+ * {@link PathPatternSet}.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are immutable and safe for
+ * concurrent use by multiple threads.
+ *
+ * @see #compile(String)
+ *
+ * @see PathPatternSet
+ */
+public final class PathPattern {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final String pattern;
+
+  final Segment[] segments;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private PathPattern(final String pattern, final Segment[] segments) {
+    super();
+    this.pattern = pattern;
+    this.segments = segments;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns {@code true} if this {@link PathPattern} matches the
+   * supplied {@link Path}.
+   *
+   * <p>This method simulates the automaton this {@link PathPattern}
+   * was compiled into, and so costs at most time proportional to the
+   * product of the {@link Path}'s {@linkplain Path#size() size} and
+   * the number of segments in this {@link PathPattern}, without
+   * backtracking.</p>
+   *
+   * @param path the {@link Path} to test; must not be {@code null}
+   *
+   * @return {@code true} if this {@link PathPattern} matches the
+   * supplied {@link Path}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final boolean matches(final Path<?> path) {
+    final Segment[] segments = this.segments;
+    final int m = segments.length;
+    boolean[] active = new boolean[m + 1];
+    boolean[] next = new boolean[m + 1];
+    active[0] = true;
+    closure(segments, active);
+    final Path<?> flat = path.flat();
+    for (int k = 0; k < flat.size(); k++) {
+      final Element<?> e = flat.elementAt(k);
+      boolean any = false;
+      for (int i = 0; i < m; i++) {
+        if (active[i]) {
+          if (segments[i].anyDepth) {
+            // A ** segment consumes the element and stays put.
+            next[i] = true;
+            any = true;
+          } else if (segments[i].matches(e)) {
+            next[i + 1] = true;
+            any = true;
+          }
+        }
+      }
+      if (!any) {
+        return false;
+      }
+      closure(segments, next);
+      final boolean[] temp = active;
+      active = next;
+      next = temp;
+      Arrays.fill(next, false);
+    }
+    return active[m];
+  }
+
+  /**
+   * Returns a hash code for this {@link PathPattern}.
+   *
+   * @return a hash code for this {@link PathPattern}
+   */
+  @Override // Object
+  public final int hashCode() {
+    return this.pattern.hashCode();
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is a {@link
+   * PathPattern} compiled from the same pattern text.
+   *
+   * @param other the {@link Object} to test; may be {@code null}
+   *
+   * @return {@code true} if the supplied {@link Object} is a {@link
+   * PathPattern} compiled from the same pattern text
+   */
+  @Override // Object
+  public final boolean equals(final Object other) {
+    return other == this || other instanceof PathPattern her && this.pattern.equals(her.pattern);
+  }
+
+  /**
+   * Returns the pattern text from which this {@link PathPattern} was
+   * {@linkplain #compile(String) compiled}.
+   *
+   * @return the pattern text from which this {@link PathPattern} was
+   * {@linkplain #compile(String) compiled}; never {@code null}
+   */
+  @Override // Object
+  public final String toString() {
+    return this.pattern;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Compiles the supplied pattern text into a {@link PathPattern}.
+   *
+   * @param pattern the pattern text; must not be {@code null}
+   *
+   * @return a new {@link PathPattern}; never {@code null}
+   *
+   * @exception NullPointerException if {@code pattern} is {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code pattern} is
+   * malformed
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @threadsafety This method is safe for concurrent use by multiple
+   * threads.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public static final PathPattern compile(final String pattern) {
+    final List<Segment> segments = new ArrayList<>();
+    final int length = pattern.length();
+    int start = 0;
+    boolean bracketed = false;
+    for (int i = 0; i < length; i++) {
+      final char c = pattern.charAt(i);
+      if (c == '\\') {
+        ++i;
+      } else if (c == '[') {
+        bracketed = true;
+      } else if (c == ']') {
+        bracketed = false;
+      } else if (c == '/' && !bracketed) {
+        segments.add(Segment.parse(pattern, start, i));
+        start = i + 1;
+      }
+    }
+    segments.add(Segment.parse(pattern, start, length));
+    return new PathPattern(pattern, segments.toArray(new Segment[0]));
+  }
+
+  // Adds the states reachable from active states without consuming
+  // an element: a ** segment may match nothing.  State i means
+  // "segments 0..i-1 have been matched"; state segments.length
+  // accepts.
+  private static final void closure(final Segment[] segments, final boolean[] active) {
+    for (int i = 0; i < segments.length; i++) {
+      if (active[i] && segments[i].anyDepth) {
+        active[i + 1] = true;
+      }
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  // A compiled pattern segment.  Package-private for use by
+  // PathPatternSet.
+  static final class Segment {
+
+    // The segment as written; equal texts denote equal segments.
+    final String source;
+
+    // True if this segment is **.
+    final boolean anyDepth;
+
+    // The element name this segment requires, if its name glob
+    // contains no wildcards; null otherwise.
+    final String literalName;
+
+    private final Glob name;
+
+    private final String[] qualifierNames;
+
+    private final Glob[] qualifierValues;
+
+    private Segment(final String source,
+                    final boolean anyDepth,
+                    final Glob name,
+                    final String[] qualifierNames,
+                    final Glob[] qualifierValues) {
+      super();
+      this.source = source;
+      this.anyDepth = anyDepth;
+      this.name = name;
+      this.literalName = name == null ? null : name.literal();
+      this.qualifierNames = qualifierNames;
+      this.qualifierValues = qualifierValues;
+    }
+
+    final boolean matches(final Element<?> e) {
+      if (this.anyDepth) {
+        return true;
+      }
+      if (this.literalName == null ? !this.name.matches(e.name()) : !this.literalName.equals(e.name())) {
+        return false;
+      }
+      for (int i = 0; i < this.qualifierNames.length; i++) {
+        if (!this.qualifierMatches(e, i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private final boolean qualifierMatches(final Element<?> e, final int i) {
+      final String qualifierName = this.qualifierNames[i];
+      for (final Qualifier<String, Object> q : e.qualifiers()) {
+        if (qualifierName.equals(q.name()) && this.qualifierValues[i].matches(String.valueOf(q.value()))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static final Segment parse(final String pattern, final int start, final int end) {
+      final String source = pattern.substring(start, end);
+      if (source.equals("**")) {
+        return new Segment(source, true, null, new String[0], new Glob[0]);
+      }
+      final int[] cursor = { start };
+      final Glob name = Glob.parse(pattern, cursor, end, "[");
+      int i = cursor[0];
+      final StringBuilder sb = new StringBuilder();
+      final List<String> qualifierNames = new ArrayList<>();
+      final List<Glob> qualifierValues = new ArrayList<>();
+      if (i < end) {
+        // pattern.charAt(i) == '['
+        ++i;
+        boolean closed = false;
+        while (i < end && !closed) {
+          sb.setLength(0);
+          while (i < end && pattern.charAt(i) != '=') {
+            char c = pattern.charAt(i++);
+            if (c == '\\' && i < end) {
+              c = pattern.charAt(i++);
+            } else if (c == ',' || c == ']' || c == '[') {
+              throw new IllegalArgumentException("Missing '=' in qualifier constraint at index " + (i - 1) + ": " + pattern);
+            }
+            sb.append(c);
+          }
+          if (i >= end || sb.length() == 0) {
+            throw new IllegalArgumentException("Malformed qualifier constraint at index " + i + ": " + pattern);
+          }
+          ++i; // skip '='
+          qualifierNames.add(sb.toString());
+          cursor[0] = i;
+          qualifierValues.add(Glob.parse(pattern, cursor, end, ",]"));
+          i = cursor[0];
+          if (i >= end) {
+            throw new IllegalArgumentException("Unterminated qualifier constraints: " + pattern);
+          }
+          closed = pattern.charAt(i++) == ']';
+        }
+        if (!closed || i != end) {
+          throw new IllegalArgumentException("Malformed qualifier constraints at index " + i + ": " + pattern);
+        }
+      }
+      return new Segment(source, false, name, qualifierNames.toArray(new String[0]), qualifierValues.toArray(new Glob[0]));
+    }
+
+  }
+
+  // A compiled name or value glob.
+  private static final class Glob {
+
+    private static final char LITERAL = 0;
+
+    private static final char ANY_RUN = 1;
+
+    private static final char ANY_ONE = 2;
+
+    private final char[] chars;
+
+    private final char[] kinds;
+
+    private Glob(final char[] chars, final char[] kinds) {
+      super();
+      this.chars = chars;
+      this.kinds = kinds;
+    }
+
+    // Returns the literal text this Glob matches, or null if it
+    // contains wildcards.
+    private final String literal() {
+      for (final char kind : this.kinds) {
+        if (kind != LITERAL) {
+          return null;
+        }
+      }
+      return new String(this.chars);
+    }
+
+    // Standard linear-space wildcard matching; backtracks only to the
+    // most recent *.
+    private final boolean matches(final String s) {
+      final char[] chars = this.chars;
+      final char[] kinds = this.kinds;
+      final int n = chars.length;
+      final int length = s.length();
+      int p = 0;
+      int i = 0;
+      int starP = -1;
+      int starI = -1;
+      while (i < length) {
+        if (p < n && kinds[p] == ANY_RUN) {
+          starP = p++;
+          starI = i;
+        } else if (p < n && (kinds[p] == ANY_ONE || chars[p] == s.charAt(i))) {
+          ++p;
+          ++i;
+        } else if (starP >= 0) {
+          p = starP + 1;
+          i = ++starI;
+        } else {
+          return false;
+        }
+      }
+      while (p < n && kinds[p] == ANY_RUN) {
+        ++p;
+      }
+      return p == n;
+    }
+
+    // Parses a glob from pattern starting at cursor[0] and stopping at
+    // end or at the first unescaped character in terminators, leaving
+    // cursor[0] at the stopping position.
+    private static final Glob parse(final String pattern, final int[] cursor, final int end, final String terminators) {
+      final StringBuilder chars = new StringBuilder();
+      final StringBuilder kinds = new StringBuilder();
+      int i = cursor[0];
+      while (i < end) {
+        char c = pattern.charAt(i);
+        if (terminators.indexOf(c) >= 0) {
+          break;
+        }
+        ++i;
+        char kind = LITERAL;
+        if (c == '\\') {
+          if (i >= end) {
+            throw new IllegalArgumentException("Dangling escape at index " + (i - 1) + ": " + pattern);
+          }
+          c = pattern.charAt(i++);
+        } else if (c == '*') {
+          kind = ANY_RUN;
+        } else if (c == '?') {
+          kind = ANY_ONE;
+        } else if (c == ']' || c == '[') {
+          throw new IllegalArgumentException("Unexpected '" + c + "' at index " + (i - 1) + ": " + pattern);
+        }
+        chars.append(c);
+        kinds.append(kind);
+      }
+      cursor[0] = i;
+      return new Glob(chars.toString().toCharArray(), kinds.toString().toCharArray());
+    }
+
+  }
+
+}
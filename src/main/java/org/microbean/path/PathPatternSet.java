@@ -0,0 +1,437 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.path.PathPattern.Segment;
+
+/**
+ * An immutable set of {@link PathPattern}s that determines which of
+ * them match a given {@link Path} in a single pass over the {@link
+ * Path}'s {@link Element}s.
+ *
+ * <p>The {@link PathPattern}s are merged into one automaton whose
+ * states are shared wherever patterns share leading segments, in the
+ * manner of an Aho–Corasick trie.  Transitions on literal element
+ * names are resolved by hashing rather than by testing each pattern,
+ * so the cost of {@linkplain #matching(Path) matching} a {@link Path}
+ * depends on the number of automaton states active at each step, not
+ * on the number of {@link PathPattern}s in the set.</p>
+ *
+ * <p>As with {@link PathPattern#matches(Path)}, matching is anchored:
+ * a {@link PathPattern} matches only if it accounts for all of a
+ * {@link Path}'s {@link Element}s.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are immutable and safe for
+ * concurrent use by multiple threads.
+ *
+ * @see PathPattern
+ */
+public final class PathPatternSet {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final List<PathPattern> patterns;
+
+  private final Node root;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private PathPatternSet(final List<PathPattern> patterns) {
+    super();
+    this.patterns = patterns;
+    final Builder builder = new Builder();
+    for (int i = 0; i < patterns.size(); i++) {
+      builder.add(patterns.get(i), i);
+    }
+    this.root = builder.root.freeze();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns an immutable {@link List} of the {@link PathPattern}s in
+   * this {@link PathPatternSet}, in the order in which they were
+   * supplied.
+   *
+   * @return an immutable {@link List} of {@link PathPattern}s; never
+   * {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final List<PathPattern> patterns() {
+    return this.patterns;
+  }
+
+  /**
+   * Returns the number of {@link PathPattern}s in this {@link
+   * PathPatternSet}.
+   *
+   * @return the number of {@link PathPattern}s in this {@link
+   * PathPatternSet}
+   */
+  public final int size() {
+    return this.patterns.size();
+  }
+
+  /**
+   * Returns {@code true} if any {@link PathPattern} in this {@link
+   * PathPatternSet} matches the supplied {@link Path}.
+   *
+   * @param path the {@link Path} to test; must not be {@code null}
+   *
+   * @return {@code true} if any {@link PathPattern} in this {@link
+   * PathPatternSet} matches the supplied {@link Path}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final boolean matchesAny(final Path<?> path) {
+    for (final Node node : this.run(path)) {
+      if (node.accepting.length > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the zero-based indices, within the {@linkplain
+   * #patterns() list of patterns}, of those {@link PathPattern}s that
+   * match the supplied {@link Path}.
+   *
+   * @param path the {@link Path} to test; must not be {@code null}
+   *
+   * @return a new {@link BitSet} of indices; never {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final BitSet matchingIndices(final Path<?> path) {
+    final BitSet indices = new BitSet(this.patterns.size());
+    for (final Node node : this.run(path)) {
+      for (final int index : node.accepting) {
+        indices.set(index);
+      }
+    }
+    return indices;
+  }
+
+  /**
+   * Returns an immutable {@link List} of the {@link PathPattern}s in
+   * this {@link PathPatternSet} that match the supplied {@link Path},
+   * in the order in which they were supplied.
+   *
+   * @param path the {@link Path} to test; must not be {@code null}
+   *
+   * @return an immutable {@link List} of matching {@link
+   * PathPattern}s; never {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final List<PathPattern> matching(final Path<?> path) {
+    final BitSet indices = this.matchingIndices(path);
+    final List<PathPattern> matching = new ArrayList<>(indices.cardinality());
+    for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+      matching.add(this.patterns.get(i));
+    }
+    return List.copyOf(matching);
+  }
+
+  // Simulates the automaton over the supplied Path and returns the
+  // states active after its last element.  Everything allocated here
+  // is sized by the number of states active at once, not by the
+  // number of states in the automaton.
+  private final List<Node> run(final Path<?> path) {
+    final NodeSet marks = new NodeSet();
+    List<Node> active = new ArrayList<>();
+    List<Node> next = new ArrayList<>();
+    add(this.root, active, marks);
+    final Path<?> flat = path.flat();
+    for (int i = 0; i < flat.size(); i++) {
+      final Element<?> e = flat.elementAt(i);
+      marks.clear();
+      for (final Node node : active) {
+        if (node.anyDepth) {
+          // A ** state consumes the element and stays put.
+          add(node, next, marks);
+        }
+        final Node[] literal = node.literalChildren.get(e.name());
+        if (literal != null) {
+          for (final Node child : literal) {
+            if (child.segment.matches(e)) {
+              add(child, next, marks);
+            }
+          }
+        }
+        for (final Node child : node.otherChildren) {
+          if (child.segment.matches(e)) {
+            add(child, next, marks);
+          }
+        }
+      }
+      if (next.isEmpty()) {
+        return next;
+      }
+      final List<Node> previous = active;
+      active = next;
+      next = previous;
+      next.clear();
+    }
+    return active;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a {@link PathPatternSet} containing the supplied {@link
+   * PathPattern}s.
+   *
+   * @param patterns the {@link PathPattern}s; must not be {@code
+   * null} or contain {@code null} elements
+   *
+   * @return a new {@link PathPatternSet}; never {@code null}
+   *
+   * @exception NullPointerException if {@code patterns} is {@code
+   * null} or contains {@code null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final PathPatternSet of(final Collection<? extends PathPattern> patterns) {
+    return new PathPatternSet(List.copyOf(patterns));
+  }
+
+  /**
+   * Returns a {@link PathPatternSet} containing the supplied {@link
+   * PathPattern}s.
+   *
+   * @param patterns the {@link PathPattern}s; must not be {@code
+   * null} or contain {@code null} elements
+   *
+   * @return a new {@link PathPatternSet}; never {@code null}
+   *
+   * @exception NullPointerException if {@code patterns} is {@code
+   * null} or contains {@code null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final PathPatternSet of(final PathPattern... patterns) {
+    return new PathPatternSet(List.of(patterns));
+  }
+
+  // Adds node, and every ** state reachable from it without consuming
+  // an element, to active, unless already added during this step.
+  private static final void add(final Node node, final List<? super Node> active, final NodeSet marks) {
+    if (marks.add(node)) {
+      active.add(node);
+      for (final Node child : node.anyDepthChildren) {
+        add(child, active, marks);
+      }
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  // An automaton state: the state reached after matching the
+  // segments on the way from the root to this node.
+  private static final class Node {
+
+    private static final Node[] EMPTY = new Node[0];
+
+    private final int id;
+
+    private final Segment segment;
+
+    private final boolean anyDepth;
+
+    private Map<String, Node[]> literalChildren;
+
+    private Node[] otherChildren;
+
+    private Node[] anyDepthChildren;
+
+    private int[] accepting;
+
+    // Used only while building.
+    private Map<String, Node> children;
+
+    private List<Integer> acceptingList;
+
+    private Node(final int id, final Segment segment) {
+      super();
+      this.id = id;
+      this.segment = segment;
+      this.anyDepth = segment != null && segment.anyDepth;
+      this.children = new LinkedHashMap<>();
+      this.acceptingList = new ArrayList<>(1);
+    }
+
+    private final Node freeze() {
+      final Map<String, List<Node>> literal = new HashMap<>();
+      final List<Node> other = new ArrayList<>();
+      final List<Node> anyDepth = new ArrayList<>();
+      for (final Node child : this.children.values()) {
+        final Segment s = child.segment;
+        if (s.anyDepth) {
+          anyDepth.add(child);
+        } else if (s.literalName != null) {
+          literal.computeIfAbsent(s.literalName, k -> new ArrayList<>(1)).add(child);
+        } else {
+          other.add(child);
+        }
+        child.freeze();
+      }
+      if (literal.isEmpty()) {
+        this.literalChildren = Map.of();
+      } else {
+        this.literalChildren = new HashMap<>(literal.size() * 2);
+        for (final Map.Entry<String, List<Node>> entry : literal.entrySet()) {
+          this.literalChildren.put(entry.getKey(), entry.getValue().toArray(EMPTY));
+        }
+      }
+      this.otherChildren = other.toArray(EMPTY);
+      this.anyDepthChildren = anyDepth.toArray(EMPTY);
+      this.accepting = new int[this.acceptingList.size()];
+      for (int i = 0; i < this.accepting.length; i++) {
+        this.accepting[i] = this.acceptingList.get(i);
+      }
+      this.children = null;
+      this.acceptingList = null;
+      return this;
+    }
+
+  }
+
+  // A set of Nodes, by id, for one run of the automaton.  Its capacity
+  // tracks the number of states active at once, so clearing it
+  // between steps costs no more than the step itself.
+  private static final class NodeSet {
+
+    // Each slot holds a Node's id plus one, or 0 if it is empty.
+    private int[] slots;
+
+    private int size;
+
+    private NodeSet() {
+      super();
+      this.slots = new int[8];
+    }
+
+    // Adds node and returns true, or returns false if it is already
+    // here.
+    private final boolean add(final Node node) {
+      if (this.size * 2 >= this.slots.length) {
+        final int[] old = this.slots;
+        this.slots = new int[old.length * 2];
+        for (final int key : old) {
+          if (key != 0) {
+            this.insert(key);
+          }
+        }
+      }
+      if (this.insert(node.id + 1)) {
+        ++this.size;
+        return true;
+      }
+      return false;
+    }
+
+    private final boolean insert(final int key) {
+      final int mask = this.slots.length - 1;
+      for (int i = (key * 0x9E3779B9) >>> 16 & mask; ; i = (i + 1) & mask) {
+        if (this.slots[i] == key) {
+          return false;
+        } else if (this.slots[i] == 0) {
+          this.slots[i] = key;
+          return true;
+        }
+      }
+    }
+
+    private final void clear() {
+      if (this.size > 0) {
+        Arrays.fill(this.slots, 0);
+        this.size = 0;
+      }
+    }
+
+  }
+
+  private static final class Builder {
+
+    private final Node root;
+
+    private int nodeCount;
+
+    private Builder() {
+      super();
+      this.root = new Node(this.nodeCount++, null);
+    }
+
+    private final void add(final PathPattern pattern, final int index) {
+      Node node = this.root;
+      for (final Segment segment : pattern.segments) {
+        final Node parent = node;
+        node = parent.children.computeIfAbsent(segment.source, k -> new Node(this.nodeCount++, segment));
+      }
+      node.acceptingList.add(index);
+    }
+
+  }
+
+}
@@ -0,0 +1,284 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.Arrays;
+
+import org.microbean.path.Path.Element;
+
+/**
+ * A precompiled, reusable search for occurrences of a particular
+ * {@link Path} (the <em>needle</em>) within other {@link Path}s,
+ * using {@link Element#equals(Object)} to compare {@link Element}s.
+ *
+ * <p>A {@link PathSearch} precomputes Knuth–Morris–Pratt failure
+ * tables for its needle, so each search costs time proportional to
+ * the {@linkplain Path#size() size} of the {@link Path} searched,
+ * regardless of how the needle's {@link Element}s repeat.  A single
+ * {@link PathSearch} may be probed against many {@link Path}s.</p>
+ *
+ * <p>As with {@link Path#indexOf(Path)}, only the {@link Element}s of
+ * the needle participate; its {@linkplain Path#qualifiers()
+ * qualifiers} do not.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are immutable and safe for
+ * concurrent use by multiple threads.
+ *
+ * @see Path#compileSearch(Path)
+ */
+public final class PathSearch {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  // Needles no longer than this are found by a naive scan when not
+  // precompiled; a failure table would cost more than it saves.
+  private static final int NAIVE_MAX = 4;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final Element<?>[] needle;
+
+  // failure[i] is the length of the longest proper prefix of
+  // needle[0..i] that is also a suffix of it.
+  private final int[] failure;
+
+  // As failure, but computed over the needle in reverse order, for
+  // scanning haystacks from the end.
+  private final int[] reverseFailure;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  PathSearch(final Path<?> needle) {
+    super();
+    final Path<?> flat = needle.flat();
+    this.needle = flat.elementArray();
+    this.failure = failure(flat, false);
+    this.reverseFailure = failure(flat, true);
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the zero-based index of the first occurrence of this
+   * {@link PathSearch}'s needle within the supplied {@link Path}, or
+   * a negative value if it does not occur.
+   *
+   * @param haystack the {@link Path} to search; must not be {@code
+   * null}
+   *
+   * @return the zero-based index of the first occurrence of this
+   * {@link PathSearch}'s needle within the supplied {@link Path}, or
+   * a negative value if it does not occur
+   *
+   * @exception NullPointerException if {@code haystack} is {@code
+   * null}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   *
+   * @see Path#indexOf(Path)
+   */
+  public final int indexIn(final Path<?> haystack) {
+    final Path<?> h = haystack.flat();
+    final Element<?>[] n = this.needle;
+    final int m = n.length;
+    if (m > h.size()) {
+      return -1;
+    }
+    int k = 0;
+    for (int i = 0; i < h.size(); i++) {
+      k = this.advance(k, h.elementAt(i), false);
+      if (k == m) {
+        return i - m + 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the zero-based index of the last occurrence of this
+   * {@link PathSearch}'s needle within the supplied {@link Path}, or
+   * a negative value if it does not occur.
+   *
+   * @param haystack the {@link Path} to search; must not be {@code
+   * null}
+   *
+   * @return the zero-based index of the last occurrence of this
+   * {@link PathSearch}'s needle within the supplied {@link Path}, or
+   * a negative value if it does not occur
+   *
+   * @exception NullPointerException if {@code haystack} is {@code
+   * null}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   *
+   * @see Path#lastIndexOf(Path)
+   */
+  public final int lastIndexIn(final Path<?> haystack) {
+    final Path<?> h = haystack.flat();
+    final int m = this.needle.length;
+    if (m > h.size()) {
+      return -1;
+    }
+    int k = 0;
+    for (int i = h.size() - 1; i >= 0; i--) {
+      k = this.advance(k, h.elementAt(i), true);
+      if (k == m) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the zero-based indices, in ascending order, of every
+   * occurrence, including overlapping occurrences, of this {@link
+   * PathSearch}'s needle within the supplied {@link Path}.
+   *
+   * @param haystack the {@link Path} to search; must not be {@code
+   * null}
+   *
+   * @return a new array of indices; never {@code null}; empty if the
+   * needle does not occur
+   *
+   * @exception NullPointerException if {@code haystack} is {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final int[] indexesIn(final Path<?> haystack) {
+    final Path<?> h = haystack.flat();
+    final int m = this.needle.length;
+    if (m > h.size()) {
+      return new int[0];
+    }
+    int[] indexes = new int[4];
+    int count = 0;
+    int k = 0;
+    for (int i = 0; i < h.size(); i++) {
+      k = this.advance(k, h.elementAt(i), false);
+      if (k == m) {
+        if (count == indexes.length) {
+          indexes = Arrays.copyOf(indexes, count << 1);
+        }
+        indexes[count++] = i - m + 1;
+        k = this.failure[m - 1];
+      }
+    }
+    return Arrays.copyOf(indexes, count);
+  }
+
+  // Returns the number of needle elements matched after consuming e,
+  // given that k were matched before it.
+  private final int advance(int k, final Element<?> e, final boolean reverse) {
+    final Element<?>[] n = this.needle;
+    final int[] f = reverse ? this.reverseFailure : this.failure;
+    final int last = n.length - 1;
+    while (k > 0 && !n[reverse ? last - k : k].equals(e)) {
+      k = f[k - 1];
+    }
+    return n[reverse ? last - k : k].equals(e) ? k + 1 : k;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  // Returns the index of the first or, if reverse is true, the last
+  // occurrence of needle within haystack, or -1, without compiling a
+  // PathSearch: short needles are found by a naive scan, which
+  // allocates nothing, and longer ones by computing only the one
+  // failure table the scan needs.  Used by Path#indexOf(Path) and
+  // Path#lastIndexOf(Path).
+  static final int indexOf(final Path<?> haystack, final Path<?> needle, final boolean reverse) {
+    final Path<?> h = haystack.flat();
+    final Path<?> n = needle.flat();
+    final int size = h.size();
+    final int m = n.size();
+    if (m > size) {
+      return -1;
+    } else if (m <= NAIVE_MAX) {
+      for (int i = reverse ? size - m : 0; reverse ? i >= 0 : i <= size - m; i += reverse ? -1 : 1) {
+        int j = 0;
+        while (j < m && h.elementAt(i + j).equals(n.elementAt(j))) {
+          ++j;
+        }
+        if (j == m) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    final int[] f = failure(n, reverse);
+    final int last = m - 1;
+    int k = 0;
+    for (int j = 0; j < size; j++) {
+      final int i = reverse ? size - 1 - j : j;
+      final Element<?> e = h.elementAt(i);
+      while (k > 0 && !n.elementAt(reverse ? last - k : k).equals(e)) {
+        k = f[k - 1];
+      }
+      if (n.elementAt(reverse ? last - k : k).equals(e) && ++k == m) {
+        return reverse ? i : i - last;
+      }
+    }
+    return -1;
+  }
+
+  // Returns the failure table for needle, which must be flat, or for
+  // its reverse.
+  private static final int[] failure(final Path<?> needle, final boolean reverse) {
+    final int m = needle.size();
+    final int last = m - 1;
+    final int[] f = new int[m];
+    int k = 0;
+    for (int i = 1; i < m; i++) {
+      final Element<?> e = needle.elementAt(reverse ? last - i : i);
+      while (k > 0 && !needle.elementAt(reverse ? last - k : k).equals(e)) {
+        k = f[k - 1];
+      }
+      if (needle.elementAt(reverse ? last - k : k).equals(e)) {
+        ++k;
+      }
+      f[i] = k;
+    }
+    return f;
+  }
+
+}
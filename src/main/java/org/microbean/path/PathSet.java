@@ -0,0 +1,450 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import java.util.function.Consumer;
+
+import org.microbean.path.Path.Element;
+
+/**
+ * An immutable, sorted set of {@link Path}s backed by a single array,
+ * supporting membership tests, {@linkplain #floor(Path) floor} and
+ * {@linkplain #ceiling(Path) ceiling} lookups, and {@linkplain
+ * #subSetUnder(Path) prefix range queries} by binary search.
+ *
+ * <p>A {@link PathSet} is built once from a {@link Collection} of
+ * {@link Path}s, which are sorted by a {@link Comparator} obtained
+ * from {@link PathComparators#paths(Comparator)}.  Because that
+ * ordering is lexicographic by {@link Element}, all the {@link
+ * Path}s that {@linkplain Path#startsWith(Path) start with} a given
+ * prefix occupy a contiguous range, so a {@linkplain
+ * #subSetUnder(Path) subset under a prefix} is a view of that range
+ * and costs two binary searches and no copying.</p>
+ *
+ * <p>A {@link PathSet} may also serve as the key set of a read-only
+ * map: {@link #indexOf(Path)} returns a dense, stable index that can
+ * address a parallel array of values.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are immutable and safe for
+ * concurrent use by multiple threads.
+ *
+ * @see PathComparators
+ */
+public final class PathSet {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  private static final Path<?>[] EMPTY_PATH_ARRAY = new Path<?>[0];
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final Path<?>[] paths;
+
+  private final int fromIndex;
+
+  private final int toIndex;
+
+  private final Comparator<? super Element<?>> elements;
+
+  private final Comparator<Path<?>> comparator;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private PathSet(final Path<?>[] paths,
+                  final int fromIndex,
+                  final int toIndex,
+                  final Comparator<? super Element<?>> elements,
+                  final Comparator<Path<?>> comparator) {
+    super();
+    this.paths = paths;
+    this.fromIndex = fromIndex;
+    this.toIndex = toIndex;
+    this.elements = elements;
+    this.comparator = comparator;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of {@link Path}s in this {@link PathSet}.
+   *
+   * @return the number of {@link Path}s in this {@link PathSet}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final int size() {
+    return this.toIndex - this.fromIndex;
+  }
+
+  /**
+   * Returns {@code true} if this {@link PathSet} contains no {@link
+   * Path}s.
+   *
+   * @return {@code true} if this {@link PathSet} is empty
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final boolean isEmpty() {
+    return this.toIndex == this.fromIndex;
+  }
+
+  /**
+   * Returns the {@link Path} at the supplied index in this {@link
+   * PathSet}'s sort order.
+   *
+   * @param index the index; must be greater than or equal to {@code
+   * 0} and less than {@link #size()}
+   *
+   * @return the {@link Path} at the supplied index; never {@code null}
+   *
+   * @exception IndexOutOfBoundsException if {@code index} is out of
+   * bounds
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final Path<?> get(final int index) {
+    return this.paths[this.fromIndex + Objects.checkIndex(index, this.size())];
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} view of the {@link Path}s in
+   * this {@link PathSet}, in sort order.
+   *
+   * @return an unmodifiable {@link List} of {@link Path}s; never
+   * {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final List<Path<?>> paths() {
+    return Collections.unmodifiableList(Arrays.asList(this.paths).subList(this.fromIndex, this.toIndex));
+  }
+
+  /**
+   * Performs the supplied action on each {@link Path} in this {@link
+   * PathSet}, in sort order.
+   *
+   * @param action the action; must not be {@code null}
+   *
+   * @exception NullPointerException if {@code action} is {@code null}
+   */
+  public final void forEach(final Consumer<? super Path<?>> action) {
+    Objects.requireNonNull(action, "action");
+    for (int i = this.fromIndex; i < this.toIndex; i++) {
+      action.accept(this.paths[i]);
+    }
+  }
+
+  /**
+   * Returns {@code true} if this {@link PathSet} contains a {@link
+   * Path} {@linkplain Path#equals(Object) equal to} the supplied
+   * {@link Path}.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return {@code true} if this {@link PathSet} contains the
+   * supplied {@link Path}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final boolean contains(final Path<?> path) {
+    return this.search(path) >= 0;
+  }
+
+  /**
+   * Returns the index of the supplied {@link Path} in this {@link
+   * PathSet}'s sort order, or, if it is not present, {@code
+   * (-(insertion point) - 1)}, in the manner of {@link
+   * Arrays#binarySearch(Object[], Object, Comparator)}.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the index of the supplied {@link Path}, or a negative
+   * value encoding its insertion point
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final int indexOf(final Path<?> path) {
+    final int i = this.search(path);
+    return i >= 0 ? i - this.fromIndex : i + this.fromIndex;
+  }
+
+  /**
+   * Returns the greatest {@link Path} in this {@link PathSet} that is
+   * less than or equal to the supplied {@link Path}, or {@code null}
+   * if there is no such {@link Path}.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the greatest {@link Path} less than or equal to {@code
+   * path}, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final Path<?> floor(final Path<?> path) {
+    int i = this.search(path);
+    if (i < 0) {
+      i = -i - 2; // the element before the insertion point
+    }
+    return i >= this.fromIndex ? this.paths[i] : null;
+  }
+
+  /**
+   * Returns the least {@link Path} in this {@link PathSet} that is
+   * greater than or equal to the supplied {@link Path}, or {@code
+   * null} if there is no such {@link Path}.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the least {@link Path} greater than or equal to {@code
+   * path}, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final Path<?> ceiling(final Path<?> path) {
+    int i = this.search(path);
+    if (i < 0) {
+      i = -i - 1; // the insertion point
+    }
+    return i < this.toIndex ? this.paths[i] : null;
+  }
+
+  /**
+   * Returns a {@link PathSet} view of those {@link Path}s in this
+   * {@link PathSet} that {@linkplain Path#startsWith(Path) start
+   * with} the supplied prefix, including any {@link Path} equal to
+   * it.
+   *
+   * <p>The returned {@link PathSet} shares this {@link PathSet}'s
+   * storage.</p>
+   *
+   * @param prefix the prefix; must not be {@code null}
+   *
+   * @return a {@link PathSet} of the {@link Path}s starting with
+   * {@code prefix}; never {@code null}
+   *
+   * @exception NullPointerException if {@code prefix} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final PathSet subSetUnder(final Path<?> prefix) {
+    Objects.requireNonNull(prefix, "prefix");
+    final int from = this.bound(prefix, false);
+    final int to = this.bound(prefix, true);
+    if (from == this.fromIndex && to == this.toIndex) {
+      return this;
+    }
+    return new PathSet(this.paths, from, to, this.elements, this.comparator);
+  }
+
+  // Returns the index in this.paths of the first path that sorts
+  // after every path under the supplied prefix if after is true, or
+  // at or after the first path under it otherwise.
+  private final int bound(final Path<?> prefix, final boolean after) {
+    int low = this.fromIndex;
+    int high = this.toIndex;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      final int c = this.compareToPrefix(this.paths[mid], prefix);
+      if (c < 0 || after && c == 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  // Returns a negative value, zero or a positive value if the
+  // supplied path sorts before, starts with, or sorts after every
+  // path starting with the supplied prefix.
+  private final int compareToPrefix(final Path<?> path, final Path<?> prefix) {
+    final int c = PathComparators.comparePrefix(this.elements, path, prefix);
+    return c != 0 ? c : path.size() < prefix.size() ? -1 : 0;
+  }
+
+  private final int search(final Path<?> path) {
+    Objects.requireNonNull(path, "path");
+    return Arrays.binarySearch(this.paths, this.fromIndex, this.toIndex, path, this.comparator);
+  }
+
+  /**
+   * Returns a hash code for this {@link PathSet}.
+   *
+   * @return a hash code for this {@link PathSet}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  @Override // Object
+  public final int hashCode() {
+    int hashCode = 0;
+    for (int i = this.fromIndex; i < this.toIndex; i++) {
+      hashCode += this.paths[i].hashCode();
+    }
+    return hashCode;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is a {@link
+   * PathSet} containing {@linkplain Path#equals(Object) equal} {@link
+   * Path}s in the same order.
+   *
+   * @param other the {@link Object} to test; may be {@code null}
+   *
+   * @return {@code true} if the supplied {@link Object} is equal to
+   * this {@link PathSet}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  @Override // Object
+  public final boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (other != null && other.getClass() == this.getClass()) {
+      final PathSet her = (PathSet)other;
+      return
+        Arrays.equals(this.paths, this.fromIndex, this.toIndex,
+                      her.paths, her.fromIndex, her.toIndex);
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a {@link String} representation of this {@link PathSet}.
+   *
+   * @return a {@link String} representation of this {@link PathSet};
+   * never {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  @Override // Object
+  public final String toString() {
+    return this.paths().toString();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a {@link PathSet} containing the distinct {@link Path}s
+   * in the supplied {@link Collection}, ordered by {@link
+   * PathComparators#paths()}.
+   *
+   * @param paths the {@link Path}s; must not be {@code null} and must
+   * not contain {@code null}
+   *
+   * @return a new {@link PathSet}; never {@code null}
+   *
+   * @exception NullPointerException if {@code paths} is {@code null}
+   * or contains {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see #of(Collection, Comparator)
+   */
+  public static final PathSet of(final Collection<? extends Path<?>> paths) {
+    return of(paths, PathComparators.elements());
+  }
+
+  /**
+   * Returns a {@link PathSet} containing the distinct {@link Path}s
+   * in the supplied {@link Collection}, ordered by the {@link
+   * Comparator} that {@link PathComparators#paths(Comparator)}
+   * returns for the supplied {@link Element} {@link Comparator}.
+   *
+   * @param paths the {@link Path}s; must not be {@code null} and must
+   * not contain {@code null}
+   *
+   * @param elements the {@link Comparator} used to order {@link
+   * Element}s; must not be {@code null}; must be consistent with
+   * {@link Element#equals(Object)}
+   *
+   * @return a new {@link PathSet}; never {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null} or {@code paths} contains {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see PathComparators#elements(Comparator)
+   */
+  public static final PathSet of(final Collection<? extends Path<?>> paths,
+                                 final Comparator<? super Element<?>> elements) {
+    final Comparator<Path<?>> comparator = PathComparators.paths(elements);
+    final Path<?>[] array = paths.toArray(EMPTY_PATH_ARRAY);
+    for (final Path<?> p : array) {
+      Objects.requireNonNull(p, "path");
+    }
+    Arrays.sort(array, comparator);
+    // Drop duplicates in place.
+    int size = 0;
+    for (final Path<?> p : array) {
+      if (size == 0 || comparator.compare(array[size - 1], p) != 0) {
+        array[size++] = p;
+      }
+    }
+    return new PathSet(size == array.length ? array : Arrays.copyOf(array, size), 0, size, elements, comparator);
+  }
+
+}
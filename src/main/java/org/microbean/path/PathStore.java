@@ -0,0 +1,581 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.lang.reflect.Type;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import java.nio.channels.FileChannel;
+
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An immutable, memory-mapped, on-disk map of {@link Path}s to byte
+ * values that answers lookups in time proportional to the depth of
+ * the {@link Path} supplied, directly against the mapped bytes.
+ *
+ * <p>A {@link PathStore} file is produced by the {@link
+ * #write(java.nio.file.Path, Map)} method and {@linkplain
+ * #open(java.nio.file.Path) opened} by mapping it into memory with
+ * {@link FileChannel#map(FileChannel.MapMode, long, long)}.  Opening
+ * a {@link PathStore} reads only its trailer; no {@link Path}s are
+ * materialized on the heap, and lookups read only the trie nodes
+ * along the way to the {@link Path} sought.  Values are returned as
+ * read-only {@link ByteBuffer} views of the mapped file.</p>
+ *
+ * <p>The file is a trie keyed {@linkplain Element element} by
+ * element, like a {@link PathTrie}.  Each {@link Element} is stored
+ * as a canonical byte key consisting of its {@linkplain
+ * Element#qualified() qualified} object's {@linkplain
+ * Type#getTypeName() type name} or {@linkplain String#valueOf(Object)
+ * string value}, its {@linkplain Element#name() name}, and the names
+ * and string values of its {@linkplain Element#qualifiers()
+ * qualifiers}.  Two {@link Element}s with the same canonical key are
+ * therefore indistinguishable to a {@link PathStore}.  A {@link
+ * Path}'s own {@linkplain Path#qualifiers() qualifiers} do not
+ * participate.  The children of each node are sorted by a stable
+ * hash of their keys and located by binary search.</p>
+ *
+ * <p>A single {@link PathStore} file may not exceed {@link
+ * Integer#MAX_VALUE} bytes.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are immutable and safe for
+ * concurrent use by multiple threads.
+ *
+ * @see #open(java.nio.file.Path)
+ *
+ * @see #write(java.nio.file.Path, Map)
+ */
+public final class PathStore {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  private static final int MAGIC = 0x4D425053; // "MBPS"
+
+  private static final int VERSION = 1;
+
+  // rootOffset, size, version, magic
+  private static final int TRAILER_LENGTH = 16;
+
+  // valueOffset, valueLength, childCount
+  private static final int NODE_HEADER_LENGTH = 12;
+
+  // hash, keyOffset, keyLength, childOffset
+  private static final int CHILD_ENTRY_LENGTH = 16;
+
+  private static final int FNV_OFFSET_BASIS = 0x811C9DC5;
+
+  private static final int FNV_PRIME = 0x01000193;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final ByteBuffer buffer;
+
+  private final int rootOffset;
+
+  private final int size;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private PathStore(final ByteBuffer buffer) {
+    super();
+    this.buffer = buffer;
+    final int limit = buffer.limit();
+    if (limit < TRAILER_LENGTH ||
+        buffer.getInt(limit - 4) != MAGIC ||
+        buffer.getInt(limit - 8) != VERSION) {
+      throw new IllegalArgumentException("Not a PathStore file");
+    }
+    this.size = buffer.getInt(limit - 12);
+    this.rootOffset = buffer.getInt(limit - 16);
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of entries in this {@link PathStore}.
+   *
+   * @return the number of entries in this {@link PathStore}
+   */
+  public final int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns a read-only {@link ByteBuffer} view of the value stored
+   * for the supplied {@link Path}, or {@code null} if there is no
+   * such value.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return a read-only {@link ByteBuffer}, positioned at zero and
+   * limited to the value's length, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final ByteBuffer get(final Path<?> path) {
+    final int node = this.node(path);
+    if (node < 0) {
+      return null;
+    }
+    final int valueOffset = this.buffer.getInt(node);
+    return valueOffset < 0 ? null : this.buffer.slice(valueOffset, this.buffer.getInt(node + 4)).asReadOnlyBuffer();
+  }
+
+  /**
+   * Returns {@code true} if this {@link PathStore} contains a value
+   * for the supplied {@link Path}.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return {@code true} if this {@link PathStore} contains a value
+   * for the supplied {@link Path}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final boolean containsKey(final Path<?> path) {
+    final int node = this.node(path);
+    return node >= 0 && this.buffer.getInt(node) >= 0;
+  }
+
+  // Returns the offset of the node for the supplied Path, or -1.
+  private final int node(final Path<?> path) {
+    final ByteBuffer b = this.buffer;
+    final KeyCursor cursor = new KeyCursor(b);
+    int node = this.rootOffset;
+    final Path<?> flat = path.flat();
+    for (int depth = 0; depth < flat.size(); depth++) {
+      final Element<?> e = flat.elementAt(depth);
+      final int hash = cursor.hash(e);
+      final int entries = node + NODE_HEADER_LENGTH;
+      // Binary search for the first entry with this hash.
+      int low = 0;
+      int high = b.getInt(node + 8);
+      final int count = high;
+      while (low < high) {
+        final int mid = (low + high) >>> 1;
+        if (b.getInt(entries + mid * CHILD_ENTRY_LENGTH) < hash) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      int child = -1;
+      for (int i = low; i < count; i++) {
+        final int entry = entries + i * CHILD_ENTRY_LENGTH;
+        if (b.getInt(entry) != hash) {
+          break;
+        }
+        if (cursor.matches(e, b.getInt(entry + 4), b.getInt(entry + 8))) {
+          child = b.getInt(entry + 12);
+          break;
+        }
+      }
+      if (child < 0) {
+        return -1;
+      }
+      node = child;
+    }
+    return node;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Maps the supplied file, which must have been produced by the
+   * {@link #write(java.nio.file.Path, Map)} method, into memory and
+   * returns a {@link PathStore} backed by it.
+   *
+   * <p>The file is closed before this method returns; the mapping
+   * remains valid until the returned {@link PathStore} is garbage
+   * collected.</p>
+   *
+   * @param file the file; must not be {@code null}
+   *
+   * @return a new {@link PathStore}; never {@code null}
+   *
+   * @exception NullPointerException if {@code file} is {@code null}
+   *
+   * @exception IOException if the file could not be mapped
+   *
+   * @exception IllegalArgumentException if the file is not a {@link
+   * PathStore} file
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final PathStore open(final java.nio.file.Path file) throws IOException {
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("File too large: " + file);
+      }
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+      return new PathStore(buffer);
+    }
+  }
+
+  /**
+   * Writes the supplied entries to the supplied file, replacing it if
+   * it exists, in a format suitable for {@linkplain
+   * #open(java.nio.file.Path) opening} as a {@link PathStore}.
+   *
+   * <p>Entries whose {@link Path}s have equal {@link Element}s are
+   * indistinguishable to a {@link PathStore}; if several are
+   * supplied, the value of the last one encountered wins.</p>
+   *
+   * @param file the file; must not be {@code null}
+   *
+   * @param entries the entries; must not be {@code null} or contain
+   * {@code null} keys or values
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   * or {@code entries} contains {@code null} keys or values
+   *
+   * @exception IOException if the file could not be written
+   *
+   * @exception IllegalArgumentException if the resulting file would
+   * exceed {@link Integer#MAX_VALUE} bytes
+   */
+  public static final void write(final java.nio.file.Path file, final Map<? extends Path<?>, byte[]> entries)
+    throws IOException {
+    final BuildNode root = new BuildNode();
+    for (final Map.Entry<? extends Path<?>, byte[]> entry : entries.entrySet()) {
+      BuildNode node = root;
+      final Path<?> flat = entry.getKey().flat();
+      for (int i = 0; i < flat.size(); i++) {
+        final Element<?> e = flat.elementAt(i);
+        node = node.children.computeIfAbsent(new Key(key(e)), k -> new BuildNode());
+      }
+      node.value = Objects.requireNonNull(entry.getValue(), "value");
+    }
+    try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      final int rootOffset = write(out, root);
+      out.writeInt(rootOffset);
+      out.writeInt(root.count());
+      out.writeInt(VERSION);
+      out.writeInt(MAGIC);
+      checkedSize(out);
+    }
+  }
+
+  // Writes node's descendants, then its children's keys and its
+  // value, then node itself, and returns node's offset.
+  private static final int write(final DataOutputStream out, final BuildNode node) throws IOException {
+    final List<Map.Entry<Key, BuildNode>> children = new ArrayList<>(node.children.entrySet());
+    children.sort((a, b) -> Integer.compare(a.getKey().hash, b.getKey().hash));
+    final int size = children.size();
+    final int[] childOffsets = new int[size];
+    for (int i = 0; i < size; i++) {
+      childOffsets[i] = write(out, children.get(i).getValue());
+    }
+    final int[] keyOffsets = new int[size];
+    for (int i = 0; i < size; i++) {
+      keyOffsets[i] = checkedSize(out);
+      out.write(children.get(i).getKey().bytes);
+    }
+    final int valueOffset;
+    if (node.value == null) {
+      valueOffset = -1;
+    } else {
+      valueOffset = checkedSize(out);
+      out.write(node.value);
+    }
+    final int offset = checkedSize(out);
+    out.writeInt(valueOffset);
+    out.writeInt(node.value == null ? 0 : node.value.length);
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      final Key key = children.get(i).getKey();
+      out.writeInt(key.hash);
+      out.writeInt(keyOffsets[i]);
+      out.writeInt(key.bytes.length);
+      out.writeInt(childOffsets[i]);
+    }
+    return offset;
+  }
+
+  // DataOutputStream's counter saturates at Integer.MAX_VALUE.
+  private static final int checkedSize(final DataOutputStream out) {
+    final int size = out.size();
+    if (size == Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("PathStore too large");
+    }
+    return size;
+  }
+
+  // Returns the canonical key bytes for the supplied Element.  Used
+  // when writing; lookups stream the same bytes with a KeyCursor
+  // instead.
+  private static final byte[] key(final Element<?> e) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(32);
+    final Object qualified = e.qualified();
+    if (qualified == null) {
+      baos.write(0);
+    } else {
+      baos.write(1);
+      writeString(baos, qualified instanceof Type t ? t.getTypeName() : String.valueOf(qualified));
+    }
+    writeString(baos, e.name());
+    for (final Qualifier<String, Object> q : e.qualifiers()) {
+      writeString(baos, q.name());
+      writeString(baos, String.valueOf(q.value()));
+    }
+    return baos.toByteArray();
+  }
+
+  private static final void writeString(final ByteArrayOutputStream baos, final String s) {
+    final byte[] bytes = s.getBytes(UTF_8);
+    int length = bytes.length;
+    while ((length & ~0x7F) != 0) {
+      baos.write((length & 0x7F) | 0x80);
+      length >>>= 7;
+    }
+    baos.write(length);
+    baos.write(bytes, 0, bytes.length);
+  }
+
+  // 32-bit FNV-1a.  The hash is persisted, so it must never change.
+  private static final int hash(final byte[] bytes) {
+    int hash = FNV_OFFSET_BASIS;
+    for (final byte b : bytes) {
+      hash ^= b & 0xFF;
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  // Streams the canonical key bytes of an Element, exactly as
+  // key(Element) produces them, without materializing them: once to
+  // hash and measure them, and again, for each child entry with the
+  // same hash and length, to compare them with the mapped bytes.  One
+  // instance serves a whole lookup.
+  private static final class KeyCursor {
+
+    private final ByteBuffer buffer;
+
+    private int hash;
+
+    private int length;
+
+    // The offset of the next mapped byte to compare, or -1 while
+    // hashing.
+    private int offset;
+
+    private boolean mismatch;
+
+    private KeyCursor(final ByteBuffer buffer) {
+      super();
+      this.buffer = buffer;
+    }
+
+    // Returns the hash of e's key, and remembers its length.
+    private final int hash(final Element<?> e) {
+      this.hash = FNV_OFFSET_BASIS;
+      this.length = 0;
+      this.offset = -1;
+      this.walk(e);
+      return this.hash;
+    }
+
+    // Returns true if the length mapped bytes at offset are e's key,
+    // which must be the one most recently hashed.
+    private final boolean matches(final Element<?> e, final int offset, final int length) {
+      if (length != this.length) {
+        return false;
+      }
+      this.offset = offset;
+      this.mismatch = false;
+      this.walk(e);
+      return !this.mismatch;
+    }
+
+    private final void walk(final Element<?> e) {
+      final Object qualified = e.qualified();
+      if (qualified == null) {
+        this.put(0);
+      } else {
+        this.put(1);
+        this.putString(qualified instanceof Type t ? t.getTypeName() : String.valueOf(qualified));
+      }
+      this.putString(e.name());
+      for (final Qualifier<String, Object> q : e.qualifiers()) {
+        this.putString(q.name());
+        this.putString(String.valueOf(q.value()));
+      }
+    }
+
+    // Puts the length-prefixed UTF-8 encoding of s, replacing each
+    // unpaired surrogate with '?' as String#getBytes(Charset) does.
+    private final void putString(final String s) {
+      int length = 0;
+      for (int i = 0; i < s.length(); i++) {
+        final char c = s.charAt(i);
+        if (c < 0x80) {
+          length += 1;
+        } else if (c < 0x800) {
+          length += 2;
+        } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+          length += 4;
+          ++i;
+        } else if (Character.isSurrogate(c)) {
+          length += 1;
+        } else {
+          length += 3;
+        }
+      }
+      while ((length & ~0x7F) != 0) {
+        this.put((length & 0x7F) | 0x80);
+        length >>>= 7;
+      }
+      this.put(length);
+      for (int i = 0; i < s.length() && !this.mismatch; i++) {
+        final char c = s.charAt(i);
+        if (c < 0x80) {
+          this.put(c);
+        } else if (c < 0x800) {
+          this.put(0xC0 | (c >> 6));
+          this.put(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+          final int cp = Character.toCodePoint(c, s.charAt(++i));
+          this.put(0xF0 | (cp >> 18));
+          this.put(0x80 | ((cp >> 12) & 0x3F));
+          this.put(0x80 | ((cp >> 6) & 0x3F));
+          this.put(0x80 | (cp & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+          this.put('?');
+        } else {
+          this.put(0xE0 | (c >> 12));
+          this.put(0x80 | ((c >> 6) & 0x3F));
+          this.put(0x80 | (c & 0x3F));
+        }
+      }
+    }
+
+    private final void put(final int b) {
+      if (this.offset < 0) {
+        this.hash ^= b & 0xFF;
+        this.hash *= FNV_PRIME;
+        ++this.length;
+      } else if (!this.mismatch) {
+        this.mismatch = this.buffer.get(this.offset++) != (byte)b;
+      }
+    }
+
+  }
+
+  private static final class Key {
+
+    private final byte[] bytes;
+
+    private final int hash;
+
+    private Key(final byte[] bytes) {
+      super();
+      this.bytes = bytes;
+      this.hash = hash(bytes);
+    }
+
+    @Override
+    public final int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public final boolean equals(final Object other) {
+      return other instanceof Key her && this.hash == her.hash && Arrays.equals(this.bytes, her.bytes);
+    }
+
+  }
+
+  private static final class BuildNode {
+
+    private final Map<Key, BuildNode> children;
+
+    private byte[] value;
+
+    private BuildNode() {
+      super();
+      this.children = new HashMap<>(4);
+    }
+
+    private final int count() {
+      int count = this.value == null ? 0 : 1;
+      for (final BuildNode child : this.children.values()) {
+        count += child.count();
+      }
+      return count;
+    }
+
+  }
+
+}
@@ -0,0 +1,318 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import java.util.function.BiPredicate;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.path.PathTrie.Node;
+
+/**
+ * A mutable map of {@link Path}s to values, organized as a trie
+ * keyed {@linkplain Path.Element element} by element starting from
+ * each {@link Path}'s {@linkplain Path#lastElement() last element}
+ * and working backwards, that answers {@linkplain Path#endsWith(Path)
+ * suffix} queries efficiently.
+ *
+ * <p>Because the first level of the trie is keyed by each {@link
+ * Path}'s last {@link Element}, which customarily carries the
+ * {@linkplain Element#qualified() qualified} object, a suffix query
+ * narrows the candidate set immediately instead of scanning every
+ * stored {@link Path}.</p>
+ *
+ * <p>Keys are compared element by element, exactly as {@link
+ * Path#endsWith(Path)} compares them.  A {@link Path}'s own
+ * {@linkplain Path#qualifiers() qualifiers} and {@linkplain
+ * Path#transliterated() transliteration status} therefore do not
+ * participate.</p>
+ *
+ * <p>Values must not be {@code null}.</p>
+ *
+ * <p>{@link PathSuffixIndex} instances are not safe for concurrent
+ * use by multiple threads without external synchronization.</p>
+ *
+ * @param <V> the type of value
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Path#endsWith(Path)
+ *
+ * @see PathTrie
+ */
+public final class PathSuffixIndex<V> {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final Node<V> root;
+
+  private int size;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link PathSuffixIndex}.
+   */
+  public PathSuffixIndex() {
+    super();
+    this.root = new Node<>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of entries in this {@link PathSuffixIndex}.
+   *
+   * @return the number of entries in this {@link PathSuffixIndex};
+   * always {@code 0} or greater
+   */
+  public final int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns {@code true} if this {@link PathSuffixIndex} has no
+   * entries.
+   *
+   * @return {@code true} if this {@link PathSuffixIndex} has no
+   * entries
+   */
+  public final boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Associates the supplied value with the supplied {@link Path} and
+   * returns the value previously associated with an equivalent {@link
+   * Path}, if any.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @return the previous value, or {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V put(final Path<?> path, final V value) {
+    Objects.requireNonNull(value, "value");
+    final Path<?> flat = path.flat();
+    Node<V> node = this.root;
+    for (int i = flat.size() - 1; i >= 0; i--) {
+      node = node.childOrCreate(flat.elementAt(i));
+    }
+    final V old = node.value;
+    if (old == null) {
+      ++this.size;
+    }
+    node.key = path;
+    node.value = value;
+    return old;
+  }
+
+  /**
+   * Returns the value associated with the supplied {@link Path}, or
+   * {@code null} if there is no such value.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the value associated with the supplied {@link Path}, or
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V get(final Path<?> path) {
+    final Node<V> node = this.node(path);
+    return node == null ? null : node.value;
+  }
+
+  /**
+   * Removes the entry for the supplied {@link Path}, if any, and
+   * returns its value.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the removed value, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V remove(final Path<?> path) {
+    final Path<?> flat = path.flat();
+    final int length = flat.size();
+    @SuppressWarnings("unchecked")
+    final Node<V>[] nodes = (Node<V>[])new Node<?>[length + 1];
+    Node<V> node = this.root;
+    nodes[0] = node;
+    for (int i = 0; i < length; i++) {
+      node = node.child(flat.elementAt(length - 1 - i));
+      if (node == null) {
+        return null;
+      }
+      nodes[i + 1] = node;
+    }
+    final V old = node.value;
+    if (old != null) {
+      node.key = null;
+      node.value = null;
+      --this.size;
+      for (int i = length; i > 0 && nodes[i].isEmpty(); i--) {
+        nodes[i - 1].removeChild(flat.elementAt(length - i));
+      }
+    }
+    return old;
+  }
+
+  /**
+   * Returns a {@link List} of the entries whose {@link Path}s
+   * {@linkplain Path#endsWith(Path) end with} the supplied {@link
+   * Path}.
+   *
+   * <p>Locating the matching entries costs time proportional to the
+   * {@linkplain Path#size() size} of the supplied {@link Path}; the
+   * remaining cost is proportional to the number of entries
+   * returned.  The order of the returned entries is unspecified.</p>
+   *
+   * @param suffix the suffix; must not be {@code null}
+   *
+   * @return a new, mutable {@link List} of matching entries; never
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code suffix} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see Path#endsWith(Path)
+   */
+  public final List<Entry<Path<?>, V>> endingWith(final Path<?> suffix) {
+    final List<Entry<Path<?>, V>> entries = new ArrayList<>();
+    final Node<V> node = this.node(suffix);
+    if (node != null) {
+      node.collect(entries);
+    }
+    return entries;
+  }
+
+  /**
+   * Returns a {@link List} of the entries whose {@link Path}s
+   * {@linkplain Path#endsWith(Path, BiPredicate) end with} the
+   * supplied {@link Path}, as determined by the supplied {@link
+   * BiPredicate}.
+   *
+   * <p>The first argument supplied to the {@link BiPredicate} is an
+   * {@link Element} drawn from a stored {@link Path}.  The second
+   * argument is an {@link Element} drawn from the supplied {@link
+   * Path}.  This is the same convention used by {@link
+   * Path#endsWith(Path, BiPredicate)}.</p>
+   *
+   * <p>Because the {@link BiPredicate} may deem {@linkplain
+   * Element#equals(Object) unequal} {@link Element}s to match, each
+   * level of the search tests every branch that survived the
+   * previous level.  The cost is therefore proportional to the size
+   * of the supplied {@link Path} multiplied by the number of
+   * surviving branches, which for selective predicates is close to
+   * the cost of {@link #endingWith(Path)}.  The order of the returned
+   * entries is unspecified.</p>
+   *
+   * @param suffix the suffix; must not be {@code null}
+   *
+   * @param p the {@link BiPredicate}; must not be {@code null}
+   *
+   * @return a new, mutable {@link List} of matching entries; never
+   * {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see Path#endsWith(Path, BiPredicate)
+   */
+  public final List<Entry<Path<?>, V>> endingWith(final Path<?> suffix,
+                                                  final BiPredicate<? super Element<?>, ? super Element<?>> p) {
+    Objects.requireNonNull(p, "p");
+    final Path<?> flat = suffix.flat();
+    List<Node<V>> frontier = List.of(this.root);
+    for (int i = flat.size() - 1; i >= 0 && !frontier.isEmpty(); i--) {
+      final Element<?> q = flat.elementAt(i);
+      final List<Node<V>> next = new ArrayList<>();
+      for (final Node<V> node : frontier) {
+        if (node.children != null) {
+          for (final Map.Entry<Element<?>, Node<V>> child : node.children.entrySet()) {
+            if (p.test(child.getKey(), q)) {
+              next.add(child.getValue());
+            }
+          }
+        }
+      }
+      frontier = next;
+    }
+    final List<Entry<Path<?>, V>> entries = new ArrayList<>();
+    for (final Node<V> node : frontier) {
+      // Frontier nodes are distinct nodes at the same depth, so their
+      // subtrees are disjoint.
+      node.collect(entries);
+    }
+    return entries;
+  }
+
+  /**
+   * Removes all entries from this {@link PathSuffixIndex}.
+   */
+  public final void clear() {
+    this.root.children = null;
+    this.size = 0;
+  }
+
+  private final Node<V> node(final Path<?> path) {
+    final Path<?> flat = path.flat();
+    Node<V> node = this.root;
+    for (int i = flat.size() - 1; i >= 0; i--) {
+      node = node.child(flat.elementAt(i));
+      if (node == null) {
+        return null;
+      }
+    }
+    return node;
+  }
+
+}
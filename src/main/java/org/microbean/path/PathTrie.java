@@ -0,0 +1,389 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import org.microbean.path.Path.Element;
+
+/**
+ * A mutable map of {@link Path}s to values, organized as a trie keyed
+ * {@linkplain Path.Element element} by element, that answers exact,
+ * longest-prefix, descendant and ancestor queries in time
+ * proportional to the depth of the {@link Path} supplied, regardless
+ * of how many {@link Path}s it holds.
+ *
+ * <p>Keys are compared element by element, exactly as {@link
+ * Path#startsWith(Path)} compares them.  A {@link Path}'s own
+ * {@linkplain Path#qualifiers() qualifiers} and {@linkplain
+ * Path#transliterated() transliteration status} therefore do not
+ * participate: two {@link Path}s with {@linkplain
+ * Element#equals(Object) equal} elements denote the same entry.</p>
+ *
+ * <p>Values must not be {@code null}.</p>
+ *
+ * <p>{@link PathTrie} instances are not safe for concurrent use by
+ * multiple threads without external synchronization.</p>
+ *
+ * @param <V> the type of value
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Path#startsWith(Path)
+ */
+public final class PathTrie<V> {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final Node<V> root;
+
+  private int size;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link PathTrie}.
+   */
+  public PathTrie() {
+    super();
+    this.root = new Node<>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of entries in this {@link PathTrie}.
+   *
+   * @return the number of entries in this {@link PathTrie}; always
+   * {@code 0} or greater
+   */
+  public final int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns {@code true} if this {@link PathTrie} has no entries.
+   *
+   * @return {@code true} if this {@link PathTrie} has no entries
+   */
+  public final boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Associates the supplied value with the supplied {@link Path} and
+   * returns the value previously associated with an {@linkplain
+   * PathTrie equivalent} {@link Path}, if any.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @return the previous value, or {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V put(final Path<?> path, final V value) {
+    Objects.requireNonNull(value, "value");
+    Node<V> node = this.root;
+    final Path<?> flat = path.flat();
+    for (int i = 0; i < flat.size(); i++) {
+      final Element<?> e = flat.elementAt(i);
+      node = node.childOrCreate(e);
+    }
+    final V old = node.value;
+    if (old == null) {
+      ++this.size;
+    }
+    node.key = path;
+    node.value = value;
+    return old;
+  }
+
+  /**
+   * Returns the value associated with the supplied {@link Path}, or
+   * {@code null} if there is no such value.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the value associated with the supplied {@link Path}, or
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V get(final Path<?> path) {
+    final Node<V> node = this.node(path);
+    return node == null ? null : node.value;
+  }
+
+  /**
+   * Returns {@code true} if this {@link PathTrie} contains an entry
+   * for the supplied {@link Path}.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return {@code true} if this {@link PathTrie} contains an entry
+   * for the supplied {@link Path}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   */
+  public final boolean containsKey(final Path<?> path) {
+    return this.get(path) != null;
+  }
+
+  /**
+   * Removes the entry for the supplied {@link Path}, if any, and
+   * returns its value.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return the removed value, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final V remove(final Path<?> path) {
+    final Path<?> flat = path.flat();
+    @SuppressWarnings("unchecked")
+    final Node<V>[] nodes = (Node<V>[])new Node<?>[flat.size() + 1];
+    Node<V> node = this.root;
+    nodes[0] = node;
+    for (int i = 0; i < flat.size(); i++) {
+      node = node.child(flat.elementAt(i));
+      if (node == null) {
+        return null;
+      }
+      nodes[i + 1] = node;
+    }
+    final V old = node.value;
+    if (old != null) {
+      node.key = null;
+      node.value = null;
+      --this.size;
+      // Prune nodes that no longer lead anywhere.
+      for (int i = flat.size(); i > 0 && nodes[i].isEmpty(); i--) {
+        nodes[i - 1].removeChild(flat.elementAt(i - 1));
+      }
+    }
+    return old;
+  }
+
+  /**
+   * Returns the entry whose {@link Path} is the longest {@link Path}
+   * in this {@link PathTrie} that the supplied {@link Path}
+   * {@linkplain Path#startsWith(Path) starts with}, or {@code null}
+   * if there is no such entry.
+   *
+   * @param path the {@link Path} to probe; must not be {@code null}
+   *
+   * @return the matching entry, or {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method may return {@code null}.
+   */
+  public final Entry<Path<?>, V> longestPrefix(final Path<?> path) {
+    Node<V> node = this.root;
+    Node<V> match = null;
+    final Path<?> flat = path.flat();
+    for (int i = 0; i < flat.size(); i++) {
+      final Element<?> e = flat.elementAt(i);
+      node = node.child(e);
+      if (node == null) {
+        break;
+      }
+      if (node.value != null) {
+        match = node;
+      }
+    }
+    return match == null ? null : match.entry();
+  }
+
+  /**
+   * Returns a {@link List} of the entries whose {@link Path}s
+   * {@linkplain Path#startsWith(Path) start with} the supplied {@link
+   * Path}, including any entry for the supplied {@link Path} itself.
+   *
+   * <p>The order of the returned entries is unspecified.</p>
+   *
+   * @param prefix the prefix; must not be {@code null}
+   *
+   * @return a new, mutable {@link List} of matching entries; never
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code prefix} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final List<Entry<Path<?>, V>> descendants(final Path<?> prefix) {
+    final List<Entry<Path<?>, V>> entries = new ArrayList<>();
+    final Node<V> start = this.node(prefix);
+    if (start != null) {
+      start.collect(entries);
+    }
+    return entries;
+  }
+
+  /**
+   * Returns a {@link List} of the entries whose {@link Path}s the
+   * supplied {@link Path} {@linkplain Path#startsWith(Path) starts
+   * with}, including any entry for the supplied {@link Path} itself,
+   * ordered from shortest to longest.
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @return a new, mutable {@link List} of matching entries; never
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final List<Entry<Path<?>, V>> ancestors(final Path<?> path) {
+    final List<Entry<Path<?>, V>> entries = new ArrayList<>();
+    Node<V> node = this.root;
+    final Path<?> flat = path.flat();
+    for (int i = 0; i < flat.size(); i++) {
+      final Element<?> e = flat.elementAt(i);
+      node = node.child(e);
+      if (node == null) {
+        break;
+      }
+      if (node.value != null) {
+        entries.add(node.entry());
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Removes all entries from this {@link PathTrie}.
+   */
+  public final void clear() {
+    this.root.children = null;
+    this.size = 0;
+  }
+
+  private final Node<V> node(final Path<?> path) {
+    Node<V> node = this.root;
+    final Path<?> flat = path.flat();
+    for (int i = 0; i < flat.size(); i++) {
+      final Element<?> e = flat.elementAt(i);
+      node = node.child(e);
+      if (node == null) {
+        return null;
+      }
+    }
+    return node;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  // A node in an Element-keyed trie.  Package-private for reuse by
+  // other indexes in this package.
+  static final class Node<V> {
+
+    Map<Element<?>, Node<V>> children;
+
+    Path<?> key;
+
+    V value;
+
+    Node() {
+      super();
+    }
+
+    final Node<V> child(final Element<?> e) {
+      return this.children == null ? null : this.children.get(e);
+    }
+
+    final Node<V> childOrCreate(final Element<?> e) {
+      if (this.children == null) {
+        this.children = new HashMap<>(4);
+      }
+      return this.children.computeIfAbsent(e, x -> new Node<>());
+    }
+
+    final void removeChild(final Element<?> e) {
+      if (this.children != null) {
+        this.children.remove(e);
+        if (this.children.isEmpty()) {
+          this.children = null;
+        }
+      }
+    }
+
+    final boolean isEmpty() {
+      return this.value == null && this.children == null;
+    }
+
+    final Entry<Path<?>, V> entry() {
+      return Map.entry(this.key, this.value);
+    }
+
+    // Adds the entries of this node and all of its descendants to the
+    // supplied List.  Iterative so that deep tries cannot overflow the
+    // stack.
+    final void collect(final List<? super Entry<Path<?>, V>> entries) {
+      final Deque<Node<V>> stack = new ArrayDeque<>();
+      stack.push(this);
+      while (!stack.isEmpty()) {
+        final Node<V> node = stack.pop();
+        if (node.value != null) {
+          entries.add(node.entry());
+        }
+        if (node.children != null) {
+          for (final Node<V> child : node.children.values()) {
+            stack.push(child);
+          }
+        }
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,439 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import org.microbean.path.Path.Element;
+
+/**
+ * Utility methods that perform operations over large {@link List}s of
+ * {@link Path}s in parallel on a {@link ForkJoinPool}.
+ *
+ * <p>{@link Path}s are short, so parallelizing over the {@linkplain
+ * Path#parallelStream() elements of one <code>Path</code>} gains
+ * nothing.  The methods in this class instead split a {@link List} of
+ * {@link Path}s into contiguous chunks of indices and process each
+ * chunk on a worker thread.  Chunks are sized from the number of
+ * {@link Path}s and the pool's {@linkplain
+ * ForkJoinPool#getParallelism() parallelism}, so that each worker
+ * receives several chunks (for load balancing) but no chunk is so
+ * small that task overhead dominates.  Small inputs are processed on
+ * the calling thread.</p>
+ *
+ * <p>Every method returns its results in the order of its input, and
+ * is deterministic provided that any supplied function is.  Supplied
+ * {@link List}s should support fast random access and must not be
+ * modified during an operation.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety The methods of this class are safe for concurrent use
+ * by multiple threads, but any supplied function must also be safe
+ * for concurrent use, since it will be invoked by several worker
+ * threads.
+ */
+public final class Paths {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  // The smallest number of paths worth giving to a task of its own.
+  private static final int MIN_CHUNK = 1024;
+
+  // Chunks per worker, so that workers that finish early can steal.
+  private static final int CHUNKS_PER_WORKER = 4;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private Paths() {
+    super();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a new {@link List} of {@link Path}s, each formed, as if
+   * by {@link Path#of(Object, List) Path.of(null, names)}, from the
+   * corresponding {@link List} of {@linkplain Element#name() names}.
+   *
+   * @param pool the {@link ForkJoinPool} to use; must not be {@code
+   * null}
+   *
+   * @param nameLists the {@link List}s of names; must not be {@code
+   * null} or contain {@code null} elements
+   *
+   * @return a new, fixed-size {@link List} of {@link Path}s; never
+   * {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   * or {@code nameLists} contains {@code null} elements
+   *
+   * @exception IllegalArgumentException if any {@link List} of names
+   * is empty or ends with an empty name
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see Path#of(Object, List)
+   */
+  public static final List<Path<?>> ofNames(final ForkJoinPool pool,
+                                            final List<? extends List<? extends String>> nameLists) {
+    final Path<?>[] paths = new Path<?>[nameLists.size()];
+    run(pool, paths.length, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          paths[i] = Path.of(null, nameLists.get(i));
+        }
+      });
+    return Arrays.asList(paths);
+  }
+
+  /**
+   * Returns a new {@link List} of the {@linkplain Path#transliterate()
+   * transliterations} of the supplied {@link Path}s.
+   *
+   * @param pool the {@link ForkJoinPool} to use; must not be {@code
+   * null}
+   *
+   * @param paths the {@link Path}s; must not be {@code null} or
+   * contain {@code null} elements
+   *
+   * @return a new, fixed-size {@link List} of transliterated {@link
+   * Path}s; never {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   * or {@code paths} contains {@code null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see Path#transliterate()
+   */
+  public static final List<Path<?>> transliterate(final ForkJoinPool pool, final List<? extends Path<?>> paths) {
+    return map(pool, paths, Path::transliterate);
+  }
+
+  /**
+   * Returns a new {@link List} of the {@linkplain
+   * Path#transliterate(Class, BiFunction) transliterations} of the
+   * supplied {@link Path}s, performed on behalf of the supplied
+   * caller.
+   *
+   * <p>The caller must be supplied explicitly: the worker threads
+   * that perform the transliterations cannot discover it by walking
+   * their own stacks.</p>
+   *
+   * @param pool the {@link ForkJoinPool} to use; must not be {@code
+   * null}
+   *
+   * @param paths the {@link Path}s; must not be {@code null} or
+   * contain {@code null} elements
+   *
+   * @param caller the {@link Class} whose package name is supplied to
+   * {@code f}; must not be {@code null}
+   *
+   * @param f the transliteration function; may be {@code null}; must
+   * be safe for concurrent use
+   *
+   * @return a new, fixed-size {@link List} of transliterated {@link
+   * Path}s; never {@code null}
+   *
+   * @exception NullPointerException if {@code pool}, {@code paths} or
+   * {@code caller} is {@code null} or {@code paths} contains {@code
+   * null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see Path#transliterate(Class, BiFunction)
+   */
+  public static final List<Path<?>> transliterate(final ForkJoinPool pool,
+                                                  final List<? extends Path<?>> paths,
+                                                  final Class<?> caller,
+                                                  final BiFunction<? super String, ? super Element<?>, ? extends Element<?>> f) {
+    Objects.requireNonNull(caller, "caller");
+    return map(pool, paths, p -> p.transliterate(caller, f));
+  }
+
+  /**
+   * Returns a new {@link BitSet} of the indices of the supplied {@link
+   * Path}s that contain the supplied needle as a contiguous run of
+   * {@link Element}s.
+   *
+   * <p>The needle is {@linkplain Path#compileSearch(Path) compiled}
+   * once and shared by all worker threads.</p>
+   *
+   * @param pool the {@link ForkJoinPool} to use; must not be {@code
+   * null}
+   *
+   * @param paths the {@link Path}s; must not be {@code null} or
+   * contain {@code null} elements
+   *
+   * @param needle the {@link Path} to search for; must not be {@code
+   * null}
+   *
+   * @return a new {@link BitSet} of indices; never {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   * or {@code paths} contains {@code null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see Path#compileSearch(Path)
+   *
+   * @see PathSearch#indexIn(Path)
+   */
+  public static final BitSet containing(final ForkJoinPool pool,
+                                        final List<? extends Path<?>> paths,
+                                        final Path<?> needle) {
+    final PathSearch search = Path.compileSearch(needle);
+    return matching(pool, paths, p -> search.indexIn(p) >= 0);
+  }
+
+  /**
+   * Returns a new {@link BitSet} of the indices of the supplied {@link
+   * Path}s that the supplied {@link PathPattern} {@linkplain
+   * PathPattern#matches(Path) matches}.
+   *
+   * @param pool the {@link ForkJoinPool} to use; must not be {@code
+   * null}
+   *
+   * @param paths the {@link Path}s; must not be {@code null} or
+   * contain {@code null} elements
+   *
+   * @param pattern the {@link PathPattern}; must not be {@code null}
+   *
+   * @return a new {@link BitSet} of indices; never {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   * or {@code paths} contains {@code null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see PathPattern#matches(Path)
+   */
+  public static final BitSet matching(final ForkJoinPool pool,
+                                      final List<? extends Path<?>> paths,
+                                      final PathPattern pattern) {
+    Objects.requireNonNull(pattern, "pattern");
+    return matching(pool, paths, pattern::matches);
+  }
+
+  /**
+   * Returns a new {@link BitSet} of the indices of the supplied {@link
+   * Path}s that the supplied {@link Predicate} accepts.
+   *
+   * @param pool the {@link ForkJoinPool} to use; must not be {@code
+   * null}
+   *
+   * @param paths the {@link Path}s; must not be {@code null} or
+   * contain {@code null} elements
+   *
+   * @param p the {@link Predicate}; must not be {@code null}; must be
+   * safe for concurrent use
+   *
+   * @return a new {@link BitSet} of indices; never {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final BitSet matching(final ForkJoinPool pool,
+                                      final List<? extends Path<?>> paths,
+                                      final Predicate<? super Path<?>> p) {
+    Objects.requireNonNull(p, "p");
+    return indices(pool, paths.size(), i -> p.test(paths.get(i)));
+  }
+
+  /**
+   * Returns a new {@link List} of the supplied {@link Path}s with
+   * {@linkplain Path#equals(Object) duplicates} removed, retaining the
+   * first occurrence of each, in encounter order.
+   *
+   * @param pool the {@link ForkJoinPool} to use; must not be {@code
+   * null}
+   *
+   * @param paths the {@link Path}s; must not be {@code null} or
+   * contain {@code null} elements
+   *
+   * @return a new, fixed-size {@link List} of distinct {@link
+   * Path}s; never {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   * or {@code paths} contains {@code null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final List<Path<?>> distinct(final ForkJoinPool pool, final List<? extends Path<?>> paths) {
+    final int size = paths.size();
+    final ConcurrentHashMap<Path<?>, Integer> firstIndices = new ConcurrentHashMap<>(size);
+    run(pool, size, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          firstIndices.merge(paths.get(i), i, Math::min);
+        }
+      });
+    final BitSet firsts = indices(pool, size, i -> firstIndices.get(paths.get(i)).intValue() == i);
+    final Path<?>[] distinct = new Path<?>[firsts.cardinality()];
+    int j = 0;
+    for (int i = firsts.nextSetBit(0); i >= 0; i = firsts.nextSetBit(i + 1)) {
+      distinct[j++] = paths.get(i);
+    }
+    return Arrays.asList(distinct);
+  }
+
+  /**
+   * Returns a new {@link List} of the {@linkplain Path#intern()
+   * interned} counterparts of the supplied {@link Path}s.
+   *
+   * @param pool the {@link ForkJoinPool} to use; must not be {@code
+   * null}
+   *
+   * @param paths the {@link Path}s; must not be {@code null} or
+   * contain {@code null} elements
+   *
+   * @return a new, fixed-size {@link List} of interned {@link
+   * Path}s; never {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   * or {@code paths} contains {@code null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see Path#intern()
+   */
+  public static final List<Path<?>> intern(final ForkJoinPool pool, final List<? extends Path<?>> paths) {
+    return map(pool, paths, Path::intern);
+  }
+
+  private static final List<Path<?>> map(final ForkJoinPool pool,
+                                         final List<? extends Path<?>> paths,
+                                         final Function<? super Path<?>, ? extends Path<?>> f) {
+    final Path<?>[] results = new Path<?>[paths.size()];
+    run(pool, results.length, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          results[i] = f.apply(paths.get(i));
+        }
+      });
+    return Arrays.asList(results);
+  }
+
+  // Returns the indices in [0, size) that p accepts.
+  private static final BitSet indices(final ForkJoinPool pool, final int size, final IntPredicate p) {
+    final long[] words = new long[(size + 63) >>> 6];
+    // Chunks start on word boundaries, so no two tasks write the same
+    // word.
+    run(pool, size, (from, to) -> {
+        for (int i = from; i < to; i++) {
+          if (p.test(i)) {
+            words[i >>> 6] |= 1L << i;
+          }
+        }
+      });
+    return BitSet.valueOf(words);
+  }
+
+  // Runs action over [0, size) in chunks on pool, or directly if size
+  // is small.
+  private static final void run(final ForkJoinPool pool, final int size, final RangeAction action) {
+    Objects.requireNonNull(pool, "pool");
+    final int chunk = chunkSize(size, pool.getParallelism());
+    if (size <= chunk) {
+      action.run(0, size);
+    } else {
+      pool.invoke(new Chunk(action, 0, size, chunk));
+    }
+  }
+
+  // Returns a chunk size giving each worker several chunks, at least
+  // MIN_CHUNK long, rounded up to a multiple of 64 so that chunks
+  // start on BitSet word boundaries.
+  static final int chunkSize(final int size, final int parallelism) {
+    final int chunk = Math.max(MIN_CHUNK, size / (Math.max(1, parallelism) * CHUNKS_PER_WORKER));
+    return (chunk + 63) & ~63;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  @FunctionalInterface
+  private static interface RangeAction {
+
+    void run(final int from, final int to);
+
+  }
+
+  // Splits its range in half, on a chunk boundary, until it is no
+  // longer than one chunk.
+  private static final class Chunk extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient RangeAction action;
+
+    private final int from;
+
+    private final int to;
+
+    private final int chunk;
+
+    private Chunk(final RangeAction action, final int from, final int to, final int chunk) {
+      super();
+      this.action = action;
+      this.from = from;
+      this.to = to;
+      this.chunk = chunk;
+    }
+
+    @Override // RecursiveAction
+    protected final void compute() {
+      final int length = this.to - this.from;
+      if (length <= this.chunk) {
+        this.action.run(this.from, this.to);
+      } else {
+        final int mid = this.from + ((length / this.chunk + 1) / 2) * this.chunk;
+        invokeAll(new Chunk(this.action, this.from, mid, this.chunk),
+                  new Chunk(this.action, mid, this.to, this.chunk));
+      }
+    }
+
+  }
+
+}
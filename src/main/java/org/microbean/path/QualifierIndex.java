@@ -0,0 +1,518 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+/**
+ * An immutable inverted index of a list of {@link Path}s by their
+ * {@linkplain Path#qualifiers() qualifiers}, answering queries such as
+ * "which {@link Path}s have both {@code env=test} and {@code
+ * c.foo=bar}?" without examining each {@link Path}.
+ *
+ * <p>Each {@link Path} is identified by its <em>ordinal</em>: its
+ * zero-based position in the list supplied at construction time.
+ * Each distinct (name, value) pair among the {@link Path}s'
+ * qualifiers, including the element-prefixed names under which {@link
+ * Path}s aggregate their {@link Path.Element}s' qualifiers, maps to a
+ * compressed bitmap of the ordinals of the {@link Path}s bearing it.
+ * A conjunctive query is an intersection of such bitmaps, performed
+ * smallest first.</p>
+ *
+ * <p>The bitmaps follow the layout of Roaring bitmaps: ordinals are
+ * partitioned by their high 16 bits, and each partition is stored as
+ * a sorted array of its low 16 bits when it holds at most 4096
+ * ordinals, and as a 65536-bit bitmap otherwise.  Sparse pairs
+ * therefore cost two bytes per {@link Path} and dense pairs one bit
+ * per {@link Path}.</p>
+ *
+ * <p>Qualifier values are compared using their {@link
+ * Object#equals(Object)} methods.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are immutable and safe for
+ * concurrent use by multiple threads.
+ *
+ * @see Path#qualifiers()
+ */
+public final class QualifierIndex {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final List<Path<?>> paths;
+
+  private final Map<String, Map<Object, Bitmap>> index;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  private QualifierIndex(final List<Path<?>> paths) {
+    super();
+    this.paths = paths;
+    final Map<String, Map<Object, Bitmap.Builder>> builders = new HashMap<>();
+    for (int ordinal = 0; ordinal < paths.size(); ordinal++) {
+      for (final Qualifier<String, Object> q : paths.get(ordinal).qualifiers()) {
+        builders.computeIfAbsent(q.name(), n -> new HashMap<>())
+          .computeIfAbsent(q.value(), v -> new Bitmap.Builder())
+          .add(ordinal);
+      }
+    }
+    final Map<String, Map<Object, Bitmap>> index = new HashMap<>(builders.size() * 2);
+    for (final Map.Entry<String, Map<Object, Bitmap.Builder>> e : builders.entrySet()) {
+      final Map<Object, Bitmap> values = new HashMap<>(e.getValue().size() * 2);
+      for (final Map.Entry<Object, Bitmap.Builder> ve : e.getValue().entrySet()) {
+        values.put(ve.getKey(), ve.getValue().build());
+      }
+      index.put(e.getKey(), values);
+    }
+    this.index = index;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns an immutable {@link List} of the {@link Path}s in this
+   * {@link QualifierIndex}, in ordinal order.
+   *
+   * @return an immutable {@link List} of {@link Path}s; never {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public final List<Path<?>> paths() {
+    return this.paths;
+  }
+
+  /**
+   * Returns the number of {@link Path}s in this {@link
+   * QualifierIndex}.
+   *
+   * @return the number of {@link Path}s in this {@link
+   * QualifierIndex}
+   */
+  public final int size() {
+    return this.paths.size();
+  }
+
+  /**
+   * Returns the number of {@link Path}s bearing a qualifier with the
+   * supplied name and value.
+   *
+   * @param name the qualifier name; must not be {@code null}
+   *
+   * @param value the qualifier value; must not be {@code null}
+   *
+   * @return the number of matching {@link Path}s
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final int count(final String name, final Object value) {
+    return this.bitmap(name, value).cardinality;
+  }
+
+  /**
+   * Returns a new {@link BitSet} of the ordinals of the {@link Path}s
+   * bearing a qualifier with the supplied name and value.
+   *
+   * @param name the qualifier name; must not be {@code null}
+   *
+   * @param value the qualifier value; must not be {@code null}
+   *
+   * @return a new {@link BitSet} of ordinals; never {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final BitSet matchingIndices(final String name, final Object value) {
+    return this.bitmap(name, value).toBitSet();
+  }
+
+  /**
+   * Returns a new {@link BitSet} of the ordinals of the {@link Path}s
+   * bearing every one of the supplied qualifiers.
+   *
+   * <p>If {@code qualifiers} is empty, the ordinals of all {@link
+   * Path}s in this {@link QualifierIndex} are returned.</p>
+   *
+   * @param qualifiers the qualifiers; must not be {@code null}
+   *
+   * @return a new {@link BitSet} of ordinals; never {@code null}
+   *
+   * @exception NullPointerException if {@code qualifiers} is {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   */
+  public final BitSet matchingIndices(final Qualifiers<String, Object> qualifiers) {
+    if (qualifiers.isEmpty()) {
+      final BitSet all = new BitSet(this.paths.size());
+      all.set(0, this.paths.size());
+      return all;
+    }
+    final Bitmap[] bitmaps = new Bitmap[qualifiers.size()];
+    int i = 0;
+    for (final Qualifier<String, Object> q : qualifiers) {
+      final Bitmap bitmap = this.bitmap(q.name(), q.value());
+      if (bitmap.cardinality == 0) {
+        return new BitSet();
+      }
+      bitmaps[i++] = bitmap;
+    }
+    // Intersect smallest first so that intermediate results are as
+    // small as possible.
+    Arrays.sort(bitmaps, (a, b) -> Integer.compare(a.cardinality, b.cardinality));
+    Bitmap result = bitmaps[0];
+    for (i = 1; i < bitmaps.length && result.cardinality > 0; i++) {
+      result = result.and(bitmaps[i]);
+    }
+    return result.toBitSet();
+  }
+
+  /**
+   * Returns a new {@link List} of the {@link Path}s bearing every one
+   * of the supplied qualifiers, in ordinal order.
+   *
+   * @param qualifiers the qualifiers; must not be {@code null}
+   *
+   * @return a new {@link List} of {@link Path}s; never {@code null}
+   *
+   * @exception NullPointerException if {@code qualifiers} is {@code
+   * null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @idempotency This method is idempotent and deterministic.
+   *
+   * @see #matchingIndices(Qualifiers)
+   */
+  public final List<Path<?>> matching(final Qualifiers<String, Object> qualifiers) {
+    final BitSet indices = this.matchingIndices(qualifiers);
+    final Path<?>[] matching = new Path<?>[indices.cardinality()];
+    int j = 0;
+    for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+      matching[j++] = this.paths.get(i);
+    }
+    return Arrays.asList(matching);
+  }
+
+  private final Bitmap bitmap(final String name, final Object value) {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(value, "value");
+    final Map<Object, Bitmap> values = this.index.get(name);
+    if (values == null) {
+      return Bitmap.EMPTY;
+    }
+    final Bitmap bitmap = values.get(value);
+    return bitmap == null ? Bitmap.EMPTY : bitmap;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a {@link QualifierIndex} indexing the supplied {@link
+   * Path}s, whose ordinals are their positions in iteration order.
+   *
+   * @param paths the {@link Path}s; must not be {@code null} or
+   * contain {@code null} elements
+   *
+   * @return a new {@link QualifierIndex}; never {@code null}
+   *
+   * @exception NullPointerException if {@code paths} is {@code null}
+   * or contains {@code null} elements
+   *
+   * @nullability This method never returns {@code null}.
+   */
+  public static final QualifierIndex of(final Collection<? extends Path<?>> paths) {
+    return new QualifierIndex(List.copyOf(paths));
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  // An immutable compressed bitmap of non-negative ints, partitioned
+  // by their high 16 bits into Containers.
+  private static final class Bitmap {
+
+    private static final Bitmap EMPTY = new Bitmap(new char[0], new Container[0], 0, 0);
+
+    // The high 16 bits of each container, ascending.
+    private final char[] keys;
+
+    private final Container[] containers;
+
+    private final int size;
+
+    private final int cardinality;
+
+    private Bitmap(final char[] keys, final Container[] containers, final int size, final int cardinality) {
+      super();
+      this.keys = keys;
+      this.containers = containers;
+      this.size = size;
+      this.cardinality = cardinality;
+    }
+
+    private final Bitmap and(final Bitmap other) {
+      final int max = Math.min(this.size, other.size);
+      final char[] keys = new char[max];
+      final Container[] containers = new Container[max];
+      int size = 0;
+      int cardinality = 0;
+      int i = 0;
+      int j = 0;
+      while (i < this.size && j < other.size) {
+        final char a = this.keys[i];
+        final char b = other.keys[j];
+        if (a < b) {
+          ++i;
+        } else if (a > b) {
+          ++j;
+        } else {
+          final Container c = this.containers[i++].and(other.containers[j++]);
+          if (c != null) {
+            keys[size] = a;
+            containers[size++] = c;
+            cardinality += c.cardinality;
+          }
+        }
+      }
+      return size == 0 ? EMPTY : new Bitmap(keys, containers, size, cardinality);
+    }
+
+    private final BitSet toBitSet() {
+      final BitSet bitSet = new BitSet();
+      for (int i = 0; i < this.size; i++) {
+        this.containers[i].addTo(bitSet, this.keys[i] << 16);
+      }
+      return bitSet;
+    }
+
+    // Accumulates ints, which must be added in ascending order, into
+    // a Bitmap.
+    private static final class Builder {
+
+      private char[] keys;
+
+      private Container[] containers;
+
+      private int size;
+
+      private int cardinality;
+
+      private char[] lows;
+
+      private int lowCount;
+
+      private int currentKey;
+
+      private int last;
+
+      private Builder() {
+        super();
+        this.keys = new char[1];
+        this.containers = new Container[1];
+        this.lows = new char[4];
+        this.currentKey = -1;
+        this.last = -1;
+      }
+
+      private final void add(final int value) {
+        if (value <= this.last) {
+          // Already present (ordinals only ever increase).
+          return;
+        }
+        this.last = value;
+        final int key = value >>> 16;
+        if (key != this.currentKey) {
+          this.flush();
+          this.currentKey = key;
+        }
+        if (this.lowCount == this.lows.length) {
+          this.lows = Arrays.copyOf(this.lows, Math.min(this.lowCount * 2, 1 << 16));
+        }
+        this.lows[this.lowCount++] = (char)value;
+      }
+
+      private final void flush() {
+        if (this.lowCount > 0) {
+          if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            this.containers = Arrays.copyOf(this.containers, this.size * 2);
+          }
+          this.keys[this.size] = (char)this.currentKey;
+          this.containers[this.size++] = Container.of(this.lows, this.lowCount);
+          this.cardinality += this.lowCount;
+          this.lowCount = 0;
+        }
+      }
+
+      private final Bitmap build() {
+        this.flush();
+        return new Bitmap(Arrays.copyOf(this.keys, this.size),
+                          Arrays.copyOf(this.containers, this.size),
+                          this.size,
+                          this.cardinality);
+      }
+
+    }
+
+  }
+
+  // An immutable set of 16-bit values: either a sorted array or, when
+  // that would be larger, a 65536-bit bitmap.
+  private static final class Container {
+
+    private static final int ARRAY_MAX = 4096;
+
+    // Non-null if and only if this is an array container.
+    private final char[] array;
+
+    // Non-null if and only if this is a bitmap container.
+    private final long[] bits;
+
+    private final int cardinality;
+
+    private Container(final char[] array, final long[] bits, final int cardinality) {
+      super();
+      this.array = array;
+      this.bits = bits;
+      this.cardinality = cardinality;
+    }
+
+    // Returns the intersection, or null if it is empty.
+    private final Container and(final Container other) {
+      if (this.bits == null) {
+        return other.bits == null ? andArrays(this.array, other.array) : filter(this.array, other.bits);
+      } else if (other.bits == null) {
+        return filter(other.array, this.bits);
+      }
+      final long[] bits = new long[1024];
+      int cardinality = 0;
+      for (int i = 0; i < bits.length; i++) {
+        bits[i] = this.bits[i] & other.bits[i];
+        cardinality += Long.bitCount(bits[i]);
+      }
+      if (cardinality == 0) {
+        return null;
+      } else if (cardinality > ARRAY_MAX) {
+        return new Container(null, bits, cardinality);
+      }
+      final char[] array = new char[cardinality];
+      int j = 0;
+      for (int i = 0; i < bits.length; i++) {
+        for (long w = bits[i]; w != 0; w &= w - 1) {
+          array[j++] = (char)((i << 6) + Long.numberOfTrailingZeros(w));
+        }
+      }
+      return new Container(array, null, cardinality);
+    }
+
+    private final void addTo(final BitSet bitSet, final int base) {
+      if (this.bits == null) {
+        for (final char c : this.array) {
+          bitSet.set(base + c);
+        }
+      } else {
+        for (int i = 0; i < this.bits.length; i++) {
+          for (long w = this.bits[i]; w != 0; w &= w - 1) {
+            bitSet.set(base + (i << 6) + Long.numberOfTrailingZeros(w));
+          }
+        }
+      }
+    }
+
+    private static final Container of(final char[] lows, final int count) {
+      if (count <= ARRAY_MAX) {
+        return new Container(Arrays.copyOf(lows, count), null, count);
+      }
+      final long[] bits = new long[1024];
+      for (int i = 0; i < count; i++) {
+        bits[lows[i] >>> 6] |= 1L << lows[i];
+      }
+      return new Container(null, bits, count);
+    }
+
+    private static final Container andArrays(final char[] a, final char[] b) {
+      final char[] result = new char[Math.min(a.length, b.length)];
+      int n = 0;
+      int i = 0;
+      int j = 0;
+      while (i < a.length && j < b.length) {
+        if (a[i] < b[j]) {
+          ++i;
+        } else if (a[i] > b[j]) {
+          ++j;
+        } else {
+          result[n++] = a[i++];
+          ++j;
+        }
+      }
+      return n == 0 ? null : new Container(Arrays.copyOf(result, n), null, n);
+    }
+
+    private static final Container filter(final char[] array, final long[] bits) {
+      final char[] result = new char[array.length];
+      int n = 0;
+      for (final char c : array) {
+        if ((bits[c >>> 6] & (1L << c)) != 0) {
+          result[n++] = c;
+        }
+      }
+      return n == 0 ? null : new Container(Arrays.copyOf(result, n), null, n);
+    }
+
+  }
+
+}
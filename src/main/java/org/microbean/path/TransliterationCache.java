@@ -0,0 +1,335 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import java.util.function.BiFunction;
+
+import org.microbean.path.Path.Element;
+
+/**
+ * A bounded, concurrent cache of the results of {@linkplain
+ * Path#transliterate(String, BiFunction) transliterating} {@link
+ * Path}s.
+ *
+ * <p>Results are keyed by the {@link Path} being transliterated, the
+ * package name supplied to the transliteration function, and the
+ * <em>identity</em> of the transliteration function itself.  Callers
+ * should therefore reuse a single function instance rather than, for
+ * example, supplying a new capturing lambda on each call.  The
+ * transliteration function must be deterministic for a given package
+ * name and {@link Element}, as {@link
+ * Path#transliterate(String, BiFunction)} expects.</p>
+ *
+ * <p>The cache is divided into a fixed number of independently locked
+ * stripes, each of which evicts its least recently used entries once
+ * it holds its share of the {@linkplain #TransliterationCache(int)
+ * maximum size}.  Two threads missing on the same key at the same
+ * time may each compute the (equal) result; one of them is
+ * retained.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @threadsafety Instances of this class are safe for concurrent use
+ * by multiple threads.
+ *
+ * @see Path#transliterate(String, BiFunction)
+ */
+public final class TransliterationCache {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  private static final int STRIPES = 16;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final Stripe[] stripes;
+
+  private final LongAdder hits;
+
+  private final LongAdder misses;
+
+  private final LongAdder evictions;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link TransliterationCache} that holds
+   * approximately at most the supplied number of entries.
+   *
+   * @param maximumSize the maximum number of entries; must be
+   * positive
+   *
+   * @exception IllegalArgumentException if {@code maximumSize} is not
+   * positive
+   */
+  public TransliterationCache(final int maximumSize) {
+    super();
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize: " + maximumSize);
+    }
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+    final int stripeCount = Math.min(STRIPES, Integer.highestOneBit(maximumSize));
+    final int stripeSize = (maximumSize + stripeCount - 1) / stripeCount;
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      this.stripes[i] = new Stripe(stripeSize, this.evictions);
+    }
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the result of {@linkplain Path#transliterate(String,
+   * BiFunction) transliterating} the supplied {@link Path} with the
+   * supplied package name and function, computing and caching it if
+   * necessary.
+   *
+   * <p>If the supplied {@link Path} {@linkplain Path#transliterated()
+   * is already transliterated}, or if {@code f} is {@code null}, the
+   * cache is bypassed.</p>
+   *
+   * @param <T> the type of the {@link Path}
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @param packageName the package name; must not be {@code null}
+   *
+   * @param f the transliteration function; may be {@code null}
+   *
+   * @return the transliterated {@link Path}; never {@code null}
+   *
+   * @exception NullPointerException if {@code path} or {@code
+   * packageName} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see Path#transliterate(String, BiFunction)
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> Path<T> transliterate(final Path<T> path,
+                                         final String packageName,
+                                         final BiFunction<? super String, ? super Element<?>, ? extends Element<?>> f) {
+    if (f == null || path.transliterated()) {
+      return path.transliterate(packageName, f);
+    }
+    final Key key = new Key(path, packageName, f);
+    final Stripe stripe = this.stripes[spread(key.hashCode) & (this.stripes.length - 1)];
+    Path<?> result = stripe.get(key);
+    if (result == null) {
+      this.misses.increment();
+      result = path.transliterate(packageName, f);
+      stripe.put(key, result);
+    } else {
+      this.hits.increment();
+    }
+    return (Path<T>)result;
+  }
+
+  /**
+   * Returns the result of {@linkplain Path#transliterate(Class,
+   * BiFunction) transliterating} the supplied {@link Path} with the
+   * package name of the supplied {@link Class} and the supplied
+   * function, computing and caching it if necessary.
+   *
+   * @param <T> the type of the {@link Path}
+   *
+   * @param path the {@link Path}; must not be {@code null}
+   *
+   * @param caller the {@link Class} whose package name will be used;
+   * must not be {@code null}
+   *
+   * @param f the transliteration function; may be {@code null}
+   *
+   * @return the transliterated {@link Path}; never {@code null}
+   *
+   * @exception NullPointerException if {@code path} or {@code
+   * caller} is {@code null}
+   *
+   * @nullability This method never returns {@code null}.
+   *
+   * @see #transliterate(Path, String, BiFunction)
+   */
+  public final <T> Path<T> transliterate(final Path<T> path,
+                                         final Class<?> caller,
+                                         final BiFunction<? super String, ? super Element<?>, ? extends Element<?>> f) {
+    return this.transliterate(path, caller.getPackageName(), f);
+  }
+
+  /**
+   * Returns the number of lookups that found a cached result.
+   *
+   * @return the number of lookups that found a cached result
+   */
+  public final long hits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups that had to compute a result.
+   *
+   * @return the number of lookups that had to compute a result
+   */
+  public final long misses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the number of entries evicted to respect the maximum
+   * size.
+   *
+   * @return the number of entries evicted
+   */
+  public final long evictions() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Returns the number of entries currently cached.
+   *
+   * @return the number of entries currently cached
+   */
+  public final int size() {
+    int size = 0;
+    for (final Stripe stripe : this.stripes) {
+      size += stripe.size();
+    }
+    return size;
+  }
+
+  /**
+   * Removes all cached entries.  Counters are not reset.
+   */
+  public final void clear() {
+    for (final Stripe stripe : this.stripes) {
+      stripe.clear();
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  private static final int spread(final int h) {
+    return h ^ (h >>> 16);
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  private static final class Key {
+
+    private final Path<?> path;
+
+    private final String packageName;
+
+    private final Object function;
+
+    private final int hashCode;
+
+    private Key(final Path<?> path, final String packageName, final Object function) {
+      super();
+      this.path = path;
+      this.packageName = Objects.requireNonNull(packageName, "packageName");
+      this.function = function;
+      this.hashCode = (path.hashCode() * 31 + packageName.hashCode()) * 31 + System.identityHashCode(function);
+    }
+
+    @Override
+    public final int hashCode() {
+      return this.hashCode;
+    }
+
+    @Override
+    public final boolean equals(final Object other) {
+      return
+        other instanceof Key her &&
+        this.hashCode == her.hashCode &&
+        this.function == her.function &&
+        this.packageName.equals(her.packageName) &&
+        this.path.equals(her.path);
+    }
+
+  }
+
+  private static final class Stripe {
+
+    private final LinkedHashMap<Key, Path<?>> map;
+
+    private Stripe(final int maximumSize, final LongAdder evictions) {
+      super();
+      this.map = new LinkedHashMap<>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+          @Override
+          protected final boolean removeEldestEntry(final Map.Entry<Key, Path<?>> eldest) {
+            if (this.size() > maximumSize) {
+              evictions.increment();
+              return true;
+            }
+            return false;
+          }
+        };
+    }
+
+    private synchronized final Path<?> get(final Key key) {
+      return this.map.get(key);
+    }
+
+    private synchronized final void put(final Key key, final Path<?> value) {
+      this.map.putIfAbsent(key, value);
+    }
+
+    private synchronized final int size() {
+      return this.map.size();
+    }
+
+    private synchronized final void clear() {
+      this.map.clear();
+    }
+
+  }
+
+}
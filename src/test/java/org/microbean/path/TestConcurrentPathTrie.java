@@ -0,0 +1,206 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestConcurrentPathTrie {
+
+  private TestConcurrentPathTrie() {
+    super();
+  }
+
+  @Test
+  final void testLookupsAndSnapshots() {
+    final ConcurrentPathTrie<String> trie = new ConcurrentPathTrie<>();
+    final Path<?> a = Path.of(Element.of("a"));
+    final Path<?> ab = a.plus(Element.of("b"));
+    final Path<?> abc = ab.plus(Element.of("c"));
+    assertNull(trie.put(a, "a"));
+    assertNull(trie.put(abc, "abc"));
+    assertEquals("abc", trie.putIfAbsent(abc, "other"));
+    assertEquals("abc", trie.get(Path.of(null, "a", "b", "c")));
+    assertNull(trie.get(ab));
+    assertEquals("a", trie.longestPrefix(ab).getValue());
+    assertEquals(2, trie.descendants(a).size());
+
+    final ConcurrentPathTrie<String> snapshot = trie.snapshot();
+    final ConcurrentPathTrie<String> readOnly = trie.readOnlySnapshot();
+    assertEquals("abc", trie.remove(abc));
+    assertNull(trie.put(ab, "ab"));
+    assertNull(snapshot.put(Path.of(Element.of("x")), "x"));
+
+    assertEquals(2, trie.size());
+    assertNull(trie.get(abc));
+    assertEquals(3, snapshot.size());
+    assertNull(snapshot.get(ab));
+    assertEquals("abc", readOnly.get(abc));
+    assertEquals(2, readOnly.size());
+    assertThrows(UnsupportedOperationException.class, () -> readOnly.put(ab, "ab"));
+
+    assertEquals("ab", trie.remove(ab));
+    assertEquals("a", trie.remove(a));
+    assertEquals(0, trie.size());
+    assertNull(trie.longestPrefix(abc));
+  }
+
+  @Test
+  final void testConcurrentPuts() throws InterruptedException {
+    final ConcurrentPathTrie<Integer> trie = new ConcurrentPathTrie<>();
+    final int threadCount = 8;
+    final int perThread = 500;
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      final int thread = t;
+      threads.add(new Thread(() -> {
+        try {
+          start.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int i = 0; i < perThread; i++) {
+          // Threads share prefixes so that they contend on nodes.
+          trie.put(Path.of(null, "shared", "n" + (i % 16), "t" + thread, "i" + i), thread * perThread + i);
+          if (i % 50 == 0) {
+            trie.readOnlySnapshot();
+          }
+        }
+        for (int i = 0; i < perThread; i += 2) {
+          trie.remove(Path.of(null, "shared", "n" + (i % 16), "t" + thread, "i" + i));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    start.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(threadCount * perThread / 2, trie.size());
+    for (int t = 0; t < threadCount; t++) {
+      for (int i = 0; i < perThread; i++) {
+        final Integer value = trie.get(Path.of(null, "shared", "n" + (i % 16), "t" + t, "i" + i));
+        if (i % 2 == 0) {
+          assertNull(value);
+        } else {
+          assertEquals(Integer.valueOf(t * perThread + i), value);
+        }
+      }
+    }
+    for (int t = 0; t < threadCount; t++) {
+      for (int i = 1; i < perThread; i += 2) {
+        trie.remove(Path.of(null, "shared", "n" + (i % 16), "t" + t, "i" + i));
+      }
+    }
+    assertEquals(0, trie.size());
+    assertTrue(trie.descendants(Path.of(Element.of("shared"))).isEmpty());
+  }
+
+  @Test
+  final void testConcurrentSiblings() throws InterruptedException {
+    final ConcurrentPathTrie<Integer> trie = new ConcurrentPathTrie<>();
+    final int threadCount = 8;
+    final int perThread = 1000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      final int thread = t;
+      threads.add(new Thread(() -> {
+        try {
+          start.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int i = 0; i < perThread; i++) {
+          // Every thread adds children to the same node.
+          trie.put(Path.of(null, "parent", "c" + (thread * perThread + i)), thread * perThread + i);
+          if (i % 100 == 0) {
+            trie.snapshot();
+          }
+        }
+        for (int i = 0; i < perThread; i += 2) {
+          trie.remove(Path.of(null, "parent", "c" + (thread * perThread + i)));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    start.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    final int n = threadCount * perThread;
+    assertEquals(n / 2, trie.size());
+    assertEquals(n / 2, trie.descendants(Path.of(Element.of("parent"))).size());
+    for (int i = 0; i < n; i++) {
+      final Integer value = trie.get(Path.of(null, "parent", "c" + i));
+      if (i % 2 == 0) {
+        assertNull(value);
+      } else {
+        assertEquals(Integer.valueOf(i), value);
+      }
+    }
+    final ConcurrentPathTrie<Integer> snapshot = trie.snapshot();
+    for (int i = 1; i < n; i += 2) {
+      assertEquals(Integer.valueOf(i), trie.remove(Path.of(null, "parent", "c" + i)));
+    }
+    assertEquals(0, trie.size());
+    assertTrue(trie.descendants(Path.of(Element.of("parent"))).isEmpty());
+    assertEquals(n / 2, snapshot.size());
+  }
+
+  @Test
+  final void testCollidingSiblings() {
+    // "Aa" and "BB" have the same hash code, so these names all do.
+    final List<String> names = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      final StringBuilder sb = new StringBuilder();
+      for (int bit = 0; bit < 4; bit++) {
+        sb.append((i & (1 << bit)) == 0 ? "Aa" : "BB");
+      }
+      names.add(sb.toString());
+    }
+    final ConcurrentPathTrie<String> trie = new ConcurrentPathTrie<>();
+    for (final String name : names) {
+      assertNull(trie.put(Path.of(null, "parent", name), name));
+    }
+    assertEquals(names.size(), trie.size());
+    for (final String name : names) {
+      assertEquals(name, trie.get(Path.of(null, "parent", name)));
+    }
+    for (final String name : names) {
+      assertEquals(name, trie.remove(Path.of(null, "parent", name)));
+      assertNull(trie.get(Path.of(null, "parent", name)));
+    }
+    assertEquals(0, trie.size());
+    assertTrue(trie.descendants(Path.of(Element.of("parent"))).isEmpty());
+  }
+
+}
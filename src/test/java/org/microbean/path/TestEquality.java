@@ -0,0 +1,67 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+import org.microbean.path.Path.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+final class TestEquality {
+
+  private TestEquality() {
+    super();
+  }
+
+  @Test
+  final void testEqualPathsHaveEqualHashCodes() {
+    final Path<String> p0 = path("c");
+    final Path<String> p1 = path("c");
+    assertEquals(p0, p1);
+    assertEquals(p0.hashCode(), p1.hashCode());
+    // Again, now that both hashcodes are cached.
+    assertEquals(p0, p1);
+    assertEquals(p0.hashCode(), p1.hashCode());
+  }
+
+  @Test
+  final void testCachedHashCodesRejectUnequalPaths() {
+    final Path<String> p0 = path("c");
+    final Path<String> p1 = path("d");
+    assertNotEquals(p0, p1);
+    p0.hashCode();
+    p1.hashCode();
+    assertNotEquals(p0, p1);
+    assertNotEquals(p0.lastElement(), p1.lastElement());
+  }
+
+  private static final Path<String> path(final String lastName) {
+    return
+      new Path<>(Qualifiers.of(Qualifier.<String, String>of("env", "test")),
+                 List.of(Element.of("a", "a"),
+                         Element.of("b", "b")),
+                 Element.of(Qualifiers.of(Qualifier.<String, String>of("foo", "bar")), lastName, lastName));
+  }
+
+}
@@ -0,0 +1,107 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifiers;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import org.openjdk.jol.vm.VM;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestFootprint {
+
+  private TestFootprint() {
+    super();
+  }
+
+  @Test
+  final void testShallowPathRetainsOnlyItself() {
+    final Element<?> a = Element.of("a");
+    final Element<?> b = Element.of("b");
+    final Element<?> c = Element.of(String.class, "c");
+    final Qualifiers<String, Object> qualifiers = Qualifiers.of("env", "test");
+    final Path.Builder builder = new Path.Builder().qualifiers(qualifiers);
+    for (final Path<?> path : List.of(Path.of(qualifiers, c),
+                                      Path.of(qualifiers, List.of(a), c),
+                                      Path.of(qualifiers, List.of(a, b), c),
+                                      builder.build(c),
+                                      builder.add(a).build(c),
+                                      builder.add(b).build(c),
+                                      builder.add(c).build())) {
+      final long retained = GraphLayout.parseInstance(path)
+        .subtract(GraphLayout.parseInstance(a, b, c, qualifiers))
+        .totalSize();
+      assertEquals(VM.current().sizeOf(path), retained);
+    }
+  }
+
+  @Test
+  final void testDeepPathRetainsOnlyItselfAndOneTrimmedArray() {
+    final List<Element<?>> elements = List.of(Element.of("a"), Element.of("b"), Element.of("c"), Element.of("d"));
+    final Element<?> e = Element.of(String.class, "e");
+    final Qualifiers<String, Object> qualifiers = Qualifiers.of("env", "test");
+    final Path<?> path = Path.of(qualifiers, elements, e);
+    final long retained = GraphLayout.parseInstance(path)
+      .subtract(GraphLayout.parseInstance(elements.get(0), elements.get(1), elements.get(2), elements.get(3), e, qualifiers))
+      .totalSize();
+    assertEquals(VM.current().sizeOf(path) + VM.current().sizeOf(new Element<?>[5]), retained);
+  }
+
+  @Test
+  final void testAppendedPathRetainsOnlyItself() {
+    final Path<?> parent = Path.of(null, "a", "b");
+    final Element<?> c = Element.of("c");
+    final Path<?> path = parent.plus(c);
+    final long retained = GraphLayout.parseInstance(path)
+      .subtract(GraphLayout.parseInstance(parent, c))
+      .totalSize();
+    assertEquals(VM.current().sizeOf(path), retained);
+  }
+
+  @Test
+  final void testArrayBackedIteration() {
+    final Path<?> path = Path.of(null, "a", "b").plus(Element.of("c"));
+    final Spliterator<Element<?>> spliterator = path.spliterator();
+    final int characteristics =
+      Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+    assertEquals(characteristics, spliterator.characteristics() & characteristics);
+    assertEquals(3, spliterator.getExactSizeIfKnown());
+    assertEquals(List.of("a", "b", "c"), path.stream().map(Element::name).toList());
+    assertEquals(3L, path.parallelStream().count());
+    final Iterator<Element<?>> i = path.iterator();
+    assertEquals("a", i.next().name());
+    assertThrows(UnsupportedOperationException.class, i::remove);
+    assertEquals("b", i.next().name());
+    assertTrue(i.hasNext());
+    assertEquals("c", i.next().name());
+    assertFalse(i.hasNext());
+  }
+
+}
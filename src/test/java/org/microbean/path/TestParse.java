@@ -0,0 +1,113 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.io.IOException;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestParse {
+
+  private TestParse() {
+    super();
+  }
+
+  @Test
+  final void testRoundTrip() {
+    final Path<?> path =
+      Path.of(Qualifiers.of("env", "test"),
+              List.of(Element.of("a/b"), Element.of(Qualifiers.of(List.of(Qualifier.of("k", "v,w"), Qualifier.of("x", "]"))), null, "c:d")),
+              Element.of(String.class, "e"));
+    final String s = path.toString();
+    assertEquals("a\\/b/c\\:d[k=v\\,w,x=\\]]/java.lang.String:e{env=test}", s);
+    final Path<?> parsed = Path.parse(s, TestParse::forName);
+    assertEquals(path, parsed);
+    assertSame(String.class, parsed.qualified());
+    assertEquals(s, parsed.toString());
+    assertEquals("java.lang.String", Path.parse(s).qualified());
+  }
+
+  @Test
+  final void testRoot() {
+    assertEquals("", Path.root().toString());
+    // Only the non-transliterated root path round-trips; Path.root()
+    // is transliterated, which toString() does not record.
+    final Path<?> root = Path.of(Element.root());
+    assertEquals("", root.toString());
+    assertEquals(root, Path.parse(root.toString()));
+    assertFalse(Path.parse("").transliterated());
+    assertTrue(Path.root().transliterated());
+    assertEquals(Path.root().plus(Element.of("a")), Path.parse("/a"));
+  }
+
+  @Test
+  final void testElement() {
+    final Element<?> e = Element.parse("x:y[a=b]");
+    assertEquals("x", e.qualified());
+    assertEquals("y", e.name());
+    assertEquals(Qualifiers.of("a", "b"), e.qualifiers());
+    assertEquals(e, Element.parse(e.toString()));
+  }
+
+  @Test
+  final void testMalformed() {
+    assertThrows(IllegalArgumentException.class, () -> Path.parse("a[b]"));
+    assertThrows(IllegalArgumentException.class, () -> Path.parse("a[b=c"));
+    assertThrows(IllegalArgumentException.class, () -> Path.parse("a:b:c"));
+    assertThrows(IllegalArgumentException.class, () -> Path.parse("a{b=c}/d"));
+    assertThrows(IllegalArgumentException.class, () -> Element.parse("a/b"));
+    assertThrows(IllegalArgumentException.class, () -> Path.parse("a\\"));
+  }
+
+  @Test
+  final void testAppendTo() throws IOException {
+    final Path<?> path =
+      Path.of(Qualifiers.of("env", "t\\est"),
+              List.of(Element.of(Qualifiers.of("a,b", "c=d"), String.class, "x/y")),
+              Element.of("z"));
+    final String string = path.toString();
+    assertSame(string, path.toString());
+    assertEquals(string.length(), path.renderedLength());
+    assertEquals(string.length(), Path.parse(string, TestParse::forName).renderedLength());
+    assertEquals("<" + string + ">", path.appendTo(new StringBuilder("<")).append('>').toString());
+    final Element<?> element = path.get(0);
+    assertEquals(element.toString().length(), element.renderedLength());
+    assertEquals(element.toString(), element.appendTo(new StringBuilder()).toString());
+  }
+
+  private static final Object forName(final String name) {
+    try {
+      return Class.forName(name);
+    } catch (final ClassNotFoundException e) {
+      throw new IllegalArgumentException(name, e);
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.nio.ByteBuffer;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathCodec {
+
+  private TestPathCodec() {
+    super();
+  }
+
+  @Test
+  final void testRoundTrip() {
+    final Element<?> a = Element.of(Qualifiers.of(List.of(Qualifier.of("env", "prod"),
+                                                          Qualifier.of("n", -42),
+                                                          Qualifier.of("l", Long.MAX_VALUE),
+                                                          Qualifier.of("b", Boolean.TRUE))),
+                                    null,
+                                    "a");
+    final Path<?> p1 = Path.of(Qualifiers.of("region", "us"), List.of(a), Element.of(String.class, "b"));
+    final Path<?> p2 = Path.of(Qualifiers.of(), List.of(a), Element.of(Integer.class, "b"));
+    final PathCodec codec = PathCodec.of(PathCodec.QualifiedCodec.classes(this.getClass().getClassLoader()));
+    final ByteBuffer buffer = ByteBuffer.allocate(512);
+    final PathCodec.Encoder encoder = codec.newEncoder(buffer);
+    encoder.write(p1);
+    final int firstLength = buffer.position();
+    encoder.write(p2);
+    encoder.write(Path.root());
+    // The second Path reuses the first's element and strings.
+    assertTrue(buffer.position() - firstLength < firstLength / 2);
+    buffer.flip();
+
+    final PathCodec.Decoder decoder = codec.newDecoder(buffer);
+    final Path<?> d1 = decoder.readPath();
+    final Path<?> d2 = decoder.readPath();
+    assertEquals(p1, d1);
+    assertEquals(p2, d2);
+    assertSame(String.class, d1.qualified());
+    assertSame(d1.get(0), d2.get(0));
+    assertSame(Path.root(), decoder.readPath());
+    assertFalse(decoder.hasRemaining());
+  }
+
+  @Test
+  final void testStrings() {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+    PathCodec.of().newEncoder(buffer).write(Path.of(null, "x", "y"));
+    buffer.flip();
+    assertEquals(Path.of(null, "x", "y"), PathCodec.of().newDecoder(buffer).readPath());
+  }
+
+  @Test
+  final void testCorruptCounts() {
+    // A corrupt element count is rejected before anything is sized by
+    // it.
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    PathCodec.Encoder encoder = PathCodec.of().newEncoder(buffer);
+    encoder.writeVarint(0);
+    encoder.writeVarint(Integer.MAX_VALUE);
+    buffer.flip();
+    final PathCodec.Decoder d1 = PathCodec.of().newDecoder(buffer);
+    assertThrows(IllegalArgumentException.class, d1::readPath);
+
+    // So is a corrupt qualifier count.
+    buffer = ByteBuffer.allocate(64);
+    encoder = PathCodec.of().newEncoder(buffer);
+    encoder.writeVarint(0);
+    encoder.writeVarint(1);
+    encoder.write(Element.of("a"));
+    encoder.writeVarint(Integer.MAX_VALUE);
+    buffer.flip();
+    final PathCodec.Decoder d2 = PathCodec.of().newDecoder(buffer);
+    assertThrows(IllegalArgumentException.class, d2::readPath);
+  }
+
+}
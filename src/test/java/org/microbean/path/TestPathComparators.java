@@ -0,0 +1,194 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.lang.reflect.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathComparators {
+
+  private TestPathComparators() {
+    super();
+  }
+
+  @Test
+  final void testElementOrder() {
+    final Comparator<Element<?>> c = PathComparators.elements();
+    assertTrue(c.compare(Element.of("a"), Element.of("b")) < 0);
+    assertTrue(c.compare(Element.of("a"), Element.of(Qualifiers.of("q", "v"), null, "a")) < 0);
+    assertTrue(c.compare(Element.of(Qualifiers.of("q", "v"), null, "a"), Element.of(Qualifiers.of("q", "w"), null, "a")) < 0);
+    assertTrue(c.compare(Element.of("a"), Element.of(String.class, "a")) < 0);
+    assertTrue(c.compare(Element.of(Integer.class, "a"), Element.of(String.class, "a")) < 0);
+    assertEquals(0, c.compare(Element.of(String.class, "a"), Element.of(String.class, "a")));
+    assertNotEquals(0, c.compare(Element.of(1, "a"), Element.of("1", "a")));
+
+    // A pluggable tie-break for Types.
+    final Comparator<Element<?>> reversed = PathComparators.elements(Comparator.comparing(t -> t.getTypeName(), Comparator.reverseOrder()));
+    assertTrue(reversed.compare(Element.of(Integer.class, "a"), Element.of(String.class, "a")) > 0);
+  }
+
+  @Test
+  final void testPathOrder() {
+    final Path<?> a = Path.of(null, "a");
+    final Path<?> ab = Path.of(null, "a", "b");
+    final Path<?> abc = Path.of(null, "a", "b", "c");
+    final Path<?> abcd = Path.of(null, "a", "b", "c", "d");
+    final Path<?> ac = Path.of(null, "a", "c");
+    final Path<?> b = Path.of(null, "b");
+    final List<Path<?>> expected = List.of(Path.root(), a, ab, abc, abcd, ac, b);
+    final List<Path<?>> paths = new ArrayList<>(expected);
+    Collections.reverse(paths);
+    paths.sort(PathComparators.paths());
+    assertEquals(expected, paths);
+
+    final Comparator<Path<?>> c = PathComparators.paths();
+    assertEquals(0, c.compare(abcd, Path.of(null, "a", "b", "c", "d")));
+    assertEquals(0, c.compare(abcd, Path.of(null, "a", "b").plus(Path.of(null, "c", "d"))));
+    assertTrue(c.compare(Path.of(Qualifiers.of(), List.of(), Element.of("a")),
+                         Path.of(Qualifiers.of("env", "test"), List.of(), Element.of("a"))) < 0);
+    assertTrue(c.compare(abc, abc.transliterate()) < 0);
+  }
+
+  @Test
+  final void testConsistentWithEquals() {
+    final List<Path<?>> paths = List.of(Path.of(null, "a"),
+                                        Path.of(Qualifiers.of("env", "test"), List.of(), Element.of("a")),
+                                        Path.of(Qualifiers.of(), List.of(), Element.of(String.class, "a")),
+                                        Path.of(Qualifiers.of(), List.of(), Element.of(Qualifiers.of("q", "v"), null, "a")),
+                                        Path.of(null, "a", "b"),
+                                        Path.of(null, "a", "b", "c", "d", "e"));
+    final Comparator<Path<?>> c = PathComparators.paths();
+    for (final Path<?> p : paths) {
+      for (final Path<?> q : paths) {
+        assertEquals(p.equals(q), c.compare(p, q) == 0, p + " vs. " + q);
+        assertEquals(Integer.signum(c.compare(p, q)), -Integer.signum(c.compare(q, p)));
+      }
+    }
+  }
+
+  @Test
+  final void testIndistinguishableObjects() {
+    // Unequal objects with equal hash codes and no natural order must
+    // still compare as unequal, consistently, and equal ones as equal.
+    final Comparator<Element<?>> c = PathComparators.elements();
+    final Element<?> x1 = Element.of(new Colliding("x"), "a");
+    final Element<?> x2 = Element.of(new Colliding("x"), "a");
+    final Element<?> y = Element.of(new Colliding("y"), "a");
+    final Element<?> z = Element.of(new Colliding("z"), "a");
+    assertEquals(0, c.compare(x1, x2));
+    assertNotEquals(0, c.compare(x1, y));
+    assertEquals(Integer.signum(c.compare(x1, y)), -Integer.signum(c.compare(y, x1)));
+    assertEquals(Integer.signum(c.compare(x1, y)), Integer.signum(c.compare(x2, y)));
+    assertNotEquals(0, c.compare(y, z));
+
+    final List<Path<?>> paths = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      paths.add(Path.of(Qualifiers.of(), List.of(), Element.of(new Colliding(Integer.toString(i)), "a")));
+    }
+    final PathSet set = PathSet.of(paths);
+    assertEquals(100, set.size());
+    for (final Path<?> p : paths) {
+      assertTrue(set.contains(p));
+      assertTrue(set.contains(Path.of(Qualifiers.of(), List.of(), Element.of(new Colliding(p.qualified().toString()), "a"))));
+    }
+    assertFalse(set.contains(Path.of(Qualifiers.of(), List.of(), Element.of(new Colliding("absent"), "a"))));
+  }
+
+  @Test
+  final void testTypesFormOneCategory() {
+    // Types of different classes, compared with each other by name,
+    // must never be ordered against non-Types by class name.
+    final Type listOfString = StringList.class.getGenericInterfaces()[0];
+    final List<Object> objects = List.of(TestPathComparators.class,
+                                         Integer.class,
+                                         listOfString,
+                                         "m",
+                                         "a",
+                                         "z",
+                                         Integer.valueOf(1));
+    final List<Element<?>> elements = new ArrayList<>();
+    for (final Object o : objects) {
+      elements.add(Element.of(o, "x"));
+      elements.add(Element.of(Qualifiers.of("q", o), null, "x"));
+    }
+    final Comparator<Element<?>> c = PathComparators.elements();
+    for (final Element<?> a : elements) {
+      for (final Element<?> b : elements) {
+        final int ab = Integer.signum(c.compare(a, b));
+        assertEquals(-ab, Integer.signum(c.compare(b, a)), a + " vs. " + b);
+        assertEquals(a.equals(b), ab == 0, a + " vs. " + b);
+        for (final Element<?> e : elements) {
+          final int be = Integer.signum(c.compare(b, e));
+          if (ab == be && ab != 0) {
+            assertEquals(ab, Integer.signum(c.compare(a, e)), a + " vs. " + b + " vs. " + e);
+          }
+        }
+      }
+    }
+    final List<Path<?>> paths = new ArrayList<>();
+    for (final Element<?> e : elements) {
+      paths.add(Path.of(Qualifiers.of(), List.of(), e));
+    }
+    assertEquals(paths.size(), PathSet.of(paths).size());
+  }
+
+  private static interface StringList extends List<String> {
+
+  }
+
+  private static final class Colliding {
+
+    private final String value;
+
+    private Colliding(final String value) {
+      super();
+      this.value = value;
+    }
+
+    @Override
+    public final int hashCode() {
+      return 0;
+    }
+
+    @Override
+    public final boolean equals(final Object other) {
+      return other instanceof Colliding c && this.value.equals(c.value);
+    }
+
+    @Override
+    public final String toString() {
+      return this.value;
+    }
+
+  }
+
+}
@@ -0,0 +1,80 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+final class TestPathInterner {
+
+  private TestPathInterner() {
+    super();
+  }
+
+  @Test
+  final void testIntern() {
+    final PathInterner interner = new PathInterner();
+    final Path<?> p0 = Path.of(String.class, "a", "b");
+    final Path<?> p1 = Path.of(String.class, "a", "b");
+    assertNotSame(p0, p1);
+    assertSame(p0, interner.intern(p0));
+    assertSame(p0, interner.intern(p1));
+    assertSame(p0.lastElement(), interner.intern(p0.lastElement()));
+    assertSame(p0.lastElement(), interner.intern(p1.lastElement()));
+    assertEquals(2, interner.size());
+  }
+
+  @Test
+  final void testConcurrentIntern() throws Exception {
+    final PathInterner interner = new PathInterner();
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Callable<List<Path<?>>>> tasks = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        tasks.add(() -> {
+            final List<Path<?>> canonical = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+              canonical.add(interner.intern(Path.of(Integer.valueOf(i), "a", "b" + i)));
+            }
+            return canonical;
+          });
+      }
+      final List<Future<List<Path<?>>>> futures = executor.invokeAll(tasks);
+      final List<Path<?>> first = futures.get(0).get();
+      for (final Future<List<Path<?>>> f : futures) {
+        final List<Path<?>> canonical = f.get();
+        for (int i = 0; i < canonical.size(); i++) {
+          assertSame(first.get(i), canonical.get(i));
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathMap {
+
+  private TestPathMap() {
+    super();
+  }
+
+  @Test
+  final void testAgainstHashMap() {
+    final PathMap<Integer> map = new PathMap<>();
+    final Map<Path<?>, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      final Path<?> p = Path.of(null, "a" + (i % 7), "b" + (i % 13), "c" + i);
+      assertEquals(expected.put(p, i), map.put(p, i));
+    }
+    assertEquals(expected.size(), map.size());
+    for (int i = 0; i < 1000; i += 3) {
+      final Path<?> p = Path.of(null, "a" + (i % 7), "b" + (i % 13), "c" + i);
+      assertEquals(expected.remove(p), map.remove(p));
+    }
+    assertEquals(expected.size(), map.size());
+    for (final Map.Entry<Path<?>, Integer> e : expected.entrySet()) {
+      assertEquals(e.getValue(), map.get(e.getKey()));
+    }
+    final Map<Path<?>, Integer> seen = new HashMap<>();
+    map.forEach(seen::put);
+    assertEquals(expected, seen);
+    assertNull(map.get(Path.of(null, "a0", "b0", "c0")));
+  }
+
+  @Test
+  final void testGetByParentAndLastElement() {
+    final PathMap<String> map = new PathMap<>();
+    final Path<?> parent = Path.of(null, "a", "b");
+    final Path<?> flat = Path.of(null, "a", "b", "c");
+    map.put(flat, "flat");
+    map.put(Path.of(null, "a", "b", "c").transliterate(), "transliterated");
+    assertEquals("flat", map.get(parent, Element.of("c")));
+    assertEquals("flat", map.get(parent.plus(Element.of("c"))));
+    assertNull(map.get(parent, Element.of("d")));
+    assertNull(map.get(Path.of(null, "a", "x"), Element.of("c")));
+
+    final Path<?> qualifiedParent = Path.of(Qualifiers.of("env", "test"), List.of(Element.of("a")), Element.of("b"));
+    assertNull(map.get(qualifiedParent, Element.of("c")));
+    map.put(qualifiedParent.plus(Element.of("c")), "qualified");
+    assertEquals("qualified", map.get(qualifiedParent, Element.of("c")));
+    assertTrue(map.containsKey(Path.of(Qualifiers.of("env", "test"), List.of(Element.of("a"), Element.of("b")), Element.of("c"))));
+    assertEquals("flat", map.remove(flat));
+    assertFalse(map.containsKey(flat));
+    assertEquals(2, map.size());
+  }
+
+}
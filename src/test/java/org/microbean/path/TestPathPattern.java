@@ -0,0 +1,82 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathPattern {
+
+  private TestPathPattern() {
+    super();
+  }
+
+  @Test
+  final void testGlobs() {
+    final Path<?> abc = Path.of(null, "a", "b", "c");
+    assertTrue(PathPattern.compile("a/b/c").matches(abc));
+    assertTrue(PathPattern.compile("a/*/c").matches(abc));
+    assertTrue(PathPattern.compile("a/**").matches(abc));
+    assertTrue(PathPattern.compile("**/c").matches(abc));
+    assertTrue(PathPattern.compile("a/**/b/**/c").matches(abc));
+    assertTrue(PathPattern.compile("?/b*/**").matches(abc));
+    assertFalse(PathPattern.compile("a/b").matches(abc));
+    assertFalse(PathPattern.compile("a/*/c/*").matches(abc));
+    assertFalse(PathPattern.compile("a/**/d").matches(abc));
+    assertTrue(PathPattern.compile("a\\*").matches(Path.of(Element.of("a*"))));
+    assertFalse(PathPattern.compile("a\\*").matches(Path.of(Element.of("ab"))));
+  }
+
+  @Test
+  final void testQualifierConstraints() {
+    final Path<?> p = Path.of(Element.of(Qualifiers.of("env", "prod-us"), null, "bean"));
+    assertTrue(PathPattern.compile("bean[env=prod-*]").matches(p));
+    assertFalse(PathPattern.compile("bean[env=test]").matches(p));
+    assertFalse(PathPattern.compile("bean[region=*]").matches(p));
+    assertThrows(IllegalArgumentException.class, () -> PathPattern.compile("bean[env]"));
+    assertThrows(IllegalArgumentException.class, () -> PathPattern.compile("bean[env=prod"));
+  }
+
+  @Test
+  final void testPatternSet() {
+    final PathPatternSet set = PathPatternSet.of(PathPattern.compile("a/b/c"),
+                                                 PathPattern.compile("a/*/c"),
+                                                 PathPattern.compile("a/**"),
+                                                 PathPattern.compile("x/**"),
+                                                 PathPattern.compile("a/b"),
+                                                 PathPattern.compile("**/c"));
+    final Path<?> abc = Path.of(null, "a", "b", "c");
+    final List<PathPattern> matching = set.matching(abc);
+    assertEquals(List.of("a/b/c", "a/*/c", "a/**", "**/c"), matching.stream().map(PathPattern::toString).toList());
+    for (final PathPattern pattern : set.patterns()) {
+      assertEquals(pattern.matches(abc), matching.contains(pattern));
+    }
+    assertTrue(set.matchesAny(Path.of(null, "x")));
+    assertFalse(set.matchesAny(Path.of(null, "y")));
+  }
+
+}
@@ -19,6 +19,7 @@ package org.microbean.path;
 import java.lang.constant.Constable;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
 
 import org.junit.jupiter.api.Test;
@@ -31,6 +32,7 @@ import org.microbean.path.Path.Element;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 final class TestPathQualification {
@@ -58,4 +60,36 @@ final class TestPathQualification {
     assertFalse(iterator.hasNext());
   }
 
+  @Test
+  final void testInteriorElementQualification() {
+    final Path<Class<?>> p =
+      new Path<>(Qualifiers.of(),
+                 List.of(Element.of("a"),
+                         Element.of(Qualifiers.of(Qualifier.<String, String>of("foo", "bar")), null, "b")),
+                 new Element<>(Qualifiers.of(Qualifier.<String, String>of("x", "y")),
+                               String.class,
+                               "c"));
+    final Iterator<? extends Qualifier<String, Object>> iterator = p.qualifiers().iterator();
+    assertEquals("a.b.c.x", iterator.next().name());
+    assertEquals("a.b.foo", iterator.next().name());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  final void testQualifierLookup() {
+    final Path<?> p =
+      Path.of(Qualifiers.of("env", "test"),
+              List.of(Element.of(Qualifiers.of("x", "1"), null, "a")),
+              Element.of(Qualifiers.of("foo", "bar"), String.class, "c"));
+    assertEquals("test", p.qualifier("env"));
+    assertEquals("bar", p.qualifier("a.c.foo"));
+    assertEquals("1", p.qualifier("a.x"));
+    assertNull(p.qualifier("foo"));
+    assertEquals("bar", p.qualifier(1, "foo"));
+    assertEquals("1", p.qualifier(0, "x"));
+    assertNull(p.qualifier(0, "foo"));
+    assertEquals("bar", p.lastElement().qualifier("foo"));
+    assertNull(Element.of("c").qualifier("foo"));
+  }
+
 }
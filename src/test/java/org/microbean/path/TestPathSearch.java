@@ -0,0 +1,85 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathSearch {
+
+  private TestPathSearch() {
+    super();
+  }
+
+  @Test
+  final void testSearch() {
+    final Path<?> haystack = Path.of(null, "a", "a", "b", "a", "a", "b", "a", "a", "a", "b");
+    final PathSearch search = Path.compileSearch(Path.of(null, "a", "a", "b"));
+    assertEquals(0, search.indexIn(haystack));
+    assertEquals(7, search.lastIndexIn(haystack));
+    assertArrayEquals(new int[] { 0, 3, 7 }, search.indexesIn(haystack));
+
+    final PathSearch overlapping = Path.compileSearch(Path.of(null, "a", "a"));
+    assertArrayEquals(new int[] { 0, 3, 6, 7 }, overlapping.indexesIn(haystack));
+    assertEquals(7, overlapping.lastIndexIn(haystack));
+
+    final PathSearch absent = Path.compileSearch(Path.of(null, "b", "b"));
+    assertEquals(-1, absent.indexIn(haystack));
+    assertEquals(-1, absent.lastIndexIn(haystack));
+    assertEquals(0, absent.indexesIn(haystack).length);
+    assertEquals(-1, Path.compileSearch(haystack.plus(Path.Element.of("c"))).indexIn(haystack));
+  }
+
+  @Test
+  final void testConsistentWithPathMethods() {
+    final Path<?> haystack = Path.of(null, "x", "y", "x", "y", "z");
+    final Path<?> xy = Path.of(null, "x", "y");
+    assertEquals(0, haystack.indexOf(xy));
+    assertEquals(2, haystack.lastIndexOf(xy));
+    assertEquals(haystack.indexOf(xy, Object::equals), haystack.indexOf(xy));
+    assertEquals(haystack.lastIndexOf(xy, Object::equals), haystack.lastIndexOf(xy));
+    assertTrue(haystack.startsWith(xy));
+    assertFalse(haystack.endsWith(xy));
+    assertTrue(haystack.endsWith(Path.of(null, "y", "z")));
+    assertFalse(xy.endsWith(haystack));
+
+    // Needles both shorter and longer than the naive-scan threshold.
+    final List<String> names = List.of("a", "a", "b", "a", "a", "b", "a", "a", "a", "b", "a", "a", "b", "a", "c");
+    final Path<?> path = Path.of(null, names);
+    for (int from = 0; from < names.size(); from++) {
+      for (int to = from + 1; to <= names.size(); to++) {
+        final List<String> sub = names.subList(from, to);
+        final Path<?> needle = Path.of(null, sub);
+        final PathSearch search = Path.compileSearch(needle);
+        assertEquals(Collections.indexOfSubList(names, sub), path.indexOf(needle), sub.toString());
+        assertEquals(Collections.lastIndexOfSubList(names, sub), path.lastIndexOf(needle), sub.toString());
+        assertEquals(search.indexIn(path), path.indexOf(needle));
+        assertEquals(search.lastIndexIn(path), path.lastIndexOf(needle));
+      }
+    }
+    assertEquals(-1, path.indexOf(Path.of(null, "a", "a", "a", "a", "b")));
+    assertEquals(-1, path.lastIndexOf(Path.of(null, "b", "a", "a", "b", "a", "a", "b")));
+  }
+
+}
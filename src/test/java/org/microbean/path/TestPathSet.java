@@ -0,0 +1,110 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathSet {
+
+  private TestPathSet() {
+    super();
+  }
+
+  @Test
+  final void testSortedAndDistinct() {
+    final List<Path<?>> paths = new ArrayList<>(List.of(Path.of(null, "b"), Path.of(null, "a", "b"), Path.of(null, "a"), Path.of(null, "a", "b"), Path.of(null, "a", "c")));
+    Collections.shuffle(paths);
+    final PathSet set = PathSet.of(paths);
+    assertEquals(4, set.size());
+    assertEquals(List.of(Path.of(null, "a"), Path.of(null, "a", "b"), Path.of(null, "a", "c"), Path.of(null, "b")), set.paths());
+    for (int i = 0; i < set.size(); i++) {
+      assertTrue(set.contains(set.get(i)));
+      assertEquals(i, set.indexOf(set.get(i)));
+    }
+    assertFalse(set.contains(Path.of(null, "a", "a")));
+    assertEquals(-2, set.indexOf(Path.of(null, "a", "a")));
+    assertFalse(set.contains(Path.of(Qualifiers.of("env", "test"), List.of(), Element.of("a"))));
+    assertTrue(PathSet.of(List.of()).isEmpty());
+  }
+
+  @Test
+  final void testFloorAndCeiling() {
+    final PathSet set = PathSet.of(List.of(Path.of(null, "b"), Path.of(null, "d"), Path.of(null, "d", "e")));
+    assertNull(set.floor(Path.of(null, "a")));
+    assertEquals(Path.of(null, "b"), set.ceiling(Path.of(null, "a")));
+    assertEquals(Path.of(null, "b"), set.floor(Path.of(null, "b")));
+    assertEquals(Path.of(null, "b"), set.ceiling(Path.of(null, "b")));
+    assertEquals(Path.of(null, "b"), set.floor(Path.of(null, "c")));
+    assertEquals(Path.of(null, "d"), set.ceiling(Path.of(null, "c")));
+    assertEquals(Path.of(null, "d"), set.floor(Path.of(null, "d", "a")));
+    assertEquals(Path.of(null, "d", "e"), set.ceiling(Path.of(null, "d", "a")));
+    assertEquals(Path.of(null, "d", "e"), set.floor(Path.of(null, "z")));
+    assertNull(set.ceiling(Path.of(null, "z")));
+  }
+
+  @Test
+  final void testSubSetUnder() {
+    final List<Path<?>> paths = new ArrayList<>();
+    for (final String a : List.of("a", "b", "c")) {
+      paths.add(Path.of(null, a));
+      for (final String b : List.of("a", "b", "c")) {
+        paths.add(Path.of(null, a, b));
+        for (final String c : List.of("a", "b", "c")) {
+          paths.add(Path.of(null, a, b, c));
+          paths.add(Path.of(null, a, b, c, "d"));
+        }
+      }
+    }
+    final PathSet set = PathSet.of(paths);
+    final List<Path<?>> prefixes = new ArrayList<>(set.paths());
+    prefixes.add(Path.of(null, "a", "z"));
+    prefixes.add(Path.of(null, "z"));
+    for (final Path<?> prefix : prefixes) {
+      final List<Path<?>> expected = new ArrayList<>();
+      set.forEach(p -> {
+          if (p.startsWith(prefix)) {
+            expected.add(p);
+          }
+        });
+      assertEquals(expected, set.subSetUnder(prefix).paths(), prefix::toString);
+    }
+    final PathSet ab = set.subSetUnder(Path.of(null, "a", "b"));
+    assertEquals(1 + 3 * 2, ab.size());
+    assertSame(ab, ab.subSetUnder(Path.of(null, "a")));
+    assertEquals(List.of(Path.of(null, "a", "b", "c"), Path.of(null, "a", "b", "c", "d")), ab.subSetUnder(Path.of(null, "a", "b", "c")).paths());
+    assertEquals(0, ab.indexOf(Path.of(null, "a", "b")));
+    assertEquals(Path.of(null, "a", "b", "a"), ab.floor(Path.of(null, "a", "b", "a", "a")));
+    assertNull(ab.floor(Path.of(null, "a", "a")));
+    assertNull(ab.ceiling(Path.of(null, "a", "c")));
+    assertTrue(ab.subSetUnder(Path.of(null, "b")).isEmpty());
+  }
+
+}
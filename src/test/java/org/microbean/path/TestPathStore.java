@@ -0,0 +1,110 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.file.Files;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifiers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathStore {
+
+  private TestPathStore() {
+    super();
+  }
+
+  @Test
+  final void testWriteAndOpen() throws IOException {
+    final Map<Path<?>, byte[]> entries = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      entries.put(Path.of(null, "a", "b" + i, "c"), ("v" + i).getBytes(UTF_8));
+    }
+    final Path<?> qualified =
+      Path.of(Qualifiers.of(), List.of(Element.of(Qualifiers.of("env", "prod"), null, "a")), Element.of(String.class, "x"));
+    entries.put(qualified, new byte[] { 42 });
+    entries.put(Path.of(null, "a"), new byte[0]);
+
+    final java.nio.file.Path file = Files.createTempFile("TestPathStore", ".mbps");
+    try {
+      PathStore.write(file, entries);
+      final PathStore store = PathStore.open(file);
+      assertEquals(102, store.size());
+      assertEquals("v57", UTF_8.decode(store.get(Path.of(null, "a", "b57", "c"))).toString());
+      final ByteBuffer value = store.get(qualified);
+      assertEquals(1, value.remaining());
+      assertEquals(42, value.get(0));
+      assertTrue(store.containsKey(Path.of(null, "a")));
+      assertEquals(0, store.get(Path.of(null, "a")).remaining());
+      assertFalse(store.containsKey(Path.of(null, "a", "b57")));
+      assertNull(store.get(Path.of(null, "a", "b57")));
+      assertNull(store.get(Path.of(null, "a", "b100", "c")));
+      assertNull(store.get(Path.of(Element.of(Qualifiers.of("env", "test"), null, "a")).plus(Element.of(String.class, "x"))));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  final void testNonAsciiKeys() throws IOException {
+    // Lookups encode keys themselves; they must agree byte for byte
+    // with String#getBytes(Charset), which the writer uses.
+    final List<String> names = List.of("\u00e9t\u00e9",
+                                       "\u65e5\u672c",
+                                       "\ud83d\ude00",
+                                       "\ud800x",
+                                       "x\udc00",
+                                       "\u00e9".repeat(100));
+    final Map<Path<?>, byte[]> entries = new HashMap<>();
+    for (int i = 0; i < names.size(); i++) {
+      entries.put(Path.of(null, "a", names.get(i)), new byte[] { (byte)i });
+    }
+    final Path<?> qualified = Path.of(Qualifiers.of(), List.of(Element.of(Qualifiers.of("\u00fc", "\ud83d\ude00"), null, "a")), Element.of("b"));
+    entries.put(qualified, new byte[] { 42 });
+    final java.nio.file.Path file = Files.createTempFile("TestPathStore", ".mbps");
+    try {
+      PathStore.write(file, entries);
+      final PathStore store = PathStore.open(file);
+      for (int i = 0; i < names.size(); i++) {
+        assertEquals(i, store.get(Path.of(null, "a", names.get(i))).get(0), names.get(i));
+      }
+      assertEquals(42, store.get(qualified).get(0));
+      assertNull(store.get(Path.of(null, "a", "\u00e9t\u00e8")));
+      assertNull(store.get(Path.of(null, "a", "\ud83d\ude01")));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import java.util.function.BiPredicate;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathSuffixIndex {
+
+  private TestPathSuffixIndex() {
+    super();
+  }
+
+  @Test
+  final void testEndingWith() {
+    final PathSuffixIndex<String> index = new PathSuffixIndex<>();
+    final Path<?> abc = Path.of(null, "a", "b", "c");
+    final Path<?> xbc = Path.of(null, "x", "b", "c");
+    final Path<?> bd = Path.of(null, "b", "d");
+    index.put(abc, "abc");
+    index.put(xbc, "xbc");
+    index.put(bd, "bd");
+    assertEquals(3, index.size());
+    assertEquals("xbc", index.get(xbc));
+
+    assertEquals(Set.of("abc", "xbc"), values(index, Path.of(null, "b", "c")));
+    assertEquals(Set.of("abc"), values(index, abc));
+    assertTrue(index.endingWith(Path.of(null, "a", "c")).isEmpty());
+
+    // Match names ignoring case.
+    assertEquals(Set.of("abc", "xbc"),
+                 values(index, Path.of(null, "B", "C"), (e1, e2) -> e1.name().equalsIgnoreCase(e2.name())));
+    assertEquals(Set.of("abc", "xbc", "bd"),
+                 values(index, Path.of(Element.of("anything")), (e1, e2) -> true));
+
+    assertEquals("abc", index.remove(abc));
+    assertNull(index.remove(abc));
+    assertEquals(Set.of("xbc"), values(index, Path.of(null, "b", "c")));
+  }
+
+  private static final Set<String> values(final PathSuffixIndex<String> index, final Path<?> suffix) {
+    final Set<String> values = new HashSet<>();
+    for (final Entry<Path<?>, String> e : index.endingWith(suffix)) {
+      assertTrue(e.getKey().endsWith(suffix));
+      values.add(e.getValue());
+    }
+    return values;
+  }
+
+  private static final Set<String> values(final PathSuffixIndex<String> index,
+                                          final Path<?> suffix,
+                                          final BiPredicate<? super Element<?>, ? super Element<?>> p) {
+    final Set<String> values = new HashSet<>();
+    for (final Entry<Path<?>, String> e : index.endingWith(suffix, p)) {
+      values.add(e.getValue());
+    }
+    return values;
+  }
+
+}
@@ -0,0 +1,79 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPathTrie {
+
+  private TestPathTrie() {
+    super();
+  }
+
+  @Test
+  final void testLookups() {
+    final PathTrie<String> trie = new PathTrie<>();
+    final Path<?> a = Path.of(Element.of("a"));
+    final Path<?> ab = a.plus(Element.of("b"));
+    final Path<?> abc = ab.plus(Element.of("c"));
+    final Path<?> abd = ab.plus(Element.of("d"));
+    assertNull(trie.put(a, "a"));
+    assertNull(trie.put(abc, "abc"));
+    assertNull(trie.put(abd, "abd"));
+    assertEquals("abd", trie.put(abd, "abd"));
+    assertEquals(3, trie.size());
+
+    assertEquals("abc", trie.get(Path.of(null, "a", "b", "c")));
+    assertNull(trie.get(ab));
+    assertFalse(trie.containsKey(ab));
+
+    assertEquals(a, trie.longestPrefix(ab).getKey());
+    assertEquals("abc", trie.longestPrefix(abc.plus(Element.of("e"))).getValue());
+    assertNull(trie.longestPrefix(Path.of(Element.of("x"))));
+
+    final Set<String> values = new HashSet<>();
+    for (final Entry<Path<?>, String> e : trie.descendants(ab)) {
+      values.add(e.getValue());
+    }
+    assertEquals(Set.of("abc", "abd"), values);
+    assertEquals(3, trie.descendants(a).size());
+
+    final List<Entry<Path<?>, String>> ancestors = trie.ancestors(abc.plus(Element.of("e")));
+    assertEquals(2, ancestors.size());
+    assertEquals("a", ancestors.get(0).getValue());
+    assertEquals("abc", ancestors.get(1).getValue());
+
+    assertEquals("abc", trie.remove(abc));
+    assertNull(trie.remove(abc));
+    assertEquals(2, trie.size());
+    assertTrue(trie.descendants(abc).isEmpty());
+    assertEquals("abd", trie.get(abd));
+  }
+
+}
@@ -0,0 +1,102 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPaths {
+
+  private static final int SIZE = 10_000;
+
+  private ForkJoinPool pool;
+
+  private List<List<String>> nameLists;
+
+  private TestPaths() {
+    super();
+  }
+
+  @BeforeEach
+  final void setUp() {
+    this.pool = new ForkJoinPool(4);
+    this.nameLists = new ArrayList<>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      // Every name list occurs twice.
+      this.nameLists.add(List.of("root", "n" + (i / 2 % 7), "leaf" + (i / 2)));
+    }
+  }
+
+  @AfterEach
+  final void tearDown() {
+    this.pool.shutdown();
+  }
+
+  @Test
+  final void testBulkOperations() {
+    final List<Path<?>> paths = Paths.ofNames(this.pool, this.nameLists);
+    assertEquals(SIZE, paths.size());
+    for (int i = 0; i < SIZE; i += 997) {
+      assertEquals(Path.of(null, this.nameLists.get(i)), paths.get(i));
+    }
+
+    final BitSet containing = Paths.containing(this.pool, paths, Path.of(null, "root", "n3"));
+    final BitSet matching = Paths.matching(this.pool, paths, PathPattern.compile("root/n3/*"));
+    final BitSet expected = new BitSet();
+    for (int i = 0; i < SIZE; i++) {
+      if (i / 2 % 7 == 3) {
+        expected.set(i);
+      }
+    }
+    assertEquals(expected, containing);
+    assertEquals(expected, matching);
+
+    final List<Path<?>> distinct = Paths.distinct(this.pool, paths);
+    assertEquals(SIZE / 2, distinct.size());
+    assertSame(paths.get(0), distinct.get(0));
+    assertSame(paths.get(2), distinct.get(1));
+
+    final List<Path<?>> transliterated = Paths.transliterate(this.pool, paths, TestPaths.class, (p, e) -> e);
+    assertTrue(transliterated.get(SIZE - 1).transliterated());
+    assertEquals(paths.get(SIZE - 1).lastElement(), transliterated.get(SIZE - 1).lastElement());
+
+    final List<Path<?>> interned = Paths.intern(this.pool, paths);
+    assertSame(interned.get(0), interned.get(1));
+    assertSame(interned.get(0), paths.get(1).intern());
+  }
+
+  @Test
+  final void testChunkSize() {
+    assertEquals(1024, Paths.chunkSize(10, 8));
+    assertEquals(0, Paths.chunkSize(10_000_000, 8) % 64);
+    assertTrue(Paths.chunkSize(10_000_000, 8) * 8 * 4 >= 10_000_000);
+  }
+
+}
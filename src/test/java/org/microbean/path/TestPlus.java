@@ -0,0 +1,122 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+import org.microbean.path.Path.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestPlus {
+
+  private TestPlus() {
+    super();
+  }
+
+  @Test
+  final void testIncrementalPathEqualsFlatPath() {
+    final List<Element<?>> elements = new ArrayList<>();
+    Path<?> incremental = Path.of(Qualifiers.of(Qualifier.<String, String>of("env", "test")), Element.of("a"));
+    elements.add(Element.of("a"));
+    for (int i = 0; i < 10; i++) {
+      final Element<?> e =
+        i % 3 == 0 ? Element.of(Qualifiers.of(Qualifier.<String, String>of("foo", "bar" + i)), null, "e" + i) : Element.of("e" + i);
+      incremental = incremental.plus(e);
+      final Path<?> flat =
+        new Path<>(Qualifiers.of(Qualifier.<String, String>of("env", "test")), elements, e);
+      elements.add(e);
+      assertEquals(flat.size(), incremental.size());
+      assertEquals(flat.qualifiers(), incremental.qualifiers());
+      assertEquals(flat, incremental);
+      assertEquals(incremental, flat);
+      assertEquals(flat.hashCode(), incremental.hashCode());
+      assertEquals(flat.toString(), incremental.toString());
+      for (int j = 0; j < flat.size(); j++) {
+        assertEquals(flat.get(j), incremental.get(j));
+      }
+    }
+  }
+
+  @Test
+  final void testSharedStorage() {
+    final Path<?> parent = Path.of(String.class, "a", "b");
+    final Path<?> c = parent.plus(Element.of("c"));
+    final Path<?> d = parent.plus(Element.of("d"));
+    assertFalse(c.equals(d));
+    assertTrue(c.startsWith(parent));
+    assertTrue(d.startsWith(parent));
+    assertEquals(3, c.lastIndexOf(Path.of(Element.of("c"))) + 1);
+    assertSame(parent.get(1), d.get(1));
+    assertEquals(parent.plus(Element.of("c")), c);
+  }
+
+  @Test
+  final void testInlineAndArrayStorageAgree() {
+    final Path<?> appended = Path.of(null, "a", "b", "c").plus(Element.of("d")).plus(Element.of("e"));
+    final Path<?> flat = Path.of(null, "a", "b", "c", "d", "e");
+    assertEquals(flat, appended);
+    assertEquals(appended, flat);
+    assertEquals(flat.hashCode(), appended.hashCode());
+    assertTrue(appended.startsWith(Path.of(null, "a", "b")));
+    assertTrue(flat.endsWith(Path.of(null, "d", "e")));
+    assertEquals("c", appended.get(2).name());
+    assertEquals(List.of(Element.of("a"), Element.of("b")), Path.of(null, "a", "b").stream().toList());
+  }
+
+  @Test
+  final void testPlusCollectionIncludesThisPathsElements() {
+    final Path<?> parent = Path.of(null, "a", "b");
+    final Path<?> p = parent.plus(List.of(Element.of("c")), Element.of("d"));
+    assertEquals(Path.of(null, "a", "b", "c", "d"), p);
+    // An appended receiver, and a result short enough to be inline.
+    final Path<?> appended = Path.of(null, "a").plus(Element.of("b"));
+    assertEquals(Path.of(null, "a", "b", "c"), appended.plus(List.of(), Element.of("c")));
+    assertEquals(Path.of(null, "a", "b", "c", "d", "e"), appended.plus(List.of(Element.of("c"), Element.of("d")), Element.of("e")));
+  }
+
+  @Test
+  final void testBuilder() {
+    final Path.Builder builder = new Path.Builder();
+    builder.qualifiers(Qualifiers.of(Qualifier.<String, String>of("env", "test"))).add("a").add("b");
+    final Path<?> abc = builder.build(Element.of("c"));
+    final Path<?> abd = builder.build(Element.of("d"));
+    assertEquals(2, builder.size());
+    assertEquals(new Path<>(Qualifiers.of(Qualifier.<String, String>of("env", "test")), List.of(Element.of("a"), Element.of("b")), Element.of("c")), abc);
+    assertEquals("d", abd.lastElement().name());
+    assertEquals(abc.qualifiers(), abd.qualifiers());
+    for (int i = 0; i < 20; i++) {
+      builder.add("e" + i);
+    }
+    assertEquals(22, builder.build().size());
+
+    final Path<?> reused = builder.reset().addAll(abc).build();
+    assertTrue(reused.qualifiers().isEmpty());
+    assertEquals(Path.of(null, "a", "b", "c"), reused);
+    assertEquals(0, builder.reset().size());
+  }
+
+}
@@ -0,0 +1,80 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import org.microbean.qualifier.Qualifier;
+import org.microbean.qualifier.Qualifiers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestQualifierIndex {
+
+  private TestQualifierIndex() {
+    super();
+  }
+
+  @Test
+  final void testIntersections() {
+    // Enough paths to span two containers, with both dense (bitmap)
+    // and sparse (array) pairs.
+    final int size = 70_000;
+    final List<Path<?>> paths = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      final Qualifiers<String, Object> pathQualifiers = i % 1000 == 0 ?
+        Qualifiers.of(List.of(Qualifier.of("env", i % 2 == 0 ? "test" : "prod"), Qualifier.of("rare", "yes"))) :
+        Qualifiers.of("env", i % 2 == 0 ? "test" : "prod");
+      paths.add(Path.of(pathQualifiers,
+                        List.of(),
+                        Element.of(Qualifiers.of("foo", i % 3 == 0 ? "bar" : "baz"), null, "c")));
+    }
+    final QualifierIndex index = QualifierIndex.of(paths);
+    assertEquals(size, index.size());
+    assertEquals(size / 2, index.count("env", "test"));
+
+    final BitSet expected = new BitSet();
+    for (int i = 0; i < size; i += 6) {
+      expected.set(i);
+    }
+    final Qualifiers<String, Object> query =
+      Qualifiers.of(List.of(Qualifier.<String, Object>of("env", "test"), Qualifier.<String, Object>of("c.foo", "bar")));
+    assertEquals(expected, index.matchingIndices(query));
+
+    expected.clear();
+    for (int i = 0; i < size; i += 3000) {
+      expected.set(i);
+    }
+    final Qualifiers<String, Object> rare =
+      Qualifiers.of(List.of(Qualifier.<String, Object>of("rare", "yes"), Qualifier.<String, Object>of("c.foo", "bar")));
+    assertEquals(expected, index.matchingIndices(rare));
+    assertEquals(expected.cardinality(), index.matching(rare).size());
+    assertEquals(paths.get(3000), index.matching(rare).get(1));
+
+    assertTrue(index.matchingIndices("env", "staging").isEmpty());
+    assertTrue(index.matchingIndices(Qualifiers.of("c.foo", "none")).isEmpty());
+    assertEquals(size, index.matchingIndices(Qualifiers.of()).cardinality());
+  }
+
+}
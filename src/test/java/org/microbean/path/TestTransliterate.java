@@ -0,0 +1,62 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestTransliterate {
+
+  private TestTransliterate() {
+    super();
+  }
+
+  @Test
+  final void testPackageNameSources() {
+    final Path<?> path = Path.of(null, "a", "b");
+    final List<String> packageNames = new ArrayList<>();
+    final Path<?> t = path.transliterate((packageName, e) -> {
+        packageNames.add(packageName);
+        return Element.of(e.name().toUpperCase());
+      });
+    assertTrue(t.transliterated());
+    assertEquals(Path.of(null, "A", "B").transliterate(), t);
+    path.transliterate(String.class, (packageName, e) -> {
+        packageNames.add(packageName);
+        return e;
+      });
+    path.transliterate("com.example", (packageName, e) -> {
+        packageNames.add(packageName);
+        return e;
+      });
+    // This test class lives in Path's own package, so the stack walk
+    // skips past it to the test framework.
+    assertNotEquals(Path.class.getPackageName(), packageNames.get(0));
+    assertEquals(List.of("java.lang", "java.lang", "com.example", "com.example"), packageNames.subList(2, 6));
+    assertSame(t, t.transliterate(String.class, (packageName, e) -> e));
+  }
+
+}
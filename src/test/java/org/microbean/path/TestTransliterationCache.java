@@ -0,0 +1,63 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2022 microBean™.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.path;
+
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.Test;
+
+import org.microbean.path.Path.Element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TestTransliterationCache {
+
+  private TestTransliterationCache() {
+    super();
+  }
+
+  @Test
+  final void testHitsMissesAndEviction() {
+    final TransliterationCache cache = new TransliterationCache(4);
+    final BiFunction<String, Element<?>, Element<?>> f = (packageName, e) -> Element.of(packageName + "." + e.name());
+    final Path<?> path = Path.of(null, "a", "b");
+    final Path<?> t1 = cache.transliterate(path, "p", f);
+    assertEquals(Path.of(null, "p.a", "p.b").transliterate(), t1);
+    assertSame(t1, cache.transliterate(Path.of(null, "a", "b"), "p", f));
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+
+    // A different package name or function is a different key.
+    cache.transliterate(path, "q", f);
+    cache.transliterate(path, "p", (packageName, e) -> e);
+    assertEquals(3, cache.misses());
+
+    for (int i = 0; i < 100; i++) {
+      cache.transliterate(Path.of(null, "x" + i), "p", f);
+    }
+    assertTrue(cache.size() <= 4);
+    assertTrue(cache.evictions() > 0);
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertThrows(IllegalArgumentException.class, () -> new TransliterationCache(0));
+  }
+
+}